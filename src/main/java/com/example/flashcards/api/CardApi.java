@@ -1,19 +1,27 @@
 package com.example.flashcards.api;
 
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.card.CardImportResultDto;
 import com.example.flashcards.dto.errors.ApiError;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
+import com.example.flashcards.model.learning.Difficulty;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 
 @Tag(name = "Cards API")
 @SecurityRequirement(name = "bearerAuth")
@@ -38,6 +46,38 @@ public interface CardApi {
     @ResponseStatus(HttpStatus.CREATED)
     CardDto saveCard(@PathVariable long setId, @RequestBody @Valid CardDto cardDto, Authentication auth);
 
+    @Operation(summary = "Import cards",
+            description = "Imports a CSV, TSV or NDJSON card list. Front is the first column or the \"front\" property, " +
+                    "back is the second column or the \"back\" property. Duplicates and rows without front are skipped. " +
+                    "Cards are committed in batches, a failed import keeps the batches inserted before the failure")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = "text/csv", schema = @Schema(type = "string", example = "front,back\nBonjour,Hello")),
+            @Content(mediaType = "text/tab-separated-values", schema = @Schema(type = "string")),
+            @Content(mediaType = "application/x-ndjson", schema = @Schema(type = "string",
+                    example = "{\"front\": \"Bonjour\", \"back\": \"Hello\"}"))
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "Malformed card list", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @PostMapping(value = "import", consumes = {"text/csv", "text/tab-separated-values", "application/x-ndjson"})
+    CardImportResultDto importCards(
+            @PathVariable long setId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "Whether the first row of a CSV or TSV list is a header, as in exported lists")
+            @RequestParam(name = "header", required = false, defaultValue = "false") boolean header,
+            @Parameter(hidden = true) InputStream input,
+            Authentication auth
+    );
+
     @Operation(summary = "Delete card")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200"),
@@ -72,9 +112,10 @@ public interface CardApi {
             Authentication auth
     );
 
-    @Operation(summary = "Get card")
+    @Operation(summary = "Get card", description = "Responses carry an ETag and Last-Modified for conditional requests")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "304", description = "Card didn't change since the cached version", content = @Content),
             @ApiResponse(responseCode = "404", description = "Set or card doesn't exist", content = @Content(
                     schema = @Schema(implementation = ApiError.class)
             )),
@@ -83,5 +124,34 @@ public interface CardApi {
             ))
     })
     @GetMapping("{cardId}")
-    CardDto getCard(@PathVariable long cardId, @PathVariable long setId, Authentication auth);
+    ResponseEntity<CardDto> getCard(
+            @PathVariable long cardId,
+            @PathVariable long setId,
+            @Parameter(hidden = true) @RequestHeader HttpHeaders headers,
+            Authentication auth
+    );
+
+    @Operation(summary = "Get cards of the set", description = "Get cards in the order they were added, starting after " +
+            "the cursor returned with the previous page. Optionally only cards the user rated with given difficulty, " +
+            "cards the user hasn't seen yet count as hard")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping
+    CursorPaginationResponse<CardDto> getCards(
+            @PathVariable long setId,
+            @RequestParam(required = false) Difficulty difficulty,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", required = false, defaultValue = "50") int size,
+            Authentication auth
+    );
 }
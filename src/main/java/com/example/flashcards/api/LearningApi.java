@@ -1,6 +1,9 @@
 package com.example.flashcards.api;
 
+import com.example.flashcards.dto.card.CardDto;
 import com.example.flashcards.dto.errors.ApiError;
+import com.example.flashcards.dto.learning.DailyStatsDto;
+import com.example.flashcards.dto.learning.DueCountDto;
 import com.example.flashcards.dto.learning.QuestionAnswerDto;
 import com.example.flashcards.dto.learning.QuestionDto;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +16,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "Learning API")
 @SecurityRequirement(name = "bearerAuth")
 @RestController
@@ -39,7 +44,28 @@ public interface LearningApi {
             Authentication auth
     );
 
-    @Operation(summary = "Submit answer")
+    @Operation(summary = "Create quiz", description = "Create several questions for the set at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @PostMapping(path = "quizzes", params = "setId")
+    List<QuestionDto> createQuiz(
+            @RequestParam long setId,
+            @RequestParam(name = "size", required = false, defaultValue = "10") int size,
+            @RequestBody QuestionDto questionDto,
+            Authentication auth
+    );
+
+    @Operation(summary = "Submit answer", description = "Submit answer. If 'next' is set, the response contains the next question of the set")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200"),
             @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(
@@ -55,7 +81,79 @@ public interface LearningApi {
     @PutMapping("questions/{questionId}")
     QuestionDto submitAnswer(
             @PathVariable long questionId,
+            @RequestParam(name = "next", required = false, defaultValue = "false") boolean next,
             @RequestBody QuestionAnswerDto answer,
             Authentication auth
     );
+
+    @Operation(summary = "Submit answers", description = "Submit answers to several questions at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Question doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @PutMapping("questions")
+    List<QuestionDto> submitAnswers(
+            @RequestBody List<QuestionAnswerDto> answers,
+            Authentication auth
+    );
+
+    @Operation(summary = "Get due cards", description = "Get cards of the set that are due for review")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping(path = "due", params = "setId")
+    List<CardDto> getDueCards(
+            @RequestParam long setId,
+            @RequestParam(name = "limit", required = false, defaultValue = "10") int limit,
+            Authentication auth
+    );
+
+    @Operation(summary = "Count due cards")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping(path = "due/count", params = "setId")
+    DueCountDto countDueCards(
+            @RequestParam long setId,
+            Authentication auth
+    );
+
+    @Operation(summary = "Get daily statistics", description = "Get number of answered and correctly answered questions per day")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", description = "Not authorized", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping("stats")
+    List<DailyStatsDto> getDailyStats(
+            @RequestParam(name = "days", required = false, defaultValue = "30") int days,
+            Authentication auth
+    );
 }
@@ -1,20 +1,30 @@
 package com.example.flashcards.api;
 
 import com.example.flashcards.dto.errors.ApiError;
+import com.example.flashcards.dto.pagination.CountMode;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.dto.pagination.PaginationResponse;
 import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.set.CardSetSummaryDto;
+import com.example.flashcards.dto.set.SetSuggestionDto;
+import com.example.flashcards.service.cards.CardListFormat;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @Tag(name = "Sets API")
 @SecurityRequirement(name = "bearerAuth")
@@ -65,9 +75,10 @@ public interface SetApi {
     @DeleteMapping("{id}")
     void deleteSet(@PathVariable long id, Authentication auth);
 
-    @Operation(summary = "Get set")
+    @Operation(summary = "Get set", description = "Responses carry an ETag and Last-Modified for conditional requests")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "304", description = "Set didn't change since the cached version", content = @Content),
             @ApiResponse(responseCode = "403", content = @Content(
                     schema = @Schema(implementation = ApiError.class)
             )),
@@ -76,9 +87,90 @@ public interface SetApi {
             )),
     })
     @GetMapping("{id}")
-    CardSetDto getSet(@PathVariable long id, Authentication auth);
+    ResponseEntity<CardSetDto> getSet(
+            @PathVariable long id,
+            @Parameter(hidden = true) @RequestHeader HttpHeaders headers,
+            Authentication auth
+    );
+
+    @Operation(summary = "Fork set", description = "Copy a public set or own set with all its cards into a new private set " +
+            "of the authenticated user. The copy keeps the original name unless a new one is given")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201"),
+            @ApiResponse(responseCode = "403", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "400", description = "User already has a set with that name or the name is too long", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+    })
+    @PostMapping("{id}/fork")
+    @ResponseStatus(HttpStatus.CREATED)
+    CardSetSummaryDto forkSet(
+            @PathVariable long id,
+            @RequestParam(name = "name", required = false) String name,
+            Authentication auth
+    );
+
+    @Operation(summary = "Export cards of the set", description = "Streams the cards as CSV, TSV or NDJSON " +
+            "in the format accepted by the card import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = {
+                    @Content(mediaType = "text/csv"),
+                    @Content(mediaType = "text/tab-separated-values"),
+                    @Content(mediaType = "application/x-ndjson")
+            }),
+            @ApiResponse(responseCode = "403", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "404", description = "Set doesn't exist", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+    })
+    @GetMapping("{id}/export")
+    ResponseEntity<StreamingResponseBody> exportSet(
+            @PathVariable long id,
+            @RequestParam(name = "format", required = false, defaultValue = "NDJSON") CardListFormat format,
+            Authentication auth
+    );
+
+    @Operation(summary = "Search public sets", description = "Full text search over names, descriptions and cards of public sets. " +
+            "Sets must contain all words of the query, matches in the name rank first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping("search")
+    PaginationResponse<CardSetSummaryDto> searchSets(
+            @RequestParam String query,
+            @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+            @RequestParam(name = "size", required = false, defaultValue = "10") int size
+    );
+
+    @Operation(summary = "Autocomplete set names", description = "Suggest public sets with a name or a word of the name " +
+            "starting with the prefix, most learned first. Case, diacritics and punctuation are ignored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping("autocomplete")
+    List<SetSuggestionDto> autocompleteSets(
+            @RequestParam String prefix,
+            @RequestParam(name = "limit", required = false, defaultValue = "10") int limit
+    );
 
-    @Operation(summary = "Get all sets")
+    @Operation(summary = "Get all sets", description = "Get page of sets. 'count' selects how the total is computed: " +
+            "EXACT runs a count query, APPROXIMATE uses a recently cached count and NONE only tells whether the page is the last one")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200"),
             @ApiResponse(responseCode = "403", content = @Content(
@@ -86,11 +178,32 @@ public interface SetApi {
             ))
     })
     @GetMapping
-    PaginationResponse<CardSetDto> getSets(
+    PaginationResponse<CardSetSummaryDto> getSets(
             @RequestParam(required = false) Long authorId,
             @RequestParam(required = false) String name,
             @RequestParam(name = "page", required = false, defaultValue = "0") int page,
             @RequestParam(name = "size", required = false, defaultValue = "10") int size,
+            @RequestParam(name = "count", required = false, defaultValue = "EXACT") CountMode count,
+            Authentication auth
+    );
+
+    @Operation(summary = "Get all sets after cursor", description = "Get sets newest first, starting after the cursor " +
+            "returned with the previous page. Pass an empty cursor to get the first page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200"),
+            @ApiResponse(responseCode = "400", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            )),
+            @ApiResponse(responseCode = "403", content = @Content(
+                    schema = @Schema(implementation = ApiError.class)
+            ))
+    })
+    @GetMapping(params = "after")
+    CursorPaginationResponse<CardSetSummaryDto> getSetsAfter(
+            @RequestParam(required = false) Long authorId,
+            @RequestParam(required = false) String name,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", required = false, defaultValue = "10") int size,
             Authentication auth
     );
 }
@@ -0,0 +1,98 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.learning.CardProgress;
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.service.learning.SpacedRepetitionScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Copies the difficulties that were stored on the cards to the progress of the set's author, the only user
+ * who could study a set before the progress was kept per user. Hard cards are skipped, cards without progress
+ * count as hard anyway. The difficulties of the cards are cleared afterwards, so the migration runs only once.
+ * Runs after the id sequences were moved past the existing ids
+ */
+@Slf4j
+@Component
+@DependsOn("idSequenceMigration")
+@RequiredArgsConstructor
+public class CardDifficultyMigration implements InitializingBean {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String COUNT_CARDS = "select count(c) from Card c where c.difficulty is not null";
+    private static final String FIND_STUDIED_CARDS = "select c.id, s.id, s.author.id, c.difficulty from Card c join c.set s " +
+            "where c.difficulty is not null and c.difficulty <> :hard and c.id > :after " +
+            "and not exists (select p.id from CardProgress p where p.userId = s.author.id and p.cardId = c.id) order by c.id";
+    private static final String CLEAR_DIFFICULTIES = "update Card c set c.difficulty = null where c.difficulty is not null";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+
+            Long cards = entityManager.createQuery(COUNT_CARDS, Long.class).getSingleResult();
+            if (cards == 0) {
+                entityManager.getTransaction().rollback();
+                return;
+            }
+
+            log.info("Move difficulties of {} cards to the progress of the set authors", cards);
+            int migrated = migrate(entityManager);
+            entityManager.createQuery(CLEAR_DIFFICULTIES).executeUpdate();
+
+            entityManager.getTransaction().commit();
+            log.info("Created progress of {} studied cards", migrated);
+        } catch (RuntimeException e) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private int migrate(EntityManager entityManager) {
+        LocalDateTime now = LocalDateTime.now();
+        int migrated = 0;
+        long after = 0;
+
+        List<Object[]> rows;
+        do {
+            rows = entityManager.createQuery(FIND_STUDIED_CARDS, Object[].class)
+                    .setParameter("hard", Difficulty.HARD)
+                    .setParameter("after", after)
+                    .setMaxResults(BATCH_SIZE)
+                    .getResultList();
+
+            for (Object[] row : rows) {
+                after = (Long) row[0];
+                entityManager.persist(CardProgress.builder()
+                        .cardId(after)
+                        .setId((Long) row[1])
+                        .userId((Long) row[2])
+                        .difficulty((Difficulty) row[3])
+                        .easeFactor(SpacedRepetitionScheduler.INITIAL_EASE_FACTOR)
+                        .dueAt(now)
+                        .build());
+            }
+
+            entityManager.flush();
+            entityManager.clear();
+            migrated += rows.size();
+        } while (rows.size() == BATCH_SIZE);
+
+        return migrated;
+    }
+}
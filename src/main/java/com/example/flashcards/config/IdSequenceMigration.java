@@ -0,0 +1,78 @@
+package com.example.flashcards.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+/**
+ * Moves the id sequences past the ids that were generated by the identity columns used before.
+ * Runs after the schema update created the sequences and before the first insert, and only ever moves
+ * a sequence forward, so instances that already hold a block of ids are not affected
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceMigration implements InitializingBean {
+    /**
+     * Allocation size of the sequence generators of the entities
+     */
+    static final long ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "person", "person_seq",
+            "flash_card_set", "flash_card_set_seq",
+            "flash_card", "flash_card_seq",
+            "question", "question_seq",
+            "question_stats", "question_stats_seq",
+            "card_progress", "card_progress_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        SEQUENCES.forEach((table, sequence) -> migrate(dialect, table, sequence));
+    }
+
+    private void migrate(Dialect dialect, String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject(String.format("select max(id) from %s", table), Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        Long next = jdbcTemplate.queryForObject(nextValueQuery(dialect), Long.class, sequence);
+        if (next != null && next > maxId + ALLOCATION_SIZE) {
+            return;
+        }
+
+        long restart = maxId + ALLOCATION_SIZE + 1;
+        jdbcTemplate.execute(String.format("alter sequence %s restart with %s", sequence, restart));
+        log.info("Restarted sequence {} with {} to skip the existing ids of {}", sequence, restart, table);
+    }
+
+    /**
+     * Query of the value the sequence returns next. The value is read from the catalog instead of calling
+     * nextval, so the check doesn't burn a block of ids on every startup
+     */
+    private static String nextValueQuery(Dialect dialect) {
+        if (dialect instanceof PostgreSQL81Dialect) {
+            return "select coalesce(last_value + increment_by, start_value) from pg_sequences where sequencename = ?";
+        }
+        if (dialect instanceof H2Dialect) {
+            return "select base_value from information_schema.sequences where lower(sequence_name) = ?";
+        }
+
+        throw new IllegalStateException(String.format("Id sequences of %s can't be migrated", dialect));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.learning.QuestionRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Prepares the question history for the rollup job. Questions created before their creation time was recorded
+ * get the time of the migration, so they are purged one retention period later instead of right away,
+ * and the row that tracks the rollup progress is created. Runs after the schema update
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class QuestionHistoryMigration implements InitializingBean {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        int updated = jdbcTemplate.update("update question set created_at = ? where created_at is null", LocalDateTime.now());
+        if (updated > 0) {
+            log.info("Set creation time of {} questions", updated);
+        }
+
+        Integer rollups = jdbcTemplate.queryForObject(
+                "select count(*) from question_rollup where id = ?", Integer.class, QuestionRollup.ID);
+        if (rollups != null && rollups == 0) {
+            try {
+                jdbcTemplate.update("insert into question_rollup (id) values (?)", QuestionRollup.ID);
+            } catch (DuplicateKeyException e) {
+                log.info("Rollup progress was created by another instance");
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.learning.CardSide;
+import com.example.flashcards.model.learning.Question;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves answer options of the questions from the old question_options table to the option_ids column.
+ * Each option text is resolved to the single card of the question's set with that text on the answer side,
+ * in the order the options were stored. Questions with an option that matches no card or several cards
+ * are not migrated, they keep the question and correct answer texts that were stored with them.
+ * <p>
+ * Questions are migrated in batches of consecutive ids, each batch in its own transaction, so only the options
+ * and the cards of one batch are held in memory. The old table is dropped once every batch is migrated,
+ * a migration that failed halfway starts over on the next startup.
+ * Runs after the schema update added the option_ids column and only while the old table exists
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class QuestionOptionsMigration implements InitializingBean {
+    private static final String FIND_BATCH_END = "select max(question_id) from (select distinct question_id from question_options " +
+            "where question_id > ? order by question_id limit ?) batch";
+    private static final String IN_BATCH = "question_id > ? and question_id <= ?";
+    private static final String FIND_OPTIONS = "select question_id, options from question_options where " + IN_BATCH;
+    private static final String FIND_QUESTIONS = "select q.id, q.card_side, c.set_id from question q " +
+            "join flash_card c on c.id = q.card_id " +
+            "where q.id in (select question_id from question_options where " + IN_BATCH + ")";
+    private static final String FIND_CARDS = "select c.id, c.set_id, c.front, c.back from flash_card c " +
+            "where c.set_id in (select qc.set_id from question q join flash_card qc on qc.id = q.card_id " +
+            "where q.id in (select question_id from question_options where " + IN_BATCH + "))";
+    private static final String UPDATE_OPTION_IDS = "update question set option_ids = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public QuestionOptionsMigration(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${questions.migration.batch-size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!tableExists("question_options")) {
+            return;
+        }
+
+        log.info("Migrate question options to card ids");
+
+        long after = 0;
+        int migrated = 0;
+        int total = 0;
+        while (true) {
+            Long last = jdbcTemplate.queryForObject(FIND_BATCH_END, Long.class, after, batchSize);
+            if (last == null) {
+                break;
+            }
+
+            long from = after;
+            int[] counts = transactionTemplate.execute(status -> migrate(from, last));
+            migrated += counts[0];
+            total += counts[1];
+            after = last;
+        }
+
+        jdbcTemplate.execute("drop table question_options");
+        log.info("Migrated options of {} of {} questions", migrated, total);
+    }
+
+    /**
+     * Migrate the questions with ids in (after, last]
+     *
+     * @return number of migrated questions and number of questions in the batch
+     */
+    private int[] migrate(long after, long last) {
+        // The old element collection had no order column, the options were read in the order they were stored
+        Map<Long, List<String>> options = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_OPTIONS, rs -> {
+            options.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getString(2));
+        }, after, last);
+
+        Map<Long, LegacyQuestion> questions = new HashMap<>();
+        jdbcTemplate.query(FIND_QUESTIONS, rs -> {
+            CardSide side = CardSide.values()[rs.getInt(2)];
+            questions.put(rs.getLong(1), new LegacyQuestion(side, rs.getLong(3)));
+        }, after, last);
+
+        Map<Long, Map<String, List<Long>>> fronts = new HashMap<>();
+        Map<Long, Map<String, List<Long>>> backs = new HashMap<>();
+        jdbcTemplate.query(FIND_CARDS, rs -> {
+            long cardId = rs.getLong(1);
+            long setId = rs.getLong(2);
+            fronts.computeIfAbsent(setId, id -> new HashMap<>()).computeIfAbsent(rs.getString(3), text -> new ArrayList<>()).add(cardId);
+            backs.computeIfAbsent(setId, id -> new HashMap<>()).computeIfAbsent(rs.getString(4), text -> new ArrayList<>()).add(cardId);
+        }, after, last);
+
+        List<Object[]> updates = new ArrayList<>(options.size());
+        options.forEach((questionId, texts) -> {
+            LegacyQuestion question = questions.get(questionId);
+            if (question == null) {
+                log.warn("Card of question {} was deleted, keep its stored texts", questionId);
+                return;
+            }
+
+            // Options are the opposite side of the asked one
+            Map<String, List<Long>> cards = (question.side == CardSide.FRONT ? backs : fronts)
+                    .getOrDefault(question.setId, Map.of());
+            String optionIds = resolve(questionId, texts, cards);
+            if (optionIds != null) {
+                updates.add(new Object[]{optionIds, questionId});
+            }
+        });
+
+        jdbcTemplate.batchUpdate(UPDATE_OPTION_IDS, updates);
+        log.debug("Migrated options of {} of {} questions up to id {}", updates.size(), options.size(), last);
+
+        return new int[]{updates.size(), options.size()};
+    }
+
+    /**
+     * Joined card ids of the options, or null if the options can't be resolved unambiguously
+     */
+    private static String resolve(long questionId, List<String> texts, Map<String, List<Long>> cards) {
+        Set<Long> resolved = new HashSet<>();
+        List<Long> ids = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            List<Long> matching = cards.getOrDefault(text, List.of());
+            if (matching.size() != 1 || !resolved.add(matching.get(0))) {
+                log.warn("Option '{}' of question {} doesn't match a single card, keep its stored texts", text, questionId);
+                return null;
+            }
+            ids.add(matching.get(0));
+        }
+
+        String optionIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        if (optionIds.length() > Question.OPTION_IDS_LENGTH) {
+            log.warn("Options of question {} don't fit the option ids column, keep its stored texts", questionId);
+            return null;
+        }
+
+        return optionIds;
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) = ?", Integer.class, table);
+
+        return count != null && count > 0;
+    }
+
+    @RequiredArgsConstructor
+    private static class LegacyQuestion {
+        private final CardSide side;
+        private final long setId;
+    }
+}
@@ -2,20 +2,41 @@ package com.example.flashcards.controller;
 
 import com.example.flashcards.api.CardApi;
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.card.CardImportResultDto;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.service.CardImportService;
 import com.example.flashcards.service.CardService;
+import com.example.flashcards.service.cards.CardListFormat;
+import com.example.flashcards.service.utils.ResourceVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
 @RequiredArgsConstructor
 @RestController
 public class CardController implements CardApi {
     private final CardService cardService;
+    private final CardImportService importService;
 
     public CardDto saveCard(long setId, CardDto cardDto, Authentication auth) {
         return cardService.saveCard(setId, cardDto, auth);
     }
 
+    public CardImportResultDto importCards(long setId, MediaType contentType, boolean header, InputStream input, Authentication auth) {
+        Charset charset = Optional.ofNullable(contentType.getCharset()).orElse(StandardCharsets.UTF_8);
+        return importService.importCards(setId, input, CardListFormat.of(contentType), header, charset, auth);
+    }
+
     public void deleteCard(long cardId, long setId, Authentication auth) {
         cardService.deleteCard(cardId, setId, auth);
     }
@@ -24,7 +45,19 @@ public class CardController implements CardApi {
         return cardService.replaceCard(cardId, setId, cardDto, auth);
     }
 
-    public CardDto getCard(long cardId, long setId, Authentication auth) {
-        return cardService.getCardById(cardId, setId, auth);
+    public ResponseEntity<CardDto> getCard(long cardId, long setId, HttpHeaders headers, Authentication auth) {
+        Optional<ResourceVersion> version = cardService.findCardVersion(cardId, setId, auth);
+        if (version.isPresent() && version.get().isKnownBy(headers)) {
+            return ConditionalResponses.notModified(version.get());
+        }
+
+        CardDto card = cardService.getCardById(cardId, setId, auth);
+        return version
+                .map(found -> ConditionalResponses.ok(found).body(card))
+                .orElseGet(() -> ResponseEntity.ok(card));
+    }
+
+    public CursorPaginationResponse<CardDto> getCards(long setId, Difficulty difficulty, String after, int size, Authentication auth) {
+        return cardService.getCards(setId, difficulty, new CursorPaginationRequest(after, size), auth);
     }
 }
@@ -1,18 +1,37 @@
 package com.example.flashcards.controller;
 
 import com.example.flashcards.api.SetApi;
+import com.example.flashcards.dto.pagination.CountMode;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.dto.pagination.PaginationRequest;
 import com.example.flashcards.dto.pagination.PaginationResponse;
 import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.set.CardSetSummaryDto;
+import com.example.flashcards.dto.set.SetSuggestionDto;
+import com.example.flashcards.service.CardExportService;
 import com.example.flashcards.service.CardSetService;
+import com.example.flashcards.service.cards.CardExport;
+import com.example.flashcards.service.cards.CardListFormat;
+import com.example.flashcards.service.utils.ResourceVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 @RestController
 public class CardSetController implements SetApi {
     private final CardSetService cardSetService;
+    private final CardExportService exportService;
 
     public CardSetDto saveSet(CardSetDto cardSetDto, Authentication auth) {
         return cardSetService.saveSet(cardSetDto, auth);
@@ -26,12 +45,57 @@ public class CardSetController implements SetApi {
         cardSetService.deleteSet(id, auth);
     }
 
-    public CardSetDto getSet(long id, Authentication auth) {
-        return cardSetService.getSetById(id, auth);
+    public ResponseEntity<CardSetDto> getSet(long id, HttpHeaders headers, Authentication auth) {
+        Optional<ResourceVersion> version = cardSetService.findSetVersion(id, auth);
+        if (version.isPresent() && version.get().isKnownBy(headers)) {
+            return ConditionalResponses.notModified(version.get());
+        }
+
+        // the tag of the returned set, which may be newer than the looked up version
+        CardSetDto set = cardSetService.getSetById(id, auth);
+        return ConditionalResponses.ok(ResourceVersion.ofSet(set)).body(set);
+    }
+
+    public CardSetSummaryDto forkSet(long id, String name, Authentication auth) {
+        return cardSetService.forkSet(id, name, auth);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportSet(long id, CardListFormat format, Authentication auth) {
+        CardExport export = exportService.exportCards(id, format, auth);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(export.getFilename(), StandardCharsets.UTF_8)
+                .build();
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType(export.getFormat().getMediaType(), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(export::writeTo);
+    }
+
+    public PaginationResponse<CardSetSummaryDto> searchSets(String query, int page, int size) {
+        return cardSetService.searchPublicSets(query, new PaginationRequest(page, size));
+    }
+
+    public List<SetSuggestionDto> autocompleteSets(String prefix, int limit) {
+        return cardSetService.suggestPublicSets(prefix, limit);
+    }
+
+    public PaginationResponse<CardSetSummaryDto> getSets(Long authorId, String name, int page, int size, CountMode count, Authentication auth) {
+        PaginationRequest pagination = new PaginationRequest(page, size, count);
+
+        if (authorId != null && name != null) {
+            return cardSetService.getSetsByAuthorAndName(authorId, name, pagination, auth);
+        } else if (authorId != null) {
+            return cardSetService.getSetsByAuthor(authorId, pagination, auth);
+        } else if (name != null) {
+            return cardSetService.getPublicSetsByName(name, pagination);
+        }
+
+        return cardSetService.getPublicSets(pagination);
     }
 
-    public PaginationResponse<CardSetDto> getSets(Long authorId, String name, int page, int size, Authentication auth) {
-        PaginationRequest pagination = new PaginationRequest(page, size);
+    public CursorPaginationResponse<CardSetSummaryDto> getSetsAfter(Long authorId, String name, String after, int size, Authentication auth) {
+        CursorPaginationRequest pagination = new CursorPaginationRequest(after, size);
 
         if (authorId != null && name != null) {
             return cardSetService.getSetsByAuthorAndName(authorId, name, pagination, auth);
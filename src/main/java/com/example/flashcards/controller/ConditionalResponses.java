@@ -0,0 +1,30 @@
+package com.example.flashcards.controller;
+
+import com.example.flashcards.service.utils.ResourceVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Builds responses carrying the validators of a resource, so clients can send conditional requests
+ */
+final class ConditionalResponses {
+    private ConditionalResponses() {
+    }
+
+    static <T> ResponseEntity<T> notModified(ResourceVersion version) {
+        return withVersion(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    static ResponseEntity.BodyBuilder ok(ResourceVersion version) {
+        return withVersion(ResponseEntity.ok(), version);
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, ResourceVersion version) {
+        builder.eTag(version.getETag());
+        if (version.getLastModified() != null) {
+            builder.lastModified(version.getLastModifiedMillis());
+        }
+
+        return builder;
+    }
+}
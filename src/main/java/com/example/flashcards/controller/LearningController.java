@@ -1,25 +1,52 @@
 package com.example.flashcards.controller;
 
 import com.example.flashcards.api.LearningApi;
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.learning.DailyStatsDto;
+import com.example.flashcards.dto.learning.DueCountDto;
 import com.example.flashcards.dto.learning.QuestionAnswerDto;
 import com.example.flashcards.dto.learning.QuestionDto;
 import com.example.flashcards.service.LearningService;
+import com.example.flashcards.service.QuestionHistoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @Slf4j
 @RequiredArgsConstructor
 @RestController
 public class LearningController implements LearningApi {
     private final LearningService learningService;
+    private final QuestionHistoryService historyService;
 
     public QuestionDto createQuestion(long setId, QuestionDto questionDto, Authentication auth) {
         return learningService.createQuestion(setId, questionDto, auth);
     }
 
-    public QuestionDto submitAnswer(long questionId, QuestionAnswerDto answer, Authentication auth) {
-        return learningService.submitQuestionAnswer(questionId, answer, auth);
+    public List<QuestionDto> createQuiz(long setId, int size, QuestionDto questionDto, Authentication auth) {
+        return learningService.createQuiz(setId, size, questionDto, auth);
+    }
+
+    public QuestionDto submitAnswer(long questionId, boolean next, QuestionAnswerDto answer, Authentication auth) {
+        return learningService.submitQuestionAnswer(questionId, answer, next, auth);
+    }
+
+    public List<QuestionDto> submitAnswers(List<QuestionAnswerDto> answers, Authentication auth) {
+        return learningService.submitQuestionAnswers(answers, auth);
+    }
+
+    public List<CardDto> getDueCards(long setId, int limit, Authentication auth) {
+        return learningService.getDueCards(setId, limit, auth);
+    }
+
+    public DueCountDto countDueCards(long setId, Authentication auth) {
+        return learningService.countDueCards(setId, auth);
+    }
+
+    public List<DailyStatsDto> getDailyStats(int days, Authentication auth) {
+        return historyService.getDailyStats(days, auth);
     }
 }
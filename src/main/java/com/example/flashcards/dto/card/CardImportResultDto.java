@@ -0,0 +1,24 @@
+package com.example.flashcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportResultDto {
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Imported", description = "Number of imported cards", example = "4980")
+    private long imported;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Duplicates",
+            description = "Number of rows skipped because the set already has a card with the same front", example = "15")
+    private long duplicates;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Invalid",
+            description = "Number of rows skipped because they have no front or a side is too long", example = "5")
+    private long invalid;
+}
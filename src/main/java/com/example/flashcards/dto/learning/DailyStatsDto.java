@@ -0,0 +1,24 @@
+package com.example.flashcards.dto.learning;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class DailyStatsDto {
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Day", example = "2022-10-18")
+    private LocalDate day;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Answered", description = "Number of answered questions", example = "40")
+    private long answered;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Correct", description = "Number of correctly answered questions", example = "31")
+    private long correct;
+}
@@ -0,0 +1,19 @@
+package com.example.flashcards.dto.learning;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class DueCountDto {
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Due", description = "Number of reviewed cards that are due", example = "12")
+    private long due;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Unseen", description = "Number of cards that were never reviewed", example = "30")
+    private long unseen;
+}
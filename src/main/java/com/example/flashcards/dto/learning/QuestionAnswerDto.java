@@ -11,6 +11,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Data
 public class QuestionAnswerDto {
+    @Schema(accessMode = Schema.AccessMode.WRITE_ONLY, title = "Id of the question", description = "Required when answers are submitted in batch", example = "4")
+    private Long questionId;
+
     @Schema(accessMode = Schema.AccessMode.WRITE_ONLY, title = "Answer for the question", example = "Hello")
     private String answer;
 }
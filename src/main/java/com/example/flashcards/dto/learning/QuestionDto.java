@@ -1,6 +1,7 @@
 package com.example.flashcards.dto.learning;
 
 import com.example.flashcards.model.learning.CardSide;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
@@ -35,4 +36,9 @@ public class QuestionDto {
 
     @JsonProperty(access = JsonProperty.Access.READ_WRITE)
     private CardSide cardSide = CardSide.BACK;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Next", description = "Next question of the set. Present only if it was requested")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QuestionDto next;
 }
@@ -0,0 +1,21 @@
+package com.example.flashcards.dto.pagination;
+
+/**
+ * How the total number of elements is computed for a page
+ */
+public enum CountMode {
+    /**
+     * Count query on every request
+     */
+    EXACT,
+
+    /**
+     * Count that is cached for a short time and may lag behind
+     */
+    APPROXIMATE,
+
+    /**
+     * No count. Only whether there is a next page is known
+     */
+    NONE
+}
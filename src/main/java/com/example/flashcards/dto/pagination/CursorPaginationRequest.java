@@ -0,0 +1,19 @@
+package com.example.flashcards.dto.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPaginationRequest {
+    /**
+     * Cursor returned with the previous page. Empty for the first page
+     */
+    private String after;
+
+    private int size;
+}
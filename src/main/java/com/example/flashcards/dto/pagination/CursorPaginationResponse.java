@@ -0,0 +1,25 @@
+package com.example.flashcards.dto.pagination;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CursorPaginationResponse<T> {
+    private List<T> content;
+
+    private int size;
+    private boolean last;
+
+    /**
+     * Cursor of the next page. Null if this page is the last one
+     */
+    private String next;
+
+    public CursorPaginationResponse(List<T> content, String next) {
+        this.content = content;
+        this.size = content.size();
+        this.last = next == null;
+        this.next = next;
+    }
+}
@@ -13,4 +13,11 @@ public class PaginationRequest {
     private int page;
 
     private int size;
+
+    @Builder.Default
+    private CountMode countMode = CountMode.EXACT;
+
+    public PaginationRequest(int page, int size) {
+        this(page, size, CountMode.EXACT);
+    }
 }
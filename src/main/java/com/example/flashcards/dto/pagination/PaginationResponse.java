@@ -1,7 +1,9 @@
 package com.example.flashcards.dto.pagination;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -9,8 +11,11 @@ import java.util.List;
 public class PaginationResponse<T> {
     private List<T> content;
 
-    private long totalElements;
-    private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
+    private boolean approximate;
     private boolean last;
 
     private int page;
@@ -24,4 +29,24 @@ public class PaginationResponse<T> {
         this.page = paginationRequest.getPage();
         this.size = page.getSize();
     }
+
+    /**
+     * Response for a slice that was fetched without a count query
+     *
+     * @param slice             fetched slice
+     * @param paginationRequest pagination request
+     * @param totalElements     approximate number of elements or null if it is unknown
+     */
+    public PaginationResponse(Slice<T> slice, PaginationRequest paginationRequest, Long totalElements) {
+        this.content = slice.getContent();
+        this.last = slice.isLast();
+        this.page = paginationRequest.getPage();
+        this.size = slice.getSize();
+
+        if (totalElements != null) {
+            this.totalElements = totalElements;
+            this.totalPages = slice.getSize() == 0 ? 1 : (int) Math.ceil((double) totalElements / slice.getSize());
+            this.approximate = true;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.example.flashcards.dto.set;
 import com.example.flashcards.dto.user.UserDto;
 import com.example.flashcards.dto.card.CardDto;
 import com.example.flashcards.model.SetType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIncludeProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -48,4 +49,10 @@ public class CardSetDto {
 
     @Schema(title = "List of flash cards")
     private Set<CardDto> cards = new HashSet<>();
+
+    /**
+     * Revision of the set the DTO was mapped from. Sent as the ETag instead of in the body
+     */
+    @JsonIgnore
+    private long revision;
 }
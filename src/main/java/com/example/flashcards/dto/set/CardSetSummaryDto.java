@@ -0,0 +1,54 @@
+package com.example.flashcards.dto.set;
+
+import com.example.flashcards.model.SetType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Set without its cards. Built directly by the listing queries
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardSetSummaryDto {
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Id of the set", example = "4")
+    private long id;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Name of the set", example = "Japanese")
+    private String name;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Description of the set", example = "Japanese vocabulary")
+    private String description;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Set visibility", example = "PUBLIC", enumAsRef = true)
+    private SetType type;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Id of the author", example = "2")
+    private long authorId;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Nickname of the author", example = "j@d0e")
+    private String authorNickname;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Number of cards in the set", example = "120")
+    private long cardCount;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime createdAt;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Constructor used by the JPQL constructor expressions. The type of the card count depends on the dialect
+     */
+    public CardSetSummaryDto(Long id, String name, String description, SetType type, Long authorId, String authorNickname,
+                             Number cardCount, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id.longValue(), name, description, type, authorId.longValue(), authorNickname, cardCount.longValue(), createdAt, updatedAt);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.flashcards.dto.set;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Public set suggested for a typed name prefix
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SetSuggestionDto {
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Id of the set", example = "4")
+    private long id;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, title = "Name of the set", example = "Japanese")
+    private String name;
+}
@@ -16,15 +16,20 @@ import java.util.Objects;
 @Entity
 @Table(name = "flash_card", uniqueConstraints = {
         @UniqueConstraint(name = "uq_front_and_set", columnNames = {"front", "set_id"})
+}, indexes = {
+        @Index(name = "idx_card_set_id", columnList = "set_id, id"),
+        @Index(name = "idx_card_set_created_at", columnList = "set_id, created_at, id")
 })
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flash_card_id")
+    @SequenceGenerator(name = "flash_card_id", sequenceName = "flash_card_seq", allocationSize = 50)
     private Long id;
 
     private String front;
     private String back;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -32,22 +37,23 @@ public class Card {
     private Difficulty difficulty;
 
     @ToString.Exclude
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private CardSet set;
 
+    @ToString.Exclude
     @OneToMany(mappedBy = "card", cascade = CascadeType.ALL)
     private List<Question> question;
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Card)) return false;
         Card card = (Card) o;
-        return Objects.equals(front, card.front) && Objects.equals(set, card.set);
+        return Objects.equals(getFront(), card.getFront()) && Objects.equals(getSet(), card.getSet());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(front, set);
+        return Objects.hash(getFront(), getSet());
     }
 }
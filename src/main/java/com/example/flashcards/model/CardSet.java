@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -16,25 +18,43 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "flash_card_set", uniqueConstraints = {
+@Table(name = "flash_card_set", indexes = {
+        @Index(name = "idx_card_set_type_created_at", columnList = "type, created_at, id"),
+        @Index(name = "idx_card_set_author_created_at", columnList = "author_id, created_at, id")
+}, uniqueConstraints = {
         @UniqueConstraint(name = "uq_card_set_and_author", columnNames = {"name", "author_id"})
 })
 public class CardSet {
+    public static final int NAME_LENGTH = 255;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flash_card_set_id")
+    @SequenceGenerator(name = "flash_card_set_id", sequenceName = "flash_card_set_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     private User author;
 
+    @Column(length = NAME_LENGTH)
     private String name;
     private String description;
 
     private SetType type = SetType.PUBLIC;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    /**
+     * Incremented on every change of the set or its cards. Only written by
+     * {@code CardSetRepository.incrementRevision}, so concurrent changes can't overwrite each other's increments
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long revision;
+
+    @ToString.Exclude
     @OneToMany(mappedBy = "set", cascade = CascadeType.ALL)
     private Set<Card> cards = new HashSet<>();
 
@@ -45,13 +65,13 @@ public class CardSet {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof CardSet)) return false;
         CardSet cardSet = (CardSet) o;
-        return Objects.equals(id, cardSet.id) && Objects.equals(author, cardSet.author) && Objects.equals(name, cardSet.name);
+        return Objects.equals(getId(), cardSet.getId()) && Objects.equals(getAuthor(), cardSet.getAuthor()) && Objects.equals(getName(), cardSet.getName());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(author, name);
+        return Objects.hash(getAuthor(), getName());
     }
 }
@@ -25,7 +25,8 @@ import java.util.Objects;
 })
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_id")
+    @SequenceGenerator(name = "person_id", sequenceName = "person_seq", allocationSize = 50)
     private long id;
 
     @Column(nullable = false)
@@ -43,14 +44,14 @@ public class User implements UserDetails {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof User)) return false;
         User user = (User) o;
-        return Objects.equals(email, user.email);
+        return Objects.equals(getEmail(), user.getEmail());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(email);
+        return Objects.hash(getEmail());
     }
 
     @Override
@@ -0,0 +1,32 @@
+package com.example.flashcards.model.learning;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Packs card ids into a single comma separated column
+ */
+@Converter
+public class CardIdsConverter implements AttributeConverter<long[], String> {
+    private static final String SEPARATOR = ",";
+
+    @Override
+    public String convertToDatabaseColumn(long[] ids) {
+        if (ids == null) {
+            return null;
+        }
+
+        return Arrays.stream(ids).mapToObj(Long::toString).collect(Collectors.joining(SEPARATOR));
+    }
+
+    @Override
+    public long[] convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return new long[0];
+        }
+
+        return Arrays.stream(column.split(SEPARATOR)).mapToLong(Long::parseLong).toArray();
+    }
+}
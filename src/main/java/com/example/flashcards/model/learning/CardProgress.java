@@ -0,0 +1,53 @@
+package com.example.flashcards.model.learning;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Study progress of a card for a single user: difficulty used for card selection
+ * and spaced repetition state
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "card_progress", indexes = {
+        @Index(name = "idx_card_progress_due", columnList = "user_id, set_id, due_at"),
+        @Index(name = "idx_card_progress_difficulty", columnList = "user_id, set_id, difficulty")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uq_card_progress_user_and_card", columnNames = {"user_id", "card_id"})
+})
+public class CardProgress {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_progress_id")
+    @SequenceGenerator(name = "card_progress_id", sequenceName = "card_progress_seq", allocationSize = 50)
+    private long id;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Column(name = "set_id", nullable = false)
+    private long setId;
+
+    @Column(name = "card_id", nullable = false)
+    private long cardId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "difficulty", nullable = false)
+    private Difficulty difficulty;
+
+    private double easeFactor;
+    private int intervalDays;
+    private int repetitions;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    private LocalDateTime reviewedAt;
+}
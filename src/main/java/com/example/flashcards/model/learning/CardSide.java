@@ -1,5 +1,9 @@
 package com.example.flashcards.model.learning;
 
 public enum CardSide {
-    FRONT, BACK
+    FRONT, BACK;
+
+    public CardSide opposite() {
+        return this == FRONT ? BACK : FRONT;
+    }
 }
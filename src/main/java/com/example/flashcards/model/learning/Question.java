@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -16,29 +17,55 @@ import java.util.List;
 @NoArgsConstructor
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_question_user_answered_at", columnList = "user_id, answered_at"),
+        @Index(name = "idx_question_answered_at", columnList = "answered_at"),
+        @Index(name = "idx_question_created_at", columnList = "created_at")
+})
 public class Question {
+    public static final int OPTION_IDS_LENGTH = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_id")
+    @SequenceGenerator(name = "question_id", sequenceName = "question_seq", allocationSize = 50)
     private long id;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     private Card card;
 
-    @ManyToOne
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
     private CardSide cardSide;
 
+    /**
+     * Ids of the cards whose opposite side are the answer options
+     */
+    @Convert(converter = CardIdsConverter.class)
+    @Column(name = "option_ids", length = OPTION_IDS_LENGTH)
+    @Builder.Default
+    private long[] optionIds = new long[0];
+
+    /**
+     * Question and correct answer as they were asked, the answer is verified against them even if the card was edited since
+     */
     private String question;
     private String correctAnswer;
 
-    @ElementCollection
-    private List<String> options;
-
     private String answer;
     private boolean correct;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    @Column(name = "answered_at")
     private LocalDateTime answeredAt;
 
+    // Option texts are resolved from the option cards and are not stored with the question
+    @Transient
+    private List<String> options;
+
     public boolean isClosed() {
         return answer != null;
     }
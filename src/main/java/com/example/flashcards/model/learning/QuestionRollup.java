@@ -0,0 +1,32 @@
+package com.example.flashcards.model.learning;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Progress of the question rollup, a single row that is locked while a day is rolled up.
+ * Days up to the last rolled up one are never rolled up again, so the statistics are not counted twice
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "question_rollup")
+public class QuestionRollup {
+    public static final long ID = 1;
+
+    @Id
+    private long id;
+
+    @Column(name = "last_day")
+    private LocalDate lastDay;
+}
@@ -0,0 +1,42 @@
+package com.example.flashcards.model.learning;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Daily rollup of the answered questions of a user about a single card.
+ * Replaces the raw questions once they are older than the retention period
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "question_stats", indexes = {
+        @Index(name = "idx_question_stats_user_day", columnList = "user_id, answer_day")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uq_question_stats_user_card_day", columnNames = {"user_id", "card_id", "answer_day"})
+})
+public class QuestionStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_stats_id")
+    @SequenceGenerator(name = "question_stats_id", sequenceName = "question_stats_seq", allocationSize = 50)
+    private long id;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Column(name = "card_id", nullable = false)
+    private long cardId;
+
+    @Column(name = "answer_day", nullable = false)
+    private LocalDate day;
+
+    private long answered;
+    private long correct;
+}
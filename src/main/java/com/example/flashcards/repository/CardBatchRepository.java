@@ -0,0 +1,104 @@
+package com.example.flashcards.repository;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.service.cards.CardRow;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk writes of cards that don't load the set's cards. Imported cards are inserted in chunks, every chunk
+ * is flushed as JDBC batches of hibernate.jdbc.batch_size and then detached, so the persistence context
+ * doesn't grow with the import. Texts of copied cards never leave the database
+ */
+@Repository
+public class CardBatchRepository {
+    private static final String FIND_CARD_IDS = "select c.id from Card c where c.set.id = :setId order by c.id";
+    private static final String COPY_CARD = "insert into flash_card (id, front, back, created_at, set_id) " +
+            "select ?, front, back, ?, ? from flash_card where id = ?";
+
+    private static final int COPY_BATCH_SIZE = 50;
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public CardBatchRepository(EntityManager entityManager, @Value("${cards.import.batch-size:1000}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void insertAll(long setId, List<CardRow> rows, LocalDateTime createdAt) {
+        CardSet set = entityManager.getReference(CardSet.class, setId);
+
+        List<Card> cards = new ArrayList<>(rows.size());
+        for (CardRow row : rows) {
+            Card card = Card.builder()
+                    .front(row.getFront())
+                    .back(row.getBack())
+                    .createdAt(createdAt)
+                    .set(set)
+                    .build();
+            entityManager.persist(card);
+            cards.add(card);
+        }
+
+        // Only the inserted cards are detached, entities the caller loaded stay managed
+        entityManager.flush();
+        cards.forEach(entityManager::detach);
+    }
+
+    /**
+     * Copy all cards of one set to another with batched INSERT ... SELECT statements, one per card.
+     * Ids of the copies come from the card id generator, so its pooled optimizer hands them out
+     * from the block it holds and only calls the sequence once per block. Copies get no progress,
+     * so they're unseen by everyone
+     *
+     * @param fromSetId id of the set to copy cards from
+     * @param toSetId   id of the set to copy cards to. The set must already be flushed
+     * @param createdAt creation time of the copies
+     * @return number of copied cards
+     */
+    public int copyAll(long fromSetId, long toSetId, LocalDateTime createdAt) {
+        List<Long> cardIds = entityManager.createQuery(FIND_CARD_IDS, Long.class)
+                .setParameter("setId", fromSetId)
+                .getResultList();
+        if (cardIds.isEmpty()) {
+            return 0;
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel().entityPersister(Card.class).getIdentifierGenerator();
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(COPY_CARD)) {
+                for (int i = 0; i < cardIds.size(); i++) {
+                    statement.setLong(1, (Long) generator.generate(session, null));
+                    statement.setTimestamp(2, Timestamp.valueOf(createdAt));
+                    statement.setLong(3, toSetId);
+                    statement.setLong(4, cardIds.get(i));
+                    statement.addBatch();
+
+                    if ((i + 1) % COPY_BATCH_SIZE == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+        });
+
+        return cardIds.size();
+    }
+}
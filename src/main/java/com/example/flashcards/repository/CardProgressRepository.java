@@ -0,0 +1,44 @@
+package com.example.flashcards.repository;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.learning.CardProgress;
+import com.example.flashcards.repository.projection.DifficultyCount;
+import com.example.flashcards.repository.projection.SetLearnerCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CardProgressRepository extends JpaRepository<CardProgress, Long> {
+    List<CardProgress> findByUserIdAndCardIdIn(long userId, Collection<Long> cardIds);
+
+    @Query("select p.difficulty as difficulty, count(p) as count from CardProgress p where p.userId = :userId and p.setId = :setId group by p.difficulty")
+    List<DifficultyCount> countByUserIdAndSetIdGroupByDifficulty(@Param("userId") long userId, @Param("setId") long setId);
+
+    @Query("select c from CardProgress p, Card c where c.id = p.cardId and p.userId = :userId and p.setId = :setId and p.dueAt <= :now order by p.dueAt")
+    List<Card> findDueCards(@Param("userId") long userId, @Param("setId") long setId, @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByUserIdAndSetIdAndDueAtLessThanEqual(long userId, long setId, LocalDateTime now);
+
+    long countByUserIdAndSetId(long userId, long setId);
+
+    @Query("select p.setId as setId, count(distinct p.userId) as learners from CardProgress p, CardSet s " +
+            "where s.id = p.setId and s.type = :type group by p.setId")
+    List<SetLearnerCount> countLearnersBySetType(@Param("type") SetType type);
+
+    @Modifying
+    @Query("delete from CardProgress p where p.cardId = :cardId")
+    void deleteByCardId(@Param("cardId") long cardId);
+
+    @Modifying
+    @Query("delete from CardProgress p where p.setId = :setId")
+    void deleteBySetId(@Param("setId") long setId);
+}
@@ -1,13 +1,89 @@
 package com.example.flashcards.repository;
 
+import com.example.flashcards.dto.card.CardDto;
 import com.example.flashcards.model.Card;
-import com.example.flashcards.model.CardSet;
-import org.springframework.data.domain.Page;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.projection.CardTextOfSet;
+import com.example.flashcards.repository.projection.IdRange;
+import com.example.flashcards.repository.projection.SetRevision;
+import com.example.flashcards.repository.projection.StudyCard;
+import com.example.flashcards.service.cards.CardRow;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
-    Page<Card> findBySet(CardSet set, Pageable pageable);
+    String CARD_DTO = "select new com.example.flashcards.dto.card.CardDto(c.id, c.front, c.back, c.createdAt, c.updatedAt) from Card c";
+    String AFTER_CURSOR = " and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id))";
+    String OLDEST_FIRST = " order by c.createdAt, c.id";
+
+    @EntityGraph(attributePaths = {"set", "set.author"})
+    Optional<Card> findWithSetById(long id);
+
+    @Query("select s.revision as revision, s.type as type, s.author.id as authorId, " +
+            "coalesce(c.updatedAt, c.createdAt) as lastModified from Card c join c.set s where c.id = :id and s.id = :setId")
+    Optional<SetRevision> findRevisionByIdAndSetId(@Param("id") long id, @Param("setId") long setId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.flashcards.service.cards.CardRow(c.front, c.back) from Card c where c.set.id = :setId order by c.id")
+    Stream<CardRow> streamRowsBySetId(@Param("setId") long setId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.set.id as setId, c.front as front, c.back as back from Card c where c.set.type = :type")
+    Stream<CardTextOfSet> streamTextsBySetType(@Param("type") SetType type);
+
+    @Query(CARD_DTO + " where c.set.id = :setId" + AFTER_CURSOR + OLDEST_FIRST)
+    List<CardDto> findBySetIdAfter(@Param("setId") long setId,
+                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
+
+    @Query(CARD_DTO + " left join CardProgress p on p.cardId = c.id and p.userId = :userId " +
+            "where c.set.id = :setId and (p.difficulty = :difficulty or (:unseen = true and p.id is null))" + AFTER_CURSOR + OLDEST_FIRST)
+    List<CardDto> findBySetIdAndDifficultyAfter(@Param("setId") long setId, @Param("userId") long userId,
+                                                @Param("difficulty") Difficulty difficulty, @Param("unseen") boolean unseen,
+                                                @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
+
+    long countBySetId(long setId);
+
+    boolean existsBySetIdAndFront(long setId, String front);
+
+    boolean existsBySetIdAndFrontAndIdNot(long setId, String front, long id);
+
+    @Query("select c.front from Card c where c.set.id = :setId")
+    Set<String> findFrontsBySetId(@Param("setId") long setId);
+
+    @Query("select c from Card c where c.set.id = :setId and not exists (select p.id from CardProgress p where p.userId = :userId and p.cardId = c.id) order by c.id")
+    List<Card> findUnseenBySetId(@Param("setId") long setId, @Param("userId") long userId, Pageable pageable);
+
+    @Query("select c.id as id, c.front as front, c.back as back, p.difficulty as difficulty " +
+            "from Card c left join CardProgress p on p.cardId = c.id and p.userId = :userId where c.set.id = :setId")
+    List<StudyCard> findStudyCardsBySetId(@Param("setId") long setId, @Param("userId") long userId);
+
+    @Query("select min(c.id) as min, max(c.id) as max from Card c where c.set.id = :setId")
+    IdRange findIdRangeBySetId(@Param("setId") long setId);
+
+    @Query("select c from Card c left join CardProgress p on p.cardId = c.id and p.userId = :userId " +
+            "where c.set.id = :setId and c.id >= :from and (p.difficulty = :difficulty or (:unseen = true and p.id is null)) order by c.id")
+    List<Card> findBySetIdAndDifficultyFrom(@Param("setId") long setId, @Param("userId") long userId,
+                                            @Param("difficulty") Difficulty difficulty, @Param("unseen") boolean unseen,
+                                            @Param("from") long from, Pageable pageable);
+
+    @Query("select c from Card c where c.set.id = :setId and c.id >= :from and c.id not in :excluded order by c.id")
+    List<Card> findBySetIdAndIdNotInFrom(@Param("setId") long setId, @Param("excluded") Collection<Long> excluded,
+                                         @Param("from") long from, Pageable pageable);
 }
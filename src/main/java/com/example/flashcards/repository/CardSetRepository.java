@@ -1,28 +1,148 @@
 package com.example.flashcards.repository;
 
+import com.example.flashcards.dto.set.CardSetSummaryDto;
 import com.example.flashcards.model.CardSet;
 import com.example.flashcards.model.SetType;
 import com.example.flashcards.model.User;
+import com.example.flashcards.repository.projection.SetRevision;
+import com.example.flashcards.repository.projection.SetText;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Listing queries return {@link CardSetSummaryDto} built by a constructor expression,
+ * so a page of sets is a single statement that doesn't load the cards
+ */
 @Repository
 public interface CardSetRepository extends JpaRepository<CardSet, Long> {
+    String SUMMARY = "select new com.example.flashcards.dto.set.CardSetSummaryDto(s.id, s.name, s.description, s.type, " +
+            "a.id, a.nickname, size(s.cards), s.createdAt, s.updatedAt) from CardSet s join s.author a";
+    String COUNT = "select count(s) from CardSet s";
+
+    String BY_TYPE = " where s.type = :type";
+    String BY_NAME_AND_TYPE = " where s.type = :type and lower(s.name) like lower(concat('%', :name, '%'))";
+    String BY_AUTHOR = " where s.author = :author";
+    String BY_AUTHOR_AND_TYPE = " where s.author = :author and s.type = :type";
+    String BY_AUTHOR_AND_NAME = " where s.author = :author and lower(s.name) like lower(concat('%', :name, '%'))";
+    String BY_AUTHOR_AND_NAME_AND_TYPE = BY_AUTHOR_AND_NAME + " and s.type = :type";
+
+    String AFTER_CURSOR = " and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id))";
+    String NEWEST_FIRST = " order by s.createdAt desc, s.id desc";
+
     Optional<CardSet> findByNameAndAuthor(String name, User author);
 
-    Page<CardSet> findByAuthor(User author, Pageable pageable);
+    @EntityGraph(attributePaths = {"author"})
+    Optional<CardSet> findWithAuthorById(long id);
+
+    @EntityGraph(attributePaths = {"author", "cards"})
+    Optional<CardSet> findWithAuthorAndCardsById(long id);
+
+    @Query(value = SUMMARY + BY_AUTHOR, countQuery = COUNT + BY_AUTHOR)
+    Page<CardSetSummaryDto> findByAuthor(@Param("author") User author, Pageable pageable);
+
+    @Query(value = SUMMARY + BY_AUTHOR_AND_TYPE, countQuery = COUNT + BY_AUTHOR_AND_TYPE)
+    Page<CardSetSummaryDto> findByAuthorAndType(@Param("author") User author, @Param("type") SetType type, Pageable pageable);
+
+    @Query(value = SUMMARY + BY_NAME_AND_TYPE, countQuery = COUNT + BY_NAME_AND_TYPE)
+    Page<CardSetSummaryDto> findByNameContainingIgnoreCaseAndType(@Param("name") String name, @Param("type") SetType type, Pageable pageable);
+
+    @Query(value = SUMMARY + BY_AUTHOR_AND_NAME, countQuery = COUNT + BY_AUTHOR_AND_NAME)
+    Page<CardSetSummaryDto> findByAuthorAndNameContainingIgnoreCase(@Param("author") User author, @Param("name") String name, Pageable pageable);
+
+    @Query(value = SUMMARY + BY_AUTHOR_AND_NAME_AND_TYPE, countQuery = COUNT + BY_AUTHOR_AND_NAME_AND_TYPE)
+    Page<CardSetSummaryDto> findByAuthorAndNameContainingIgnoreCaseAndType(@Param("author") User author, @Param("name") String name,
+                                                                          @Param("type") SetType type, Pageable pageable);
+
+    @Query(value = SUMMARY + BY_TYPE, countQuery = COUNT + BY_TYPE)
+    Page<CardSetSummaryDto> findByType(@Param("type") SetType type, Pageable pageable);
+
+    @Query(SUMMARY + BY_AUTHOR)
+    Slice<CardSetSummaryDto> findSliceByAuthor(@Param("author") User author, Pageable pageable);
+
+    @Query(SUMMARY + BY_AUTHOR_AND_TYPE)
+    Slice<CardSetSummaryDto> findSliceByAuthorAndType(@Param("author") User author, @Param("type") SetType type, Pageable pageable);
+
+    @Query(SUMMARY + BY_NAME_AND_TYPE)
+    Slice<CardSetSummaryDto> findSliceByNameContainingIgnoreCaseAndType(@Param("name") String name, @Param("type") SetType type, Pageable pageable);
+
+    @Query(SUMMARY + BY_AUTHOR_AND_NAME)
+    Slice<CardSetSummaryDto> findSliceByAuthorAndNameContainingIgnoreCase(@Param("author") User author, @Param("name") String name, Pageable pageable);
+
+    @Query(SUMMARY + BY_AUTHOR_AND_NAME_AND_TYPE)
+    Slice<CardSetSummaryDto> findSliceByAuthorAndNameContainingIgnoreCaseAndType(@Param("author") User author, @Param("name") String name,
+                                                                                @Param("type") SetType type, Pageable pageable);
+
+    @Query(SUMMARY + BY_TYPE)
+    Slice<CardSetSummaryDto> findSliceByType(@Param("type") SetType type, Pageable pageable);
+
+    @Query(SUMMARY + " where s.id in :ids")
+    List<CardSetSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select s.revision as revision, s.type as type, s.author.id as authorId, " +
+            "coalesce(s.updatedAt, s.createdAt) as lastModified from CardSet s where s.id = :id")
+    Optional<SetRevision> findRevisionById(@Param("id") long id);
+
+    /**
+     * Mark a change of the set or its cards. The increment runs in the database, so concurrent changes are all counted
+     */
+    @Modifying
+    @Query("update CardSet s set s.revision = s.revision + 1, s.updatedAt = :now where s.id = :id")
+    void incrementRevision(@Param("id") long id, @Param("now") LocalDateTime now);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select s.id as id, s.name as name, s.description as description from CardSet s where s.type = :type")
+    Stream<SetText> streamTextsByType(@Param("type") SetType type);
+
+    long countByAuthor(User author);
+
+    long countByAuthorAndType(User author, SetType type);
+
+    long countByNameContainingIgnoreCaseAndType(String name, SetType type);
+
+    long countByAuthorAndNameContainingIgnoreCase(User author, String name);
+
+    long countByAuthorAndNameContainingIgnoreCaseAndType(User author, String name, SetType type);
+
+    long countByType(SetType type);
+
+    @Query(SUMMARY + BY_TYPE + AFTER_CURSOR + NEWEST_FIRST)
+    List<CardSetSummaryDto> findByTypeAfter(@Param("type") SetType type,
+                                            @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 
-    Page<CardSet> findByAuthorAndType(User author, SetType type, Pageable pageable);
+    @Query(SUMMARY + BY_NAME_AND_TYPE + AFTER_CURSOR + NEWEST_FIRST)
+    List<CardSetSummaryDto> findByNameAndTypeAfter(@Param("name") String name, @Param("type") SetType type,
+                                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 
-    Page<CardSet> findByNameContainingIgnoreCaseAndType(String name, SetType type, Pageable pageable);
+    @Query(SUMMARY + BY_AUTHOR + AFTER_CURSOR + NEWEST_FIRST)
+    List<CardSetSummaryDto> findByAuthorAfter(@Param("author") User author,
+                                              @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 
-    Page<CardSet> findByAuthorAndNameContainingIgnoreCase(User author, String name, Pageable pageable);
+    @Query(SUMMARY + BY_AUTHOR_AND_TYPE + AFTER_CURSOR + NEWEST_FIRST)
+    List<CardSetSummaryDto> findByAuthorAndTypeAfter(@Param("author") User author, @Param("type") SetType type,
+                                                     @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 
-    Page<CardSet> findByAuthorAndNameContainingIgnoreCaseAndType(User author, String name, SetType type, Pageable pageable);
+    @Query(SUMMARY + BY_AUTHOR_AND_NAME + AFTER_CURSOR + NEWEST_FIRST)
+    List<CardSetSummaryDto> findByAuthorAndNameAfter(@Param("author") User author, @Param("name") String name,
+                                                     @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 
-    Page<CardSet> findByType(SetType type, Pageable pageable);
+    @Query(SUMMARY + BY_AUTHOR_AND_NAME_AND_TYPE + AFTER_CURSOR + NEWEST_FIRST)
+    List<CardSetSummaryDto> findByAuthorAndNameAndTypeAfter(@Param("author") User author, @Param("name") String name, @Param("type") SetType type,
+                                                            @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 }
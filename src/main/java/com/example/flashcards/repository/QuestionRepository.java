@@ -1,9 +1,46 @@
 package com.example.flashcards.repository;
 
 import com.example.flashcards.model.learning.Question;
+import com.example.flashcards.repository.projection.AnswerCount;
+import com.example.flashcards.repository.projection.DailyAnswerCount;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
+    @EntityGraph(attributePaths = {"user", "card", "card.set", "card.set.author"})
+    Optional<Question> findWithCardById(long id);
+
+    @EntityGraph(attributePaths = {"user", "card", "card.set", "card.set.author"})
+    List<Question> findByIdIn(Collection<Long> ids);
+
+    @Query("select min(q.answeredAt) from Question q where q.answeredAt < :before")
+    LocalDateTime findOldestAnswerBefore(@Param("before") LocalDateTime before);
+
+    @Query("select q.user.id as userId, q.card.id as cardId, count(q) as answered, " +
+            "sum(case when q.correct = true then 1 else 0 end) as correct from Question q " +
+            "where q.answeredAt >= :from and q.answeredAt < :to group by q.user.id, q.card.id")
+    List<AnswerCount> countAnswers(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select cast(q.answeredAt as LocalDate) as day, count(q) as answered, " +
+            "sum(case when q.correct = true then 1 else 0 end) as correct from Question q " +
+            "where q.user.id = :userId and q.answeredAt >= :from group by cast(q.answeredAt as LocalDate)")
+    List<DailyAnswerCount> countDailyAnswers(@Param("userId") long userId, @Param("from") LocalDateTime from);
+
+    @Modifying
+    @Query("delete from Question q where q.answeredAt >= :from and q.answeredAt < :to")
+    int deleteAnswered(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("delete from Question q where q.answeredAt is null and q.createdAt < :before")
+    int deleteUnansweredBefore(@Param("before") LocalDateTime before);
 }
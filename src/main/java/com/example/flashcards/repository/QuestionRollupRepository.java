@@ -0,0 +1,15 @@
+package com.example.flashcards.repository;
+
+import com.example.flashcards.model.learning.QuestionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface QuestionRollupRepository extends JpaRepository<QuestionRollup, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<QuestionRollup> findForUpdateById(long id);
+}
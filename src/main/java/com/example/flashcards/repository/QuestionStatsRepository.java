@@ -0,0 +1,21 @@
+package com.example.flashcards.repository;
+
+import com.example.flashcards.model.learning.QuestionStats;
+import com.example.flashcards.repository.projection.DailyAnswerCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuestionStatsRepository extends JpaRepository<QuestionStats, Long> {
+    List<QuestionStats> findByDayAndUserIdIn(LocalDate day, Collection<Long> userIds);
+
+    @Query("select s.day as day, sum(s.answered) as answered, sum(s.correct) as correct from QuestionStats s " +
+            "where s.userId = :userId and s.day >= :from group by s.day")
+    List<DailyAnswerCount> countDailyAnswers(@Param("userId") long userId, @Param("from") LocalDate from);
+}
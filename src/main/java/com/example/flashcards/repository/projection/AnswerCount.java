@@ -0,0 +1,14 @@
+package com.example.flashcards.repository.projection;
+
+/**
+ * Number of answered and correctly answered questions of a user about a card
+ */
+public interface AnswerCount {
+    long getUserId();
+
+    long getCardId();
+
+    long getAnswered();
+
+    long getCorrect();
+}
@@ -0,0 +1,12 @@
+package com.example.flashcards.repository.projection;
+
+/**
+ * Searchable texts of a card with the id of its set
+ */
+public interface CardTextOfSet {
+    long getSetId();
+
+    String getFront();
+
+    String getBack();
+}
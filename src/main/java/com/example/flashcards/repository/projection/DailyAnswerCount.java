@@ -0,0 +1,14 @@
+package com.example.flashcards.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Number of answered and correctly answered questions per day
+ */
+public interface DailyAnswerCount {
+    LocalDate getDay();
+
+    long getAnswered();
+
+    long getCorrect();
+}
@@ -0,0 +1,12 @@
+package com.example.flashcards.repository.projection;
+
+import com.example.flashcards.model.learning.Difficulty;
+
+/**
+ * Number of cards with the given difficulty
+ */
+public interface DifficultyCount {
+    Difficulty getDifficulty();
+
+    long getCount();
+}
@@ -0,0 +1,10 @@
+package com.example.flashcards.repository.projection;
+
+/**
+ * Smallest and largest id of the cards of a set. Both are null when the set has no cards
+ */
+public interface IdRange {
+    Long getMin();
+
+    Long getMax();
+}
@@ -0,0 +1,10 @@
+package com.example.flashcards.repository.projection;
+
+/**
+ * Number of users learning the set
+ */
+public interface SetLearnerCount {
+    long getSetId();
+
+    long getLearners();
+}
@@ -0,0 +1,18 @@
+package com.example.flashcards.repository.projection;
+
+import com.example.flashcards.model.SetType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Revision of a set with what is needed to check access to it, and the modification time of the set or one of its cards
+ */
+public interface SetRevision {
+    long getRevision();
+
+    SetType getType();
+
+    long getAuthorId();
+
+    LocalDateTime getLastModified();
+}
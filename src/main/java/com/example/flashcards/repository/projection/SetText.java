@@ -0,0 +1,12 @@
+package com.example.flashcards.repository.projection;
+
+/**
+ * Searchable texts of a set
+ */
+public interface SetText {
+    long getId();
+
+    String getName();
+
+    String getDescription();
+}
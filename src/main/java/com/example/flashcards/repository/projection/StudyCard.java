@@ -0,0 +1,16 @@
+package com.example.flashcards.repository.projection;
+
+import com.example.flashcards.model.learning.Difficulty;
+
+/**
+ * Card with its difficulty for a user. Difficulty is null if the user never studied the card
+ */
+public interface StudyCard {
+    long getId();
+
+    String getFront();
+
+    String getBack();
+
+    Difficulty getDifficulty();
+}
@@ -0,0 +1,21 @@
+package com.example.flashcards.service;
+
+import com.example.flashcards.service.cards.CardExport;
+import com.example.flashcards.service.cards.CardListFormat;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Export of the cards of a set
+ */
+public interface CardExportService {
+    /**
+     * Prepare an export of the cards of the set if it exists and it is public
+     * or the user is the author of the set. Cards are read when the export is written
+     *
+     * @param setId  id of the set
+     * @param format format of the exported card list
+     * @param auth   authenticated user
+     * @return export to be written to the response
+     */
+    CardExport exportCards(long setId, CardListFormat format, Authentication auth);
+}
@@ -0,0 +1,28 @@
+package com.example.flashcards.service;
+
+import com.example.flashcards.dto.card.CardImportResultDto;
+import com.example.flashcards.service.cards.CardListFormat;
+import org.springframework.security.core.Authentication;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Bulk import of cards
+ */
+public interface CardImportService {
+    /**
+     * Import cards into the set. The input is read row by row and inserted in batches, every batch
+     * is committed on its own. Verify that the user is the author of the set. Rows whose front is already
+     * taken in the set or earlier in the input are skipped, as well as rows without front
+     *
+     * @param setId   id of the set
+     * @param input   uploaded card list
+     * @param format  format of the card list
+     * @param header  whether the first row of a delimited card list is a header
+     * @param charset charset of the card list
+     * @param auth    currently authenticated user
+     * @return numbers of imported and skipped rows
+     */
+    CardImportResultDto importCards(long setId, InputStream input, CardListFormat format, boolean header, Charset charset, Authentication auth);
+}
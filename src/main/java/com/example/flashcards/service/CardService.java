@@ -1,8 +1,14 @@
 package com.example.flashcards.service;
 
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.service.utils.ResourceVersion;
 import org.springframework.security.core.Authentication;
 
+import java.util.Optional;
+
 /**
  * Flash cards business logic
  */
@@ -50,4 +56,28 @@ public interface CardService {
      * @return retrieved card
      */
     CardDto getCardById(long cardId, long setId, Authentication auth);
+
+    /**
+     * Find the current version of the card without loading it, to answer conditional requests.
+     * Any change of the set or its cards changes the version
+     *
+     * @param cardId id of the card
+     * @param setId  id of the set card should belong to
+     * @param auth   authenticated user
+     * @return version of the card or empty if it doesn't exist, doesn't belong to the set or isn't accessible for the user
+     */
+    Optional<ResourceVersion> findCardVersion(long cardId, long setId, Authentication auth);
+
+    /**
+     * Retrieves a page of cards of the set in the order they were added, if the set
+     * is public or the user is the author of the set
+     *
+     * @param setId      id of the set
+     * @param difficulty if present, only cards the user rated with this difficulty. Cards the user
+     *                   hasn't seen yet count as hard
+     * @param pagination cursor of the previous page and size of the page
+     * @param auth       authenticated user
+     * @return page of cards
+     */
+    CursorPaginationResponse<CardDto> getCards(long setId, Difficulty difficulty, CursorPaginationRequest pagination, Authentication auth);
 }
@@ -1,10 +1,18 @@
 package com.example.flashcards.service;
 
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.dto.pagination.PaginationRequest;
 import com.example.flashcards.dto.pagination.PaginationResponse;
 import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.set.CardSetSummaryDto;
+import com.example.flashcards.dto.set.SetSuggestionDto;
+import com.example.flashcards.service.utils.ResourceVersion;
 import org.springframework.security.core.Authentication;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Business logic for the card sets
  */
@@ -47,6 +55,26 @@ public interface CardSetService {
      */
     CardSetDto getSetById(long id, Authentication authentication);
 
+    /**
+     * Find the current version of the set without loading it, to answer conditional requests
+     *
+     * @param id             id of the set
+     * @param authentication authentication for this request
+     * @return version of the set or empty if it doesn't exist or isn't accessible for the current user
+     */
+    Optional<ResourceVersion> findSetVersion(long id, Authentication authentication);
+
+    /**
+     * Copies the set and its cards into a new private set of the currently authenticated user.
+     * The set must be public or made by the user. Cards are copied in the database without loading them
+     *
+     * @param id             id of the set to copy
+     * @param name           name of the copy. The name of the original set if null
+     * @param authentication authentication for this request
+     * @return summary of the copy
+     */
+    CardSetSummaryDto forkSet(long id, String name, Authentication authentication);
+
     /**
      * Retrieve sets created by author with provided id
      *
@@ -54,7 +82,7 @@ public interface CardSetService {
      * @param auth     logged in user
      * @return retrieved sets
      */
-    PaginationResponse<CardSetDto> getSetsByAuthor(long authorId, PaginationRequest pagination, Authentication auth);
+    PaginationResponse<CardSetSummaryDto> getSetsByAuthor(long authorId, PaginationRequest pagination, Authentication auth);
 
     /**
      * Retrieve sets with given name
@@ -63,7 +91,25 @@ public interface CardSetService {
      * @param pagination pagination request
      * @return retrieved sets
      */
-    PaginationResponse<CardSetDto> getPublicSetsByName(String name, PaginationRequest pagination);
+    PaginationResponse<CardSetSummaryDto> getPublicSetsByName(String name, PaginationRequest pagination);
+
+    /**
+     * Full text search of public sets by their name, description and cards, best matches first
+     *
+     * @param query      search terms. Sets must contain all of them
+     * @param pagination pagination request. Count mode is ignored, the total is always exact
+     * @return page of matching sets
+     */
+    PaginationResponse<CardSetSummaryDto> searchPublicSets(String query, PaginationRequest pagination);
+
+    /**
+     * Suggest public sets with a name or a word of the name starting with the prefix. Served from memory
+     *
+     * @param prefix typed prefix of the name
+     * @param limit  maximal number of suggestions
+     * @return sets learned by the most users first
+     */
+    List<SetSuggestionDto> suggestPublicSets(String prefix, int limit);
 
     /**
      * Retrieve sets by author and name
@@ -73,7 +119,7 @@ public interface CardSetService {
      * @param auth authentication
      * @return retrieved sets
      */
-    PaginationResponse<CardSetDto> getSetsByAuthorAndName(long authorId, String name, PaginationRequest pagination, Authentication auth);
+    PaginationResponse<CardSetSummaryDto> getSetsByAuthorAndName(long authorId, String name, PaginationRequest pagination, Authentication auth);
 
     /**
      * Retrieve public sets
@@ -81,5 +127,43 @@ public interface CardSetService {
      * @param pagination pagination request
      * @return retrieved sets
      */
-    PaginationResponse<CardSetDto> getPublicSets(PaginationRequest pagination);
+    PaginationResponse<CardSetSummaryDto> getPublicSets(PaginationRequest pagination);
+
+    /**
+     * Retrieve sets created by author with provided id, newest first, starting after the cursor
+     *
+     * @param authorId   id of the author
+     * @param pagination cursor pagination request
+     * @param auth       logged in user
+     * @return retrieved sets with the cursor of the next page
+     */
+    CursorPaginationResponse<CardSetSummaryDto> getSetsByAuthor(long authorId, CursorPaginationRequest pagination, Authentication auth);
+
+    /**
+     * Retrieve public sets with given name, newest first, starting after the cursor
+     *
+     * @param name       name of the sets
+     * @param pagination cursor pagination request
+     * @return retrieved sets with the cursor of the next page
+     */
+    CursorPaginationResponse<CardSetSummaryDto> getPublicSetsByName(String name, CursorPaginationRequest pagination);
+
+    /**
+     * Retrieve sets by author and name, newest first, starting after the cursor
+     *
+     * @param authorId   id of the author
+     * @param name       name of the sets
+     * @param pagination cursor pagination request
+     * @param auth       authentication
+     * @return retrieved sets with the cursor of the next page
+     */
+    CursorPaginationResponse<CardSetSummaryDto> getSetsByAuthorAndName(long authorId, String name, CursorPaginationRequest pagination, Authentication auth);
+
+    /**
+     * Retrieve public sets, newest first, starting after the cursor
+     *
+     * @param pagination cursor pagination request
+     * @return retrieved sets with the cursor of the next page
+     */
+    CursorPaginationResponse<CardSetSummaryDto> getPublicSets(CursorPaginationRequest pagination);
 }
@@ -1,9 +1,13 @@
 package com.example.flashcards.service;
 
 import com.example.flashcards.dto.learning.QuestionDto;
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.learning.DueCountDto;
 import com.example.flashcards.dto.learning.QuestionAnswerDto;
 import org.springframework.security.core.Authentication;
 
+import java.util.List;
+
 /**
  * Learning service
  */
@@ -14,10 +18,20 @@ public interface LearningService {
      *
      * @param questionId id of the question
      * @param answer     provided answer
+     * @param next       whether to create the next question of the set in the same request
      * @param auth       authentication
-     * @return result of the question
+     * @return result of the question with the next question if requested
+     */
+    QuestionDto submitQuestionAnswer(long questionId, QuestionAnswerDto answer, boolean next, Authentication auth);
+
+    /**
+     * Submit answers to several questions at once. Either all answers are accepted or none
+     *
+     * @param answers answers with ids of the questions
+     * @param auth    authentication
+     * @return results of the questions in the order of the answers
      */
-    QuestionDto submitQuestionAnswer(long questionId, QuestionAnswerDto answer, Authentication auth);
+    List<QuestionDto> submitQuestionAnswers(List<QuestionAnswerDto> answers, Authentication auth);
 
     /**
      * Create question for set with given id
@@ -28,4 +42,36 @@ public interface LearningService {
      * @return created question
      */
     QuestionDto createQuestion(long setId, QuestionDto questionDto, Authentication auth);
+
+    /**
+     * Create several questions for set with given id at once.
+     * Questions are asked about different cards as long as the set has enough cards
+     *
+     * @param setId       id of the set
+     * @param size        number of questions
+     * @param questionDto initial question parameters
+     * @param auth        authentication
+     * @return created questions
+     */
+    List<QuestionDto> createQuiz(long setId, int size, QuestionDto questionDto, Authentication auth);
+
+    /**
+     * Get cards of the set that are due for review. Cards that were never reviewed
+     * are returned after the due ones
+     *
+     * @param setId id of the set
+     * @param limit max number of cards
+     * @param auth  authentication
+     * @return due cards ordered by due time
+     */
+    List<CardDto> getDueCards(long setId, int limit, Authentication auth);
+
+    /**
+     * Count cards of the set that are due for review
+     *
+     * @param setId id of the set
+     * @param auth  authentication
+     * @return number of due and never reviewed cards
+     */
+    DueCountDto countDueCards(long setId, Authentication auth);
 }
@@ -0,0 +1,50 @@
+package com.example.flashcards.service;
+
+import com.example.flashcards.dto.learning.DailyStatsDto;
+import org.springframework.security.core.Authentication;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * History of the answered questions. Recent questions are kept as they are,
+ * older ones are rolled up into daily statistics per user and card
+ */
+public interface QuestionHistoryService {
+
+    /**
+     * Get daily statistics of the user for the last days
+     *
+     * @param days number of days including today
+     * @param auth authentication
+     * @return statistics ordered by day. Days without answers are omitted
+     */
+    List<DailyStatsDto> getDailyStats(int days, Authentication auth);
+
+    /**
+     * Find the oldest day with raw answered questions
+     *
+     * @param before only days before this one are considered
+     * @return oldest day if there are answered questions before the given day
+     */
+    Optional<LocalDate> findOldestDay(LocalDate before);
+
+    /**
+     * Roll up the questions answered during the day into daily statistics and delete them.
+     * Days up to the last rolled up one are skipped
+     *
+     * @param day day to roll up
+     * @return number of deleted questions
+     */
+    int rollUp(LocalDate day);
+
+    /**
+     * Delete questions that were created before the given time and never answered
+     *
+     * @param before creation time limit
+     * @return number of deleted questions
+     */
+    int purgeUnanswered(LocalDateTime before);
+}
@@ -0,0 +1,16 @@
+package com.example.flashcards.service.cards;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Cards of a set ready to be exported. The cards are read only in {@link #writeTo(OutputStream)},
+ * straight from the database to the output
+ */
+public interface CardExport {
+    String getFilename();
+
+    CardListFormat getFormat();
+
+    void writeTo(OutputStream output) throws IOException;
+}
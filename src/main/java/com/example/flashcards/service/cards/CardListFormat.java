@@ -0,0 +1,62 @@
+package com.example.flashcards.service.cards;
+
+import org.springframework.http.MediaType;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Supported formats of imported and exported card lists. Delimited formats have the front in the first column
+ * and the back in the second one, NDJSON has one {"front": "...", "back": "..."} object per line
+ */
+public enum CardListFormat {
+    CSV("text/csv", "csv",
+            (reader, header) -> new DelimitedCardRowReader(reader, ',', true, header),
+            writer -> new DelimitedCardRowWriter(writer, ',', true)),
+    TSV("text/tab-separated-values", "tsv",
+            (reader, header) -> new DelimitedCardRowReader(reader, '\t', false, header),
+            writer -> new DelimitedCardRowWriter(writer, '\t', false)),
+    NDJSON("application/x-ndjson", "ndjson", (reader, header) -> new NdjsonCardRowReader(reader), NdjsonCardRowWriter::new);
+
+    private final MediaType mediaType;
+    private final String extension;
+    private final BiFunction<Reader, Boolean, CardRowReader> readerFactory;
+    private final Function<Writer, CardRowWriter> writerFactory;
+
+    CardListFormat(String mediaType, String extension,
+                   BiFunction<Reader, Boolean, CardRowReader> readerFactory, Function<Writer, CardRowWriter> writerFactory) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+        this.readerFactory = readerFactory;
+        this.writerFactory = writerFactory;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param header whether the first row of a delimited list is a header. NDJSON has no header
+     */
+    public CardRowReader reader(Reader reader, boolean header) {
+        return readerFactory.apply(reader, header);
+    }
+
+    public CardRowWriter writer(Writer writer) {
+        return writerFactory.apply(writer);
+    }
+
+    public static CardListFormat of(MediaType mediaType) {
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.includes(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Unsupported import format: %s", mediaType)));
+    }
+}
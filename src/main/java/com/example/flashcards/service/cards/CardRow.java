@@ -0,0 +1,12 @@
+package com.example.flashcards.service.cards;
+
+import lombok.Value;
+
+/**
+ * Single row of an imported card list. Sides are null when the row couldn't be parsed
+ */
+@Value
+public class CardRow {
+    String front;
+    String back;
+}
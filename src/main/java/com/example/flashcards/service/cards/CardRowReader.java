@@ -0,0 +1,17 @@
+package com.example.flashcards.service.cards;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Reads an uploaded card list one row at a time, so the upload is never held in memory
+ */
+public interface CardRowReader extends Closeable {
+    /**
+     * @return next row or empty optional at the end of the input
+     * @throws IOException              if the input can't be read
+     * @throws IllegalArgumentException if the input is malformed beyond a single row
+     */
+    Optional<CardRow> next() throws IOException;
+}
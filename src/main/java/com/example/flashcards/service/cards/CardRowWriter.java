@@ -0,0 +1,11 @@
+package com.example.flashcards.service.cards;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes a card list one row at a time. {@link #flush()} must be called after the last row
+ */
+public interface CardRowWriter extends Flushable {
+    void write(CardRow row) throws IOException;
+}
@@ -0,0 +1,141 @@
+package com.example.flashcards.service.cards;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reader of CSV and TSV card lists. Quoted CSV fields may contain delimiters, line breaks and doubled quotes.
+ * The first row is skipped when the list is declared to have a header, it's never guessed from the content,
+ * so a card with the front "front" is imported like any other. The apostrophe that
+ * {@link DelimitedCardRowWriter} puts in front of formula-like fields is removed
+ */
+class DelimitedCardRowReader implements CardRowReader {
+    static final int MAX_FIELD_LENGTH = 65536;
+
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+    private final char delimiter;
+    private final boolean quoted;
+    private final boolean header;
+
+    private final StringBuilder field = new StringBuilder();
+    private boolean firstRow = true;
+    private boolean end;
+
+    DelimitedCardRowReader(Reader reader, char delimiter, boolean quoted, boolean header) {
+        this.reader = new BufferedReader(reader);
+        this.delimiter = delimiter;
+        this.quoted = quoted;
+        this.header = header;
+    }
+
+    @Override
+    public Optional<CardRow> next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields.isEmpty()) {
+                return Optional.empty();
+            }
+        } while (isBlank(fields) || isFirstRowHeader(fields));
+
+        return Optional.of(new CardRow(unescape(fields.get(0)), fields.size() > 1 ? unescape(fields.get(1)) : null));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>(2);
+        if (end) {
+            return fields;
+        }
+
+        field.setLength(0);
+        boolean inQuotes = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch != QUOTE) {
+                    append(ch);
+                } else if (peek() == QUOTE) {
+                    reader.read();
+                    append(QUOTE);
+                } else {
+                    inQuotes = false;
+                }
+            } else if (quoted && ch == QUOTE && field.length() == 0) {
+                inQuotes = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                break;
+            } else if (ch != '\r') {
+                append(ch);
+            }
+        }
+
+        if (c == -1) {
+            end = true;
+            if (inQuotes) {
+                throw new IllegalArgumentException("Unterminated quoted field at the end of the import");
+            }
+            if (fields.isEmpty() && field.length() == 0) {
+                return fields;
+            }
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    private int peek() throws IOException {
+        reader.mark(1);
+        int c = reader.read();
+        reader.reset();
+
+        return c;
+    }
+
+    private void append(char ch) {
+        if (field.length() >= MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(String.format("Field is longer than %s characters", MAX_FIELD_LENGTH));
+        }
+        field.append(ch);
+    }
+
+    private boolean isFirstRowHeader(List<String> fields) {
+        if (!firstRow) {
+            return false;
+        }
+        firstRow = false;
+
+        String first = fields.get(0);
+        if (!first.isEmpty() && first.charAt(0) == BYTE_ORDER_MARK) {
+            fields.set(0, first.substring(1));
+        }
+
+        return header;
+    }
+
+    private static String unescape(String field) {
+        boolean escaped = !field.isEmpty() && field.charAt(0) == DelimitedCardRowWriter.FORMULA_ESCAPE
+                && DelimitedCardRowWriter.startsLikeFormula(field.substring(1));
+
+        return escaped ? field.substring(1) : field;
+    }
+
+    private static boolean isBlank(List<String> fields) {
+        return fields.stream().allMatch(String::isBlank);
+    }
+}
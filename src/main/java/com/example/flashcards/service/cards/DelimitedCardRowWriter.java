@@ -0,0 +1,87 @@
+package com.example.flashcards.service.cards;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer of CSV and TSV card lists with a "front, back" header row. CSV fields are quoted when needed,
+ * TSV can't quote, so tabs and line breaks in a TSV field are replaced with spaces. Fields that a spreadsheet
+ * would evaluate as a formula are prefixed with an apostrophe, and so are fields that already start with
+ * apostrophes followed by such a character. {@link DelimitedCardRowReader} removes the prefix again,
+ * so an exported list imports back unchanged
+ */
+class DelimitedCardRowWriter implements CardRowWriter {
+    private static final String QUOTE = "\"";
+    private static final String LINE_BREAK = "\r\n";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    static final char FORMULA_ESCAPE = '\'';
+
+    private final Writer writer;
+    private final char delimiter;
+    private final boolean quoted;
+
+    private boolean headerWritten;
+
+    DelimitedCardRowWriter(Writer writer, char delimiter, boolean quoted) {
+        this.writer = writer;
+        this.delimiter = delimiter;
+        this.quoted = quoted;
+    }
+
+    @Override
+    public void write(CardRow row) throws IOException {
+        writeHeader();
+        writeRow(row.getFront(), row.getBack());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeHeader();
+        writer.flush();
+    }
+
+    private void writeHeader() throws IOException {
+        if (!headerWritten) {
+            headerWritten = true;
+            writeRow("front", "back");
+        }
+    }
+
+    private void writeRow(String front, String back) throws IOException {
+        writer.write(escape(front));
+        writer.write(delimiter);
+        writer.write(escape(back));
+        writer.write(LINE_BREAK);
+    }
+
+    private String escape(String field) {
+        if (field == null) {
+            return "";
+        }
+
+        if (startsLikeFormula(field)) {
+            field = FORMULA_ESCAPE + field;
+        }
+
+        if (!quoted) {
+            return field.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+        }
+
+        boolean needsQuotes = field.indexOf(delimiter) >= 0 || field.contains(QUOTE)
+                || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0;
+
+        return needsQuotes ? QUOTE + field.replace(QUOTE, QUOTE + QUOTE) + QUOTE : field;
+    }
+
+    /**
+     * Check whether the field starts with a formula character after any leading apostrophes
+     */
+    static boolean startsLikeFormula(String field) {
+        int start = 0;
+        while (start < field.length() && field.charAt(start) == FORMULA_ESCAPE) {
+            start++;
+        }
+
+        return start < field.length() && FORMULA_PREFIXES.indexOf(field.charAt(start)) >= 0;
+    }
+}
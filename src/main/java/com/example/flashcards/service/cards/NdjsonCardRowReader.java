@@ -0,0 +1,58 @@
+package com.example.flashcards.service.cards;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Optional;
+
+/**
+ * Reader of newline delimited JSON card lists. A line that isn't a JSON object is returned as an invalid row
+ */
+class NdjsonCardRowReader implements CardRowReader {
+    private static final ObjectReader JSON_READER = new ObjectMapper().reader();
+    private static final CardRow INVALID = new CardRow(null, null);
+
+    private final BufferedReader reader;
+
+    NdjsonCardRowReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    @Override
+    public Optional<CardRow> next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return Optional.empty();
+            }
+        } while (line.isBlank());
+
+        return Optional.of(parse(line));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static CardRow parse(String line) {
+        JsonNode node;
+        try {
+            node = JSON_READER.readTree(line);
+        } catch (JsonProcessingException e) {
+            return INVALID;
+        }
+
+        if (!node.isObject()) {
+            return INVALID;
+        }
+
+        return new CardRow(node.path("front").textValue(), node.path("back").textValue());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.flashcards.service.cards;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writer of newline delimited JSON card lists, one {"front": "...", "back": "..."} object per line
+ */
+class NdjsonCardRowWriter implements CardRowWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    NdjsonCardRowWriter(Writer writer) {
+        try {
+            // Objects are separated by the line breaks only, not by the default root value separator
+            this.generator = JSON_FACTORY.createGenerator(writer).setRootValueSeparator(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(CardRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("front", row.getFront());
+        if (row.getBack() != null) {
+            generator.writeStringField("back", row.getBack());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
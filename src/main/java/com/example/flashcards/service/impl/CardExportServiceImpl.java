@@ -0,0 +1,114 @@
+package com.example.flashcards.service.impl;
+
+import com.example.flashcards.exceptions.ResourceNotAccessible;
+import com.example.flashcards.exceptions.ResourceNotFound;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.User;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.CardSetRepository;
+import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.service.CardExportService;
+import com.example.flashcards.service.cards.CardExport;
+import com.example.flashcards.service.cards.CardListFormat;
+import com.example.flashcards.service.cards.CardRow;
+import com.example.flashcards.service.cards.CardRowWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Transactional(readOnly = true)
+public class CardExportServiceImpl implements CardExportService {
+    private final CardRepository cardRepository;
+    private final CardSetRepository setRepository;
+    private final UserRepository userRepository;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public CardExport exportCards(long setId, CardListFormat format, Authentication auth) {
+        log.info("Export cards of set {} as {}", setId, format);
+
+        String email = auth.getName();
+        User user = userRepository.findByEmail(email).orElseThrow(() -> new ResourceNotFound(email, User.class));
+        CardSet set = setRepository.findWithAuthorById(setId).orElseThrow(() -> new ResourceNotFound(setId, CardSet.class));
+
+        if (!set.getAuthor().equals(user) && set.isPrivate()) {
+            log.error("User with id {} has no access to set {}", user.getId(), setId);
+            throw new ResourceNotAccessible(setId, user, CardSet.class);
+        }
+
+        return new StreamedCardExport(setId, filename(set.getName(), format), format);
+    }
+
+    private static String filename(String setName, CardListFormat format) {
+        String name = setName == null ? "" : setName.strip().replaceAll("[^\\p{L}\\p{N}._-]+", "_");
+        return (name.isEmpty() ? "cards" : name) + "." + format.getExtension();
+    }
+
+    @RequiredArgsConstructor
+    private class StreamedCardExport implements CardExport {
+        private final long setId;
+        private final String filename;
+        private final CardListFormat format;
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public CardListFormat getFormat() {
+            return format;
+        }
+
+        /**
+         * Runs in its own read only transaction, because it's called by the web layer after the service returned.
+         * Rows are projections scrolled with a fetch size, so nothing accumulates in the persistence context
+         */
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+
+            try {
+                transaction.executeWithoutResult(status -> write(output));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void write(OutputStream output) {
+            CardRowWriter writer = format.writer(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+            long count = 0;
+
+            try (Stream<CardRow> rows = cardRepository.streamRowsBySetId(setId)) {
+                Iterator<CardRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                    count++;
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            log.info("Exported {} cards of set {}", count, setId);
+        }
+    }
+}
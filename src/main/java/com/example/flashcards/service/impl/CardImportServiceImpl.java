@@ -0,0 +1,145 @@
+package com.example.flashcards.service.impl;
+
+import com.example.flashcards.dto.card.CardImportResultDto;
+import com.example.flashcards.exceptions.ResourceNotAccessible;
+import com.example.flashcards.exceptions.ResourceNotFound;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.User;
+import com.example.flashcards.repository.CardBatchRepository;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.CardSetRepository;
+import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.service.CardImportService;
+import com.example.flashcards.service.cards.CardListFormat;
+import com.example.flashcards.service.cards.CardRow;
+import com.example.flashcards.service.cards.CardRowReader;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetSearchIndex;
+import com.example.flashcards.service.utils.AfterCommit;
+import com.example.flashcards.service.utils.PublicSetCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class CardImportServiceImpl implements CardImportService {
+    private final CardRepository cardRepository;
+    private final CardBatchRepository cardBatchRepository;
+    private final CardSetRepository setRepository;
+    private final UserRepository userRepository;
+
+    private final LearningSessionCache sessions;
+    private final CardCounts counts;
+    private final SetSearchIndex searchIndex;
+    private final PublicSetCache setCache;
+    private final PlatformTransactionManager transactionManager;
+
+    static final int MAX_SIDE_LENGTH = 255;
+
+    /**
+     * Every batch is inserted in its own transaction, so a large import doesn't hold locks and undo
+     * until the whole upload is read. Caches are updated after each batch commits
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CardImportResultDto importCards(long setId, InputStream input, CardListFormat format, boolean header, Charset charset, Authentication auth) {
+        log.info("Import {} cards to the set with id {}", format, setId);
+        verifySetAuthor(setId, auth);
+
+        Set<String> fronts = cardRepository.findFrontsBySetId(setId);
+        CardImportResultDto result = new CardImportResultDto();
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int batchSize = cardBatchRepository.getBatchSize();
+        List<CardRow> batch = new ArrayList<>(batchSize);
+
+        try (CardRowReader reader = format.reader(new InputStreamReader(input, charset), header)) {
+            Optional<CardRow> next;
+            while ((next = reader.next()).isPresent()) {
+                CardRow row = normalize(next.get());
+
+                if (!isValid(row)) {
+                    result.setInvalid(result.getInvalid() + 1);
+                } else if (!fronts.add(row.getFront())) {
+                    result.setDuplicates(result.getDuplicates() + 1);
+                } else {
+                    batch.add(row);
+                    if (batch.size() == batchSize) {
+                        insert(transaction, setId, batch, now, result);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        insert(transaction, setId, batch, now, result);
+
+        log.info("Imported {} cards to the set with id {}, skipped {} duplicates and {} invalid rows",
+                result.getImported(), setId, result.getDuplicates(), result.getInvalid());
+
+        return result;
+    }
+
+    private void insert(TransactionTemplate transaction, long setId, List<CardRow> batch, LocalDateTime now, CardImportResultDto result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<CardRow> inserted = List.copyOf(batch);
+        transaction.executeWithoutResult(status -> {
+            cardBatchRepository.insertAll(setId, inserted, now);
+            setRepository.incrementRevision(setId, now);
+            AfterCommit.run(() -> {
+                sessions.evict(setId);
+                setCache.invalidate(setId);
+                counts.cardsAdded(setId, inserted.size());
+                inserted.forEach(row -> searchIndex.addCard(setId, row.getFront(), row.getBack()));
+            });
+        });
+        result.setImported(result.getImported() + inserted.size());
+        batch.clear();
+    }
+
+    private static CardRow normalize(CardRow row) {
+        String front = row.getFront() == null ? null : row.getFront().trim();
+        String back = row.getBack() == null ? null : row.getBack().trim();
+
+        return new CardRow(front, back);
+    }
+
+    private static boolean isValid(CardRow row) {
+        return row.getFront() != null && !row.getFront().isEmpty() && row.getFront().length() <= MAX_SIDE_LENGTH
+                && (row.getBack() == null || row.getBack().length() <= MAX_SIDE_LENGTH);
+    }
+
+    private void verifySetAuthor(long setId, Authentication auth) {
+        String email = auth.getName();
+        User user = userRepository.findByEmail(email).orElseThrow(() -> new ResourceNotFound(email, User.class));
+        CardSet set = setRepository.findWithAuthorById(setId).orElseThrow(() -> new ResourceNotFound(setId, CardSet.class));
+
+        if (!set.getAuthor().equals(user)) {
+            log.error("User with identifier {} has no access to the set with id {}", user.getId(), setId);
+            throw new ResourceNotAccessible(setId, user, CardSet.class);
+        }
+    }
+}
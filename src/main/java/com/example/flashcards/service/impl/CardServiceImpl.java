@@ -1,25 +1,39 @@
 package com.example.flashcards.service.impl;
 
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.exceptions.ResourceAlreadyExist;
 import com.example.flashcards.exceptions.ResourceNotAccessible;
 import com.example.flashcards.exceptions.ResourceNotFound;
 import com.example.flashcards.model.Card;
 import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
 import com.example.flashcards.model.User;
 import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.CardProgressRepository;
 import com.example.flashcards.repository.CardRepository;
 import com.example.flashcards.repository.CardSetRepository;
 import com.example.flashcards.repository.UserRepository;
 import com.example.flashcards.service.CardService;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetSearchIndex;
+import com.example.flashcards.service.utils.AfterCommit;
 import com.example.flashcards.service.utils.DtoMappers;
+import com.example.flashcards.service.utils.PageCursor;
+import com.example.flashcards.service.utils.PublicSetCache;
+import com.example.flashcards.service.utils.ResourceVersion;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 @Slf4j
@@ -30,9 +44,16 @@ public class CardServiceImpl implements CardService {
     private final CardRepository cardRepository;
     private final CardSetRepository setRepository;
     private final UserRepository userRepository;
+    private final CardProgressRepository progressRepository;
 
+    private final LearningSessionCache sessions;
+    private final CardCounts counts;
+    private final SetSearchIndex searchIndex;
+    private final PublicSetCache setCache;
     private final DtoMappers mappers;
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Override
     public CardDto saveCard(long setId, CardDto cardDto, Authentication auth) {
         log.info("Add card {} to the set with id {}", cardDto, setId);
@@ -40,15 +61,22 @@ public class CardServiceImpl implements CardService {
 
         Card card = mappers.mapCardDtoToCard(cardDto);
         card.setSet(set);
-        card.setDifficulty(Difficulty.HARD);
         card.setCreatedAt(LocalDateTime.now());
 
-        if (set.getCards().contains(card)) {
+        if (cardRepository.existsBySetIdAndFront(setId, card.getFront())) {
             log.error("Card with such properties {} is already present in set with id {}", cardDto, setId);
             throw new ResourceAlreadyExist(card.getFront(), Card.class);
         }
 
         Card saved = cardRepository.save(card);
+        setRepository.incrementRevision(setId, saved.getCreatedAt());
+        AfterCommit.run(() -> {
+            sessions.addCard(saved);
+            setCache.invalidate(setId);
+            counts.cardsAdded(setId, 1);
+            searchIndex.addCard(setId, saved.getFront(), saved.getBack());
+        });
+
         return mappers.mapCardToCardDto(saved);
     }
 
@@ -58,6 +86,14 @@ public class CardServiceImpl implements CardService {
         Card card = getCardVerifySetAndAuthor(cardId, setId, auth);
 
         cardRepository.delete(card);
+        progressRepository.deleteByCardId(cardId);
+        setRepository.incrementRevision(setId, LocalDateTime.now());
+        AfterCommit.run(() -> {
+            sessions.removeCard(card);
+            setCache.invalidate(setId);
+            counts.evict(setId);
+            searchIndex.removeCard(setId, card.getFront(), card.getBack());
+        });
     }
 
     @Override
@@ -65,16 +101,28 @@ public class CardServiceImpl implements CardService {
         log.info("Replace card with identifier {} from set with id {}. Replacement: {}", cardId, setId, cardDto);
 
         Card existing = getCardVerifySetAndAuthor(cardId, setId, auth);
+
+        if (cardRepository.existsBySetIdAndFrontAndIdNot(setId, cardDto.getFront(), cardId)) {
+            log.error("There already is in this set a card with given front value: {}", cardDto.getFront());
+            throw new ResourceAlreadyExist(cardDto.getFront(), Card.class);
+        }
+
+        String oldFront = existing.getFront();
+        String oldBack = existing.getBack();
+
         existing.setFront(cardDto.getFront());
         existing.setBack(cardDto.getBack());
         existing.setUpdatedAt(LocalDateTime.now());
 
-        if (isCardFrontValueTaken(existing.getSet(), existing)) {
-            log.error("There already is in this set a card with given front value: {}", existing.getFront());
-            throw new ResourceAlreadyExist(existing.getFront(), Card.class);
-        }
-
         Card saved = cardRepository.save(existing);
+        setRepository.incrementRevision(setId, saved.getUpdatedAt());
+        AfterCommit.run(() -> {
+            sessions.updateCard(saved);
+            setCache.invalidate(setId);
+            searchIndex.removeCard(setId, oldFront, oldBack);
+            searchIndex.addCard(setId, saved.getFront(), saved.getBack());
+        });
+
         return mappers.mapCardToCardDto(saved);
     }
 
@@ -98,6 +146,48 @@ public class CardServiceImpl implements CardService {
         return mappers.mapCardToCardDto(card);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> findCardVersion(long cardId, long setId, Authentication auth) {
+        return cardRepository.findRevisionByIdAndSetId(cardId, setId)
+                .filter(revision -> revision.getType() != SetType.PRIVATE || isAuthor(revision.getAuthorId(), auth))
+                .map(revision -> ResourceVersion.ofCard(cardId, setId, revision.getRevision(), revision.getLastModified()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginationResponse<CardDto> getCards(long setId, Difficulty difficulty, CursorPaginationRequest pagination, Authentication auth) {
+        log.info("Get cards of set {} with difficulty {} after cursor '{}'", setId, difficulty, pagination.getAfter());
+
+        if (pagination.getSize() < 1 || pagination.getSize() > MAX_PAGE_SIZE) {
+            log.error("Invalid page size: {}", pagination.getSize());
+            throw new IllegalArgumentException(String.format("Page size must be between 1 and %s", MAX_PAGE_SIZE));
+        }
+        PageCursor cursor = PageCursor.decode(pagination.getAfter(), PageCursor.FIRST_ASCENDING);
+
+        CardSet set = getSet(setId);
+        User user = getUser(auth);
+        if (!isSetAuthor(user, set) && set.isPrivate()) {
+            log.error("User with id {} has no access to set {}", user.getId(), setId);
+            throw new ResourceNotAccessible(setId, user, CardSet.class);
+        }
+
+        PageRequest page = PageRequest.of(0, pagination.getSize() + 1);
+        List<CardDto> cards = difficulty == null
+                ? cardRepository.findBySetIdAfter(setId, cursor.getCreatedAt(), cursor.getId(), page)
+                : cardRepository.findBySetIdAndDifficultyAfter(setId, user.getId(), difficulty, difficulty == Difficulty.HARD,
+                cursor.getCreatedAt(), cursor.getId(), page);
+
+        String next = null;
+        if (cards.size() > pagination.getSize()) {
+            cards = cards.subList(0, pagination.getSize());
+            CardDto last = cards.get(cards.size() - 1);
+            next = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new CursorPaginationResponse<>(cards, next);
+    }
+
     private Card getCardVerifySetAndAuthor(long cardId, long setId, Authentication auth) {
         CardSet set = getSetAndVerifyAuthor(setId, auth);
         Card card = getCard(cardId);
@@ -123,7 +213,11 @@ public class CardServiceImpl implements CardService {
     }
 
     private Card getCard(long cardId) {
-        return cardRepository.findById(cardId).orElseThrow(() -> new ResourceNotFound(cardId, Card.class));
+        return cardRepository.findWithSetById(cardId).orElseThrow(() -> new ResourceNotFound(cardId, Card.class));
+    }
+
+    private boolean isAuthor(long authorId, Authentication auth) {
+        return userRepository.findByEmail(auth.getName()).filter(user -> user.getId() == authorId).isPresent();
     }
 
     private User getUser(Authentication auth) {
@@ -132,7 +226,7 @@ public class CardServiceImpl implements CardService {
     }
 
     private CardSet getSet(long setId) {
-        return setRepository.findById(setId).orElseThrow(() -> new ResourceNotFound(setId, Set.class));
+        return setRepository.findWithAuthorById(setId).orElseThrow(() -> new ResourceNotFound(setId, Set.class));
     }
 
     private static boolean isSetAuthor(User user, CardSet set) {
@@ -140,16 +234,6 @@ public class CardServiceImpl implements CardService {
     }
 
     private static boolean belongsToSet(CardSet set, Card card) {
-        return card.getSet().equals(set);
-    }
-
-    private static boolean isCardFrontValueTaken(CardSet set, Card card) {
-        return set.getCards().stream().anyMatch(
-                other -> {
-                    boolean frontSidesEqual = other.getFront().equals(card.getFront());
-                    boolean idsEqual = other.getId().equals(card.getId());
-                    return frontSidesEqual && !idsEqual;
-                }
-        );
+        return card.getSet().getId().equals(set.getId());
     }
 }
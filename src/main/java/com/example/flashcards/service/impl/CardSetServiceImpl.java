@@ -1,9 +1,13 @@
 package com.example.flashcards.service.impl;
 
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.dto.pagination.PaginationRequest;
 import com.example.flashcards.dto.pagination.PaginationResponse;
 import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.set.CardSetSummaryDto;
+import com.example.flashcards.dto.set.SetSuggestionDto;
 import com.example.flashcards.exceptions.ResourceAlreadyExist;
 import com.example.flashcards.exceptions.ResourceNotAccessible;
 import com.example.flashcards.exceptions.ResourceNotFound;
@@ -11,34 +15,98 @@ import com.example.flashcards.model.Card;
 import com.example.flashcards.model.CardSet;
 import com.example.flashcards.model.SetType;
 import com.example.flashcards.model.User;
-import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.CardBatchRepository;
+import com.example.flashcards.repository.CardProgressRepository;
 import com.example.flashcards.repository.CardSetRepository;
 import com.example.flashcards.repository.UserRepository;
 import com.example.flashcards.service.CardSetService;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetNameTrie;
+import com.example.flashcards.service.search.SetSearchIndex;
+import com.example.flashcards.service.utils.AfterCommit;
+import com.example.flashcards.service.utils.CountCache;
 import com.example.flashcards.service.utils.DtoMappers;
-import lombok.RequiredArgsConstructor;
+import com.example.flashcards.service.utils.PageCursor;
+import com.example.flashcards.service.utils.PublicSetCache;
+import com.example.flashcards.service.utils.ResourceVersion;
+import com.example.flashcards.service.utils.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
-@RequiredArgsConstructor
 @Service
 @Transactional
 public class CardSetServiceImpl implements CardSetService {
     private final CardSetRepository cardSetRepository;
+    private final CardBatchRepository cardBatchRepository;
     private final UserRepository userRepository;
-
+    private final CardProgressRepository progressRepository;
+
+    private final LearningSessionCache sessions;
+    private final CardCounts counts;
+    private final CountCache countCache;
+    private final SetSearchIndex searchIndex;
+    private final SetNameTrie nameTrie;
+    private final PublicSetCache setCache;
     private final DtoMappers mappers;
 
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Pages of public sets are the same for every user, so concurrent requests of a page share one query.
+     * Queries in flight are forgotten after a set is created, changed or deleted
+     */
+    private final SingleFlight<String, PaginationResponse<CardSetSummaryDto>> publicPages;
+    private final SingleFlight<String, CursorPaginationResponse<CardSetSummaryDto>> publicCursorPages;
+
+    public CardSetServiceImpl(CardSetRepository cardSetRepository, CardBatchRepository cardBatchRepository,
+                              UserRepository userRepository, CardProgressRepository progressRepository,
+                              LearningSessionCache sessions, CardCounts counts, CountCache countCache,
+                              SetSearchIndex searchIndex, SetNameTrie nameTrie, PublicSetCache setCache, DtoMappers mappers,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sets.cache.load-timeout:5s}") Duration loadTimeout) {
+        this.cardSetRepository = cardSetRepository;
+        this.cardBatchRepository = cardBatchRepository;
+        this.userRepository = userRepository;
+        this.progressRepository = progressRepository;
+        this.sessions = sessions;
+        this.counts = counts;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.nameTrie = nameTrie;
+        this.setCache = setCache;
+        this.mappers = mappers;
+        this.transactionManager = transactionManager;
+        this.publicPages = new SingleFlight<>(loadTimeout);
+        this.publicCursorPages = new SingleFlight<>(loadTimeout);
+    }
+
     @Override
     public CardSetDto saveSet(CardSetDto cardSetDto, Authentication auth) {
         log.info("Create set: {}", cardSetDto);
@@ -60,6 +128,9 @@ public class CardSetServiceImpl implements CardSetService {
         set.setCards(cards);
 
         set = cardSetRepository.save(set);
+        updateSearchIndex(set);
+        AfterCommit.run(this::forgetPublicPages);
+
         return mappers.mapCardSetToCardSetDto(set);
     }
 
@@ -70,6 +141,15 @@ public class CardSetServiceImpl implements CardSetService {
         CardSet set = getSetAndVerifyAuthor(id, auth);
 
         cardSetRepository.delete(set);
+        progressRepository.deleteBySetId(id);
+        AfterCommit.run(() -> {
+            sessions.evict(id);
+            setCache.invalidate(id);
+            counts.evict(id);
+            searchIndex.removeSet(id);
+            nameTrie.removeSet(id);
+            forgetPublicPages();
+        });
     }
 
     @Override
@@ -83,93 +163,381 @@ public class CardSetServiceImpl implements CardSetService {
         existing.setUpdatedAt(LocalDateTime.now());
 
         cardSetRepository.save(existing);
+        cardSetRepository.incrementRevision(id, existing.getUpdatedAt());
+        AfterCommit.run(() -> {
+            sessions.evict(id);
+            setCache.invalidate(id);
+            forgetPublicPages();
+        });
+        updateSearchIndex(existing);
+
         return mappers.mapCardSetToCardSetDto(existing);
     }
 
+    /**
+     * Public sets are served from the cache, only the sets missing from it are loaded in a transaction.
+     * Concurrent requests for a missing set share one load, access is checked for each of them
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CardSetDto getSetById(long id, Authentication auth) {
         log.info("Get set with id {}", id);
 
-        Optional<CardSet> optionalSet = cardSetRepository.findById(id);
+        return setCache.get(id, () -> {
+            CardSetDto set = setCache.load(id, () -> readOnly(() -> loadSet(id)));
+            verifyAccess(set, auth);
+
+            return set;
+        });
+    }
+
+    /**
+     * Cached sets are public and their version is known without querying the database
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ResourceVersion> findSetVersion(long id, Authentication auth) {
+        Optional<CardSetDto> cached = setCache.peek(id);
+        if (cached.isPresent()) {
+            return cached.map(ResourceVersion::ofSet);
+        }
+
+        return cardSetRepository.findRevisionById(id)
+                .filter(revision -> revision.getType() != SetType.PRIVATE || isAuthor(revision.getAuthorId(), auth))
+                .map(revision -> ResourceVersion.ofSet(id, revision.getRevision(), revision.getLastModified()));
+    }
+
+    private CardSetDto loadSet(long id) {
+        Optional<CardSet> optionalSet = cardSetRepository.findWithAuthorAndCardsById(id);
         if (optionalSet.isEmpty()) {
             log.error("Set with id {} doesn't exist", id);
             throw new ResourceNotFound(id, CardSet.class);
         }
-        CardSet set = optionalSet.get();
+
+        return mappers.mapCardSetToCardSetDto(optionalSet.get());
+    }
+
+    private void verifyAccess(CardSetDto set, Authentication auth) {
+        User user = getUser(auth);
+        if (set.getAuthor().getId() != user.getId() && set.getType() == SetType.PRIVATE) {
+            log.error("User with id {} has no access to set {}", user.getId(), set.getId());
+            throw new ResourceNotAccessible(set.getId(), user, CardSet.class);
+        }
+    }
+
+    @Override
+    public CardSetSummaryDto forkSet(long id, String name, Authentication auth) {
+        log.info("Fork set with id {}", id);
+
+        CardSet original = cardSetRepository.findWithAuthorById(id).orElseThrow(() -> {
+            log.error("Set with id {} doesn't exist", id);
+            return new ResourceNotFound(id, CardSet.class);
+        });
 
         User user = getUser(auth);
-        if (!set.getAuthor().equals(user) && set.getType() == SetType.PRIVATE) {
+        if (!original.getAuthor().equals(user) && original.isPrivate()) {
             log.error("User with id {} has no access to set {}", user.getId(), id);
             throw new ResourceNotAccessible(id, user, CardSet.class);
         }
 
-        return mappers.mapCardSetToCardSetDto(set);
+        String forkName = name == null || name.isBlank() ? original.getName() : name;
+        if (forkName.length() > CardSet.NAME_LENGTH) {
+            log.error("Name of the fork is longer than {} characters", CardSet.NAME_LENGTH);
+            throw new IllegalArgumentException(String.format("Name of the set must be at most %s characters", CardSet.NAME_LENGTH));
+        }
+        if (cardSetRepository.findByNameAndAuthor(forkName, user).isPresent()) {
+            log.error("User {} already has set with name '{}'", user, forkName);
+            throw new ResourceAlreadyExist(forkName, CardSet.class);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        CardSet fork = cardSetRepository.saveAndFlush(CardSet.builder()
+                .author(user)
+                .name(forkName)
+                .description(original.getDescription())
+                .type(SetType.PRIVATE)
+                .createdAt(now)
+                .build());
+
+        int copied = cardBatchRepository.copyAll(id, fork.getId(), now);
+        log.info("Copied {} cards of set {} to set {}", copied, id, fork.getId());
+
+        return CardSetSummaryDto.builder()
+                .id(fork.getId())
+                .name(fork.getName())
+                .description(fork.getDescription())
+                .type(fork.getType())
+                .authorId(user.getId())
+                .authorNickname(user.getNickname())
+                .cardCount(copied)
+                .createdAt(fork.getCreatedAt())
+                .updatedAt(fork.getUpdatedAt())
+                .build();
     }
 
     @Override
-    public PaginationResponse<CardSetDto> getSetsByAuthor(long authorId, PaginationRequest pagination, Authentication auth) {
+    public PaginationResponse<CardSetSummaryDto> getSetsByAuthor(long authorId, PaginationRequest pagination, Authentication auth) {
         log.info("Get sets made by author with id {}", authorId);
 
         User author = getUser(authorId);
         User authenticatedUser = getUser(auth);
 
-        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
-
-        Page<CardSet> sets;
         if (!author.equals(authenticatedUser)) {
             log.info("Get public sets of author with id {}", authorId);
-            sets = cardSetRepository.findByAuthorAndType(author, SetType.PUBLIC, pageRequest);
-        } else {
-            log.info("Get all sets of author with id {}", authorId);
-            sets = cardSetRepository.findByAuthor(author, pageRequest);
+            return findSets(pagination, "author-public:" + authorId,
+                    pageRequest -> cardSetRepository.findByAuthorAndType(author, SetType.PUBLIC, pageRequest),
+                    pageRequest -> cardSetRepository.findSliceByAuthorAndType(author, SetType.PUBLIC, pageRequest),
+                    () -> cardSetRepository.countByAuthorAndType(author, SetType.PUBLIC));
         }
 
-        Page<CardSetDto> setDtos = sets.map(mappers::mapCardSetToCardSetDto);
-        return new PaginationResponse<>(setDtos, pagination);
+        log.info("Get all sets of author with id {}", authorId);
+        return findSets(pagination, "author:" + authorId,
+                pageRequest -> cardSetRepository.findByAuthor(author, pageRequest),
+                pageRequest -> cardSetRepository.findSliceByAuthor(author, pageRequest),
+                () -> cardSetRepository.countByAuthor(author));
     }
 
     @Override
-    public PaginationResponse<CardSetDto> getPublicSetsByName(String name, PaginationRequest pagination) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PaginationResponse<CardSetSummaryDto> getPublicSetsByName(String name, PaginationRequest pagination) {
         log.info("Get sets with name {}'", name);
 
-        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
-        Page<CardSetDto> setDtos = cardSetRepository.findByNameContainingIgnoreCaseAndType(name, SetType.PUBLIC, pageRequest)
-                .map(mappers::mapCardSetToCardSetDto);
-
-        return new PaginationResponse<>(setDtos, pagination);
+        String key = "name-public:" + name.toLowerCase();
+        return publicPages.execute(pageKey(key, pagination), () -> readOnly(() -> findSets(pagination, key,
+                pageRequest -> cardSetRepository.findByNameContainingIgnoreCaseAndType(name, SetType.PUBLIC, pageRequest),
+                pageRequest -> cardSetRepository.findSliceByNameContainingIgnoreCaseAndType(name, SetType.PUBLIC, pageRequest),
+                () -> cardSetRepository.countByNameContainingIgnoreCaseAndType(name, SetType.PUBLIC))));
     }
 
     @Override
-    public PaginationResponse<CardSetDto> getSetsByAuthorAndName(long authorId, String name, PaginationRequest pagination, Authentication auth) {
+    public PaginationResponse<CardSetSummaryDto> getSetsByAuthorAndName(long authorId, String name, PaginationRequest pagination, Authentication auth) {
         log.info("Get sets made by author with id {} and with name '{}'", authorId, name);
 
         User author = getUser(authorId);
         User authenticatedUser = getUser(auth);
 
-        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
-
-        Page<CardSet> sets;
         if (!author.equals(authenticatedUser)) {
             log.info("Get public sets of author with id {}", authorId);
-            sets = cardSetRepository.findByAuthorAndNameContainingIgnoreCaseAndType(author, name, SetType.PUBLIC, pageRequest);
-        } else {
-            log.info("Get all sets of author with id {}", authorId);
-            sets = cardSetRepository.findByAuthorAndNameContainingIgnoreCase(author, name, pageRequest);
+            return findSets(pagination, "author-name-public:" + authorId + ":" + name.toLowerCase(),
+                    pageRequest -> cardSetRepository.findByAuthorAndNameContainingIgnoreCaseAndType(author, name, SetType.PUBLIC, pageRequest),
+                    pageRequest -> cardSetRepository.findSliceByAuthorAndNameContainingIgnoreCaseAndType(author, name, SetType.PUBLIC, pageRequest),
+                    () -> cardSetRepository.countByAuthorAndNameContainingIgnoreCaseAndType(author, name, SetType.PUBLIC));
         }
 
-        Page<CardSetDto> setDtos = sets.map(mappers::mapCardSetToCardSetDto);
-        return new PaginationResponse<>(setDtos, pagination);
+        log.info("Get all sets of author with id {}", authorId);
+        return findSets(pagination, "author-name:" + authorId + ":" + name.toLowerCase(),
+                pageRequest -> cardSetRepository.findByAuthorAndNameContainingIgnoreCase(author, name, pageRequest),
+                pageRequest -> cardSetRepository.findSliceByAuthorAndNameContainingIgnoreCase(author, name, pageRequest),
+                () -> cardSetRepository.countByAuthorAndNameContainingIgnoreCase(author, name));
     }
 
     @Override
-    public PaginationResponse<CardSetDto> getPublicSets(PaginationRequest pagination) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PaginationResponse<CardSetSummaryDto> getPublicSets(PaginationRequest pagination) {
         log.info("Get public sets");
 
+        return publicPages.execute(pageKey("public", pagination), () -> readOnly(() -> findSets(pagination, "public",
+                pageRequest -> cardSetRepository.findByType(SetType.PUBLIC, pageRequest),
+                pageRequest -> cardSetRepository.findSliceByType(SetType.PUBLIC, pageRequest),
+                () -> cardSetRepository.countByType(SetType.PUBLIC))));
+    }
+
+    @Override
+    public CursorPaginationResponse<CardSetSummaryDto> getSetsByAuthor(long authorId, CursorPaginationRequest pagination, Authentication auth) {
+        log.info("Get sets made by author with id {} after cursor '{}'", authorId, pagination.getAfter());
+
+        PageCursor cursor = PageCursor.decode(pagination.getAfter());
+        PageRequest pageRequest = cursorPageRequest(pagination);
+
+        User author = getUser(authorId);
+        User authenticatedUser = getUser(auth);
+
+        List<CardSetSummaryDto> sets;
+        if (!author.equals(authenticatedUser)) {
+            sets = cardSetRepository.findByAuthorAndTypeAfter(author, SetType.PUBLIC, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+        } else {
+            sets = cardSetRepository.findByAuthorAfter(author, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+        }
+
+        return toCursorPage(sets, pagination);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CursorPaginationResponse<CardSetSummaryDto> getPublicSetsByName(String name, CursorPaginationRequest pagination) {
+        log.info("Get sets with name '{}' after cursor '{}'", name, pagination.getAfter());
+
+        PageCursor cursor = PageCursor.decode(pagination.getAfter());
+        PageRequest pageRequest = cursorPageRequest(pagination);
+
+        String key = "name-public:" + name.toLowerCase() + ":" + cursorKey(pagination);
+        return publicCursorPages.execute(key, () -> readOnly(() -> toCursorPage(cardSetRepository.findByNameAndTypeAfter(
+                name, SetType.PUBLIC, cursor.getCreatedAt(), cursor.getId(), pageRequest), pagination)));
+    }
+
+    @Override
+    public CursorPaginationResponse<CardSetSummaryDto> getSetsByAuthorAndName(long authorId, String name, CursorPaginationRequest pagination, Authentication auth) {
+        log.info("Get sets made by author with id {} and with name '{}' after cursor '{}'", authorId, name, pagination.getAfter());
+
+        PageCursor cursor = PageCursor.decode(pagination.getAfter());
+        PageRequest pageRequest = cursorPageRequest(pagination);
+
+        User author = getUser(authorId);
+        User authenticatedUser = getUser(auth);
+
+        List<CardSetSummaryDto> sets;
+        if (!author.equals(authenticatedUser)) {
+            sets = cardSetRepository.findByAuthorAndNameAndTypeAfter(author, name, SetType.PUBLIC, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+        } else {
+            sets = cardSetRepository.findByAuthorAndNameAfter(author, name, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+        }
+
+        return toCursorPage(sets, pagination);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CursorPaginationResponse<CardSetSummaryDto> getPublicSets(CursorPaginationRequest pagination) {
+        log.info("Get public sets after cursor '{}'", pagination.getAfter());
+
+        PageCursor cursor = PageCursor.decode(pagination.getAfter());
+        PageRequest pageRequest = cursorPageRequest(pagination);
+
+        return publicCursorPages.execute("public:" + cursorKey(pagination), () -> readOnly(() -> toCursorPage(
+                cardSetRepository.findByTypeAfter(SetType.PUBLIC, cursor.getCreatedAt(), cursor.getId(), pageRequest), pagination)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginationResponse<CardSetSummaryDto> searchPublicSets(String query, PaginationRequest pagination) {
+        log.info("Search public sets for '{}'", query);
+
+        if (pagination.getPage() < 0 || pagination.getSize() < 1 || pagination.getSize() > MAX_PAGE_SIZE) {
+            log.error("Invalid page {} of size {}", pagination.getPage(), pagination.getSize());
+            throw new IllegalArgumentException(String.format("Page must not be negative and size must be between 1 and %s", MAX_PAGE_SIZE));
+        }
+
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
-        Page<CardSetDto> setDtos = cardSetRepository.findByType(SetType.PUBLIC, pageRequest)
-                .map(mappers::mapCardSetToCardSetDto);
+        int offset = (int) Math.min(pageRequest.getOffset(), Integer.MAX_VALUE - MAX_PAGE_SIZE);
+        SetSearchIndex.SearchResult result = searchIndex.search(query, offset, pageRequest.getPageSize());
+
+        List<CardSetSummaryDto> sets = new ArrayList<>(result.getSetIds().size());
+        if (!result.getSetIds().isEmpty()) {
+            Map<Long, CardSetSummaryDto> found = cardSetRepository.findSummariesByIdIn(result.getSetIds()).stream()
+                    .collect(Collectors.toMap(CardSetSummaryDto::getId, Function.identity()));
+
+            result.getSetIds().stream()
+                    .map(found::get)
+                    .filter(set -> set != null && set.getType() == SetType.PUBLIC)
+                    .forEach(sets::add);
+        }
 
-        return new PaginationResponse<>(setDtos, pagination);
+        // Sets that were removed or made private since they were indexed don't count, on every page alike
+        long total = result.getTotal() - (result.getSetIds().size() - sets.size());
+        return new PaginationResponse<>(new PageImpl<>(sets, pageRequest, total), pagination);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SetSuggestionDto> suggestPublicSets(String prefix, int limit) {
+        if (limit < 1 || limit > SetNameTrie.MAX_SUGGESTIONS) {
+            log.error("Invalid number of suggestions: {}", limit);
+            throw new IllegalArgumentException(String.format("Limit must be between 1 and %s", SetNameTrie.MAX_SUGGESTIONS));
+        }
+
+        return nameTrie.suggest(prefix, limit).stream()
+                .map(suggestion -> new SetSuggestionDto(suggestion.getSetId(), suggestion.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Keep the set in the search index and the name trie if it is public.
+     * A set that becomes public is indexed with all its cards. Whether the set is indexed already is decided
+     * after commit, when the index can't change under a concurrent update of the same set anymore
+     *
+     * @param set saved set
+     */
+    private void updateSearchIndex(CardSet set) {
+        long id = set.getId();
+        if (set.isPrivate()) {
+            AfterCommit.run(() -> {
+                searchIndex.removeSet(id);
+                nameTrie.removeSet(id);
+            });
+            return;
+        }
+
+        String name = set.getName();
+        String description = set.getDescription();
+        List<Card> cards = set.getCards() == null ? List.of() : List.copyOf(set.getCards());
+        AfterCommit.run(() -> {
+            boolean indexed = searchIndex.contains(id);
+            searchIndex.putSet(id, name, description);
+            nameTrie.putSet(id, name);
+            if (!indexed) {
+                cards.forEach(card -> searchIndex.addCard(id, card.getFront(), card.getBack()));
+            }
+        });
+    }
+
+    /**
+     * Let the next requests of public pages query them again instead of waiting for a query that may have
+     * started before the change. Call after commit
+     */
+    private void forgetPublicPages() {
+        publicPages.forgetAll();
+        publicCursorPages.forgetAll();
+    }
+
+    /**
+     * Fetch a page of sets. Depending on the count mode of the request the total is counted on every request,
+     * taken from the count cache or not computed at all
+     *
+     * @param pagination pagination request
+     * @param countKey   key of the count in the count cache
+     * @param pageQuery  query of the page with a count
+     * @param sliceQuery query of the page without a count
+     * @param count      count query
+     * @return page of sets
+     */
+    private PaginationResponse<CardSetSummaryDto> findSets(PaginationRequest pagination, String countKey,
+                                                           Function<Pageable, Page<CardSetSummaryDto>> pageQuery,
+                                                           Function<Pageable, Slice<CardSetSummaryDto>> sliceQuery,
+                                                           LongSupplier count) {
+        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
+
+        switch (pagination.getCountMode()) {
+            case NONE:
+                return new PaginationResponse<>(sliceQuery.apply(pageRequest), pagination, null);
+            case APPROXIMATE:
+                return new PaginationResponse<>(sliceQuery.apply(pageRequest), pagination, countCache.get(countKey, count));
+            default:
+                return new PaginationResponse<>(pageQuery.apply(pageRequest), pagination);
+        }
+    }
+
+    /**
+     * One extra set is fetched to find out whether there is a next page without counting the sets
+     */
+    private PageRequest cursorPageRequest(CursorPaginationRequest pagination) {
+        if (pagination.getSize() < 1 || pagination.getSize() > MAX_PAGE_SIZE) {
+            log.error("Invalid page size: {}", pagination.getSize());
+            throw new IllegalArgumentException(String.format("Page size must be between 1 and %s", MAX_PAGE_SIZE));
+        }
+
+        return PageRequest.of(0, pagination.getSize() + 1);
+    }
+
+    private CursorPaginationResponse<CardSetSummaryDto> toCursorPage(List<CardSetSummaryDto> sets, CursorPaginationRequest pagination) {
+        String next = null;
+        if (sets.size() > pagination.getSize()) {
+            sets = sets.subList(0, pagination.getSize());
+
+            CardSetSummaryDto last = sets.get(sets.size() - 1);
+            next = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new CursorPaginationResponse<>(sets, next);
     }
 
     private Set<Card> mapCards(CardSet cardSet, Set<CardDto> cardsDto) {
@@ -179,7 +547,6 @@ public class CardSetServiceImpl implements CardSetService {
     private Card mapCard(CardSet cardSet, CardDto cardDto) {
         Card card = mappers.mapCardDtoToCard(cardDto);
         card.setSet(cardSet);
-        card.setDifficulty(Difficulty.HARD);
         card.setCreatedAt(LocalDateTime.now());
 
         return card;
@@ -188,7 +555,7 @@ public class CardSetServiceImpl implements CardSetService {
     private CardSet getSetAndVerifyAuthor(long id, Authentication auth) {
         User user = getUser(auth);
 
-        Optional<CardSet> optionalCardSet = cardSetRepository.findById(id);
+        Optional<CardSet> optionalCardSet = cardSetRepository.findWithAuthorById(id);
         if (optionalCardSet.isEmpty()) {
             log.error("Set with id {} doesn't exist", id);
             throw new ResourceNotFound(id, CardSet.class);
@@ -207,6 +574,29 @@ public class CardSetServiceImpl implements CardSetService {
         return userRepository.findById(id).orElseThrow(() -> new ResourceNotFound(id, User.class));
     }
 
+    private boolean isAuthor(long authorId, Authentication auth) {
+        return userRepository.findByEmail(auth.getName()).filter(user -> user.getId() == authorId).isPresent();
+    }
+
+    /**
+     * Run the query in its own read-only transaction. Used by the loads shared with concurrent requests,
+     * so the requests waiting for them don't hold a transaction
+     */
+    private <T> T readOnly(Supplier<T> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        return transaction.execute(status -> query.get());
+    }
+
+    private static String pageKey(String key, PaginationRequest pagination) {
+        return key + ":" + pagination.getPage() + ":" + pagination.getSize() + ":" + pagination.getCountMode();
+    }
+
+    private static String cursorKey(CursorPaginationRequest pagination) {
+        return pagination.getAfter() + ":" + pagination.getSize();
+    }
+
     private User getUser(Authentication auth) {
         String email = auth.getName();
 
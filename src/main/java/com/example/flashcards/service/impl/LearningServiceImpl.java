@@ -1,27 +1,57 @@
 package com.example.flashcards.service.impl;
 
 import com.example.flashcards.dto.learning.QuestionDto;
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.learning.DueCountDto;
 import com.example.flashcards.dto.learning.QuestionAnswerDto;
 import com.example.flashcards.exceptions.ResourceNotAccessible;
 import com.example.flashcards.exceptions.ResourceNotFound;
 import com.example.flashcards.model.*;
+import com.example.flashcards.model.learning.CardProgress;
 import com.example.flashcards.model.learning.CardSide;
 import com.example.flashcards.model.learning.Difficulty;
 import com.example.flashcards.model.learning.Question;
+import com.example.flashcards.repository.CardProgressRepository;
+import com.example.flashcards.repository.CardRepository;
 import com.example.flashcards.repository.CardSetRepository;
 import com.example.flashcards.repository.QuestionRepository;
 import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.repository.projection.IdRange;
+import com.example.flashcards.repository.projection.SetRevision;
+import com.example.flashcards.repository.projection.StudyCard;
 import com.example.flashcards.service.LearningService;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.CardSampler;
+import com.example.flashcards.service.learning.CardText;
+import com.example.flashcards.service.learning.LearningSession;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.learning.SpacedRepetitionScheduler;
+import com.example.flashcards.service.utils.AfterCommit;
 import com.example.flashcards.service.utils.DtoMappers;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -30,22 +60,39 @@ import java.util.stream.Collectors;
 @Transactional
 public class LearningServiceImpl implements LearningService {
     private final CardSetRepository setRepository;
+    private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final QuestionRepository questionRepository;
+    private final CardProgressRepository progressRepository;
+    private final LearningSessionCache sessions;
+    private final CardCounts counts;
+    private final SpacedRepetitionScheduler scheduler;
     private final DtoMappers mappers;
 
+    private final PlatformTransactionManager transactionManager;
+
     private static final int NUMBER_OF_ANSWER_OPTIONS = 4;
+    private static final int MAX_QUIZ_SIZE = 50;
+    private static final int MAX_BATCH_SIZE = 200;
+    private static final int MAX_SELECTION_ATTEMPTS = 10;
+    private static final int MAX_ANSWER_ATTEMPTS = 2;
+    private static final PageRequest FIRST = PageRequest.of(0, 1);
 
     @Override
-    public QuestionDto submitQuestionAnswer(long questionId, QuestionAnswerDto questionAnswerDto, Authentication auth) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public QuestionDto submitQuestionAnswer(long questionId, QuestionAnswerDto questionAnswerDto, boolean next, Authentication auth) {
         log.info("Verify answer {} for question with id {}", questionAnswerDto, questionId);
 
+        return retryOnConflict(() -> verifyQuestionAnswer(questionId, questionAnswerDto, next, auth));
+    }
+
+    private QuestionDto verifyQuestionAnswer(long questionId, QuestionAnswerDto questionAnswerDto, boolean next, Authentication auth) {
         Question question = getQuestion(questionId);
 
-        User user = getUser(auth);
-        if (!question.getUser().equals(user)) {
-            log.error("User {} doesn't have access to question with id {}", user.getId(), questionId);
-            throw new ResourceNotAccessible(question, user, Question.class);
+        User user = question.getUser();
+        if (!user.getUsername().equals(auth.getName())) {
+            log.error("User {} doesn't have access to question with id {}", auth.getName(), questionId);
+            throw new ResourceNotAccessible(questionId, Question.class);
         }
 
         if (question.isClosed()) {
@@ -53,34 +100,177 @@ public class LearningServiceImpl implements LearningService {
             throw new IllegalStateException("Question is already closed");
         }
 
-        return verifyAnswer(question, questionAnswerDto);
+        QuestionDto result = verifyAnswers(user, List.of(question), List.of(questionAnswerDto)).get(0);
+        if (next) {
+            long setId = question.getCard().getSet().getId();
+            log.info("Create next question for set with id: {}", setId);
+
+            Question nextQuestion = buildQuestions(setId, auth, 1, question.getCardSide()).get(0);
+            result.setNext(mappers.mapQuestionToQuestionDto(questionRepository.save(nextQuestion)));
+        }
+
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<QuestionDto> submitQuestionAnswers(List<QuestionAnswerDto> answers, Authentication auth) {
+        log.info("Verify {} answers", answers.size());
+
+        if (answers.isEmpty() || answers.size() > MAX_BATCH_SIZE) {
+            log.error("Invalid number of answers: {}", answers.size());
+            throw new IllegalArgumentException(String.format("Number of answers must be between 1 and %s", MAX_BATCH_SIZE));
+        }
+
+        Set<Long> questionIds = new HashSet<>();
+        for (QuestionAnswerDto answer : answers) {
+            if (answer.getQuestionId() == null || !questionIds.add(answer.getQuestionId())) {
+                log.error("Answer {} has missing or duplicate question id", answer);
+                throw new IllegalArgumentException("Every answer must have a distinct question id");
+            }
+        }
+
+        return retryOnConflict(() -> verifyQuestionAnswers(questionIds, answers, auth));
+    }
+
+    private List<QuestionDto> verifyQuestionAnswers(Set<Long> questionIds, List<QuestionAnswerDto> answers, Authentication auth) {
+        Map<Long, Question> questions = questionRepository.findByIdIn(questionIds).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+
+        for (Long questionId : questionIds) {
+            Question question = questions.get(questionId);
+            if (question == null) {
+                log.error("Question with id {} doesn't exist", questionId);
+                throw new ResourceNotFound(questionId, Question.class);
+            }
+
+            if (!question.getUser().getUsername().equals(auth.getName())) {
+                log.error("User {} doesn't have access to question with id {}", auth.getName(), questionId);
+                throw new ResourceNotAccessible(questionId, Question.class);
+            }
+
+            if (question.isClosed()) {
+                log.error("Question with id {} is already closed", questionId);
+                throw new IllegalStateException(String.format("Question %s is already closed", questionId));
+            }
+        }
+
+        List<Question> answered = answers.stream()
+                .map(answer -> questions.get(answer.getQuestionId()))
+                .collect(Collectors.toList());
+
+        return verifyAnswers(answered.get(0).getUser(), answered, answers);
     }
 
     @Override
     public QuestionDto createQuestion(long setId, QuestionDto questionDto, Authentication auth) {
         log.info("Create study question for set with id: {}", setId);
 
+        Question question = buildQuestions(setId, auth, 1, questionDto.getCardSide()).get(0);
+        question = questionRepository.save(question);
+
+        return mappers.mapQuestionToQuestionDto(question);
+    }
+
+    @Override
+    public List<QuestionDto> createQuiz(long setId, int size, QuestionDto questionDto, Authentication auth) {
+        log.info("Create quiz of {} questions for set with id: {}", size, setId);
+
+        if (size < 1 || size > MAX_QUIZ_SIZE) {
+            log.error("Invalid quiz size: {}", size);
+            throw new IllegalArgumentException(String.format("Quiz size must be between 1 and %s", MAX_QUIZ_SIZE));
+        }
+
+        List<Question> questions = buildQuestions(setId, auth, size, questionDto.getCardSide());
+        questions = questionRepository.saveAll(questions);
+
+        return questions.stream().map(mappers::mapQuestionToQuestionDto).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<CardDto> getDueCards(long setId, int limit, Authentication auth) {
+        log.info("Get {} due cards of set with id: {}", limit, setId);
+
+        if (limit < 1 || limit > MAX_QUIZ_SIZE) {
+            log.error("Invalid number of due cards: {}", limit);
+            throw new IllegalArgumentException(String.format("Number of due cards must be between 1 and %s", MAX_QUIZ_SIZE));
+        }
+
         CardSet set = getSet(setId);
         User user = getUser(auth);
 
-        if (!set.getAuthor().equals(user)) {
-            log.error("User {} is not the author of the set {}", auth.getName(), setId);
-            throw new ResourceNotAccessible(set, user, CardSet.class);
+        verifyAccess(set, user);
+
+        List<Card> cards = new ArrayList<>(progressRepository.findDueCards(user.getId(), setId, LocalDateTime.now(), PageRequest.of(0, limit)));
+        if (cards.size() < limit) {
+            cards.addAll(cardRepository.findUnseenBySetId(setId, user.getId(), PageRequest.of(0, limit - cards.size())));
         }
 
-        List<Card> cards = new ArrayList<>(set.getCards());
-        if (cards.isEmpty()) {
-            log.error("Set is empty");
-            throw new IllegalStateException(String.format("Set %s is empty", setId));
+        return cards.stream().map(mappers::mapCardToCardDto).collect(Collectors.toList());
+    }
+
+    @Override
+    public DueCountDto countDueCards(long setId, Authentication auth) {
+        log.info("Count due cards of set with id: {}", setId);
+
+        CardSet set = getSet(setId);
+        User user = getUser(auth);
+
+        verifyAccess(set, user);
+
+        long due = progressRepository.countByUserIdAndSetIdAndDueAtLessThanEqual(user.getId(), setId, LocalDateTime.now());
+        long reviewed = progressRepository.countByUserIdAndSetId(user.getId(), setId);
+        long unseen = Math.max(0, counts.countCards(setId) - reviewed);
+
+        return DueCountDto.builder().due(due).unseen(unseen).build();
+    }
+
+    private List<QuestionDto> verifyAnswers(User user, List<Question> questions, List<QuestionAnswerDto> answers) {
+        resolveTexts(user, questions);
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, CardProgress> progresses = getProgresses(user, questions, now);
+        Map<Long, Difficulty> previous = new HashMap<>();
+        progresses.values().stream()
+                .filter(progress -> progress.getId() != 0)
+                .forEach(progress -> previous.put(progress.getCardId(), progress.getDifficulty()));
+
+        List<QuestionDto> results = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            Question question = questions.get(i);
+            CardProgress progress = progresses.get(question.getCard().getId());
+
+            results.add(verifyAnswer(question, answers.get(i), progress, now));
         }
 
-        Question question = buildQuestion(user, cards, questionDto.getCardSide());
-        question = questionRepository.save(question);
+        progressRepository.saveAllAndFlush(progresses.values());
+        AfterCommit.run(() -> progresses.values().forEach(progress -> {
+            sessions.updateProgress(user.getUsername(), progress);
+            counts.difficultyChanged(progress.getSetId(), user.getId(), previous.get(progress.getCardId()), progress.getDifficulty());
+        }));
 
-        return mappers.mapQuestionToQuestionDto(question);
+        return results;
+    }
+
+    /**
+     * The first answer about a card creates its progress. When two first answers of the same card race,
+     * the unique constraint rejects one of them, which then runs again in a new transaction and finds the progress
+     */
+    private <T> T retryOnConflict(Supplier<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return template.execute(status -> action.get());
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_ANSWER_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Progress of the answered cards was created concurrently, verify answers again: {}", e.getMessage());
+            }
+        }
     }
 
-    private QuestionDto verifyAnswer(Question question, QuestionAnswerDto questionAnswerDto) {
+    private QuestionDto verifyAnswer(Question question, QuestionAnswerDto questionAnswerDto, CardProgress progress, LocalDateTime now) {
         log.info("Verify question answer. Answer: {}. Correct answer: {}", questionAnswerDto.getAnswer(), question.getCorrectAnswer());
 
         String correctAnswer = question.getCorrectAnswer();
@@ -88,133 +278,319 @@ public class LearningServiceImpl implements LearningService {
 
         if (correctAnswer.equals(answer)) {
             log.info("Provided answer is correct");
-            decrementCardDifficulty(question.getCard());
+            decrementDifficulty(progress);
             question.setCorrect(true);
         } else {
             log.info("Provided answer isn't correct");
-            incrementCardDifficulty(question.getCard());
+            incrementDifficulty(progress);
             question.setCorrect(false);
         }
+        scheduler.review(progress, question.isCorrect(), now);
 
         question.setAnswer(answer);
-        question.setAnsweredAt(LocalDateTime.now());
+        question.setAnsweredAt(now);
 
         return mappers.mapQuestionToQuestionDto(question);
     }
 
-    private Question buildQuestion(User user, List<Card> cards, CardSide side) {
-        Card card = selectCardToStudy(cards);
-        List<Card> answerOptions = getAnswerOptions(cards, card);
+    private Map<Long, CardProgress> getProgresses(User user, List<Question> questions, LocalDateTime now) {
+        Set<Long> cardIds = questions.stream().map(question -> question.getCard().getId()).collect(Collectors.toSet());
+
+        Map<Long, CardProgress> progresses = progressRepository.findByUserIdAndCardIdIn(user.getId(), cardIds).stream()
+                .collect(Collectors.toMap(CardProgress::getCardId, Function.identity()));
+        for (Question question : questions) {
+            Card card = question.getCard();
+            progresses.computeIfAbsent(card.getId(), cardId -> scheduler.start(user.getId(), card.getSet().getId(), cardId, now));
+        }
+
+        return progresses;
+    }
+
+    private List<Question> buildQuestions(long setId, Authentication auth, int count, CardSide side) {
+        Optional<LearningSession> session = sessions.find(setId, auth.getName());
+        if (session.isPresent()) {
+            verifySessionAccess(session.get());
+            return buildQuestions(session.get(), count, side);
+        }
 
-        String cardQuestion = getQuestion(card, side);
-        String correctAnswer = getCorrectAnswer(card, side);
-        List<String> options = getOptions(answerOptions, side);
+        CardSet set = getSet(setId);
+        User user = getUser(auth);
 
-        return Question.builder()
-                .user(user).card(card)
-                .cardSide(side)
-                .question(cardQuestion)
-                .correctAnswer(correctAnswer)
-                .options(options).build();
+        verifyAccess(set, user);
+
+        Map<Difficulty, Long> difficulties = counts.countByDifficulty(set.getId(), user.getId());
+        long total = difficulties.values().stream().mapToLong(Long::longValue).sum();
+        if (total == 0) {
+            log.error("Set is empty");
+            throw new IllegalStateException(String.format("Set %s is empty", set.getId()));
+        }
+
+        if (sessions.canHold(total)) {
+            List<StudyCard> cards = cardRepository.findStudyCardsBySetId(set.getId(), user.getId());
+            LearningSession created = sessions.create(set.getId(), user.getId(), user.getUsername(), cards);
+            return buildQuestions(created, count, side);
+        }
+
+        return queryQuestions(user, set, difficulties, total, count, side);
+    }
+
+    private List<Question> buildQuestions(LearningSession session, int count, CardSide side) {
+        CardSampler sampler = session.getSampler();
+        if (sampler.isEmpty()) {
+            log.error("Set is empty");
+            throw new IllegalStateException(String.format("Set %s is empty", session.getSetId()));
+        }
+
+        User user = userRepository.getReferenceById(session.getUserId());
+        long[] cardIds = sampler.selectCardsToStudy(count);
+
+        List<Question> questions = new ArrayList<>(count);
+        for (long cardId : cardIds) {
+            long[] optionIds = sampler.selectAnswerOptions(cardId, NUMBER_OF_ANSWER_OPTIONS);
+            for (long id : optionIds) {
+                verifySessionCard(session, id);
+            }
+
+            Question question = Question.builder()
+                    .user(user).card(cardRepository.getReferenceById(cardId))
+                    .cardSide(side)
+                    .optionIds(optionIds)
+                    .createdAt(LocalDateTime.now()).build();
+            setTexts(question, cardId, session.getCards());
+
+            questions.add(question);
+        }
+
+        return questions;
     }
 
-    private String getQuestion(Card card, CardSide side) {
-        return side == CardSide.BACK ? card.getBack() : card.getFront();
+    /**
+     * Access was checked when the session was created, but the set may have been made private since.
+     * Only the type and the author of the set are read, the cards stay in the session
+     */
+    private void verifySessionAccess(LearningSession session) {
+        long setId = session.getSetId();
+        SetRevision revision = setRepository.findRevisionById(setId).orElseThrow(() -> {
+            sessions.evict(setId);
+            return new ResourceNotFound(setId, CardSet.class);
+        });
+
+        if (revision.getType() == SetType.PRIVATE && revision.getAuthorId() != session.getUserId()) {
+            log.error("User {} no longer has access to the set {}", session.getUserId(), setId);
+            sessions.evict(setId);
+            throw new ResourceNotAccessible(setId, CardSet.class);
+        }
     }
 
-    private String getCorrectAnswer(Card card, CardSide side) {
-        return side == CardSide.BACK ? card.getFront() : card.getBack();
+    private void verifySessionCard(LearningSession session, long cardId) {
+        if (session.getCard(cardId) == null) {
+            log.error("Card with id {} is missing in the learning session of set {}", cardId, session.getSetId());
+            sessions.evict(session.getSetId());
+            throw new IllegalStateException("Selected cards are no longer available");
+        }
     }
 
-    private List<String> getOptions(List<Card> cardOptions, CardSide side) {
-        Function<Card, String> mapper = side == CardSide.BACK ? Card::getFront : Card::getBack;
+    private List<Question> queryQuestions(User user, CardSet set, Map<Difficulty, Long> difficulties, long total, int count, CardSide side) {
+        log.debug("Select {} cards of the set with id {} in the database", count, set.getId());
+
+        IdRange range = cardRepository.findIdRangeBySetId(set.getId());
+        if (range.getMin() == null) {
+            log.error("Set with id {} was emptied while selecting cards", set.getId());
+            throw new IllegalStateException("Cards of the set were modified. Try again");
+        }
+
+        List<Question> questions = new ArrayList<>(count);
+        Set<Long> studied = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            Card card = selectCardToStudy(user, set, difficulties, range);
+            for (int attempt = 1; attempt < MAX_SELECTION_ATTEMPTS && studied.size() < total && studied.contains(card.getId()); attempt++) {
+                card = selectCardToStudy(user, set, difficulties, range);
+            }
+            studied.add(card.getId());
+
+            List<Card> answerOptions = selectAnswerOptions(set, card, total, range);
+            questions.add(buildQuestion(user, card, answerOptions, side));
+        }
 
-        return cardOptions.stream().map(mapper).collect(Collectors.toList());
+        return questions;
     }
 
-    private Card selectCardToStudy(List<Card> cards) {
-        Map<Difficulty, List<Card>> buckets = groupByDifficulty(cards);
+    private Question buildQuestion(User user, Card card, List<Card> answerOptions, CardSide side) {
+        Map<Long, CardText> texts = new HashMap<>();
+        texts.put(card.getId(), CardText.of(card));
+        answerOptions.forEach(option -> texts.put(option.getId(), CardText.of(option)));
 
-        double random = Math.random();
-        if(random <= Difficulty.HARD.getDistribution()) {
-            if(buckets.containsKey(Difficulty.HARD)) {
-                return selectRandomCard(buckets.get(Difficulty.HARD));
-            } else if(buckets.containsKey(Difficulty.GOOD)) {
-                return selectRandomCard(buckets.get(Difficulty.GOOD));
-            } else {
-                return selectRandomCard(buckets.get(Difficulty.EASY));
+        Question question = Question.builder()
+                .user(user).card(card)
+                .cardSide(side)
+                .optionIds(answerOptions.stream().mapToLong(Card::getId).toArray())
+                .createdAt(LocalDateTime.now()).build();
+        setTexts(question, card.getId(), texts);
+
+        return question;
+    }
+
+    /**
+     * Resolve option texts of the loaded questions from the learning sessions or from the database.
+     * Questions asked before their texts were stored take them from the current card
+     */
+    private void resolveTexts(User user, List<Question> questions) {
+        Map<Long, CardText> texts = new HashMap<>();
+        for (Question question : questions) {
+            Card card = question.getCard();
+            texts.put(card.getId(), CardText.of(card));
+
+            Optional<LearningSession> session = sessions.find(card.getSet().getId(), user.getUsername());
+            for (long optionId : question.getOptionIds()) {
+                session.map(active -> active.getCard(optionId)).ifPresent(text -> texts.put(optionId, text));
             }
-        } else if(random < Difficulty.GOOD.getDistribution()) {
-            if(buckets.containsKey(Difficulty.GOOD)) {
-                return selectRandomCard(buckets.get(Difficulty.GOOD));
-            } else if(buckets.containsKey(Difficulty.HARD)) {
-                return selectRandomCard(buckets.get(Difficulty.HARD));
-            } else {
-                return selectRandomCard(buckets.get(Difficulty.EASY));
+        }
+
+        Set<Long> missing = questions.stream()
+                .flatMap(question -> Arrays.stream(question.getOptionIds()).boxed())
+                .filter(id -> !texts.containsKey(id))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            cardRepository.findAllById(missing).forEach(card -> texts.put(card.getId(), CardText.of(card)));
+        }
+
+        for (Question question : questions) {
+            if (question.getCorrectAnswer() == null) {
+                setAskedTexts(question, texts.get(question.getCard().getId()));
             }
-        } else {
-            if(buckets.containsKey(Difficulty.EASY)) {
-                return selectRandomCard(buckets.get(Difficulty.EASY));
-            } else if(buckets.containsKey(Difficulty.GOOD)) {
-                return selectRandomCard(buckets.get(Difficulty.GOOD));
+            setOptions(question, texts);
+        }
+    }
+
+    private void setTexts(Question question, long cardId, Map<Long, CardText> texts) {
+        setAskedTexts(question, texts.get(cardId));
+        setOptions(question, texts);
+    }
+
+    private static void setAskedTexts(Question question, CardText card) {
+        CardSide side = question.getCardSide();
+
+        question.setQuestion(card.getSide(side));
+        question.setCorrectAnswer(card.getSide(side.opposite()));
+    }
+
+    /**
+     * The option of the question's own card is the correct answer as it was asked. A question whose other
+     * option cards were deleted can't be shown as it was asked, so it's rejected
+     */
+    private static void setOptions(Question question, Map<Long, CardText> texts) {
+        CardSide side = question.getCardSide();
+        long cardId = question.getCard().getId();
+
+        List<String> options = new ArrayList<>(question.getOptionIds().length);
+        for (long optionId : question.getOptionIds()) {
+            CardText option = texts.get(optionId);
+            if (optionId == cardId) {
+                options.add(question.getCorrectAnswer());
+            } else if (option != null) {
+                options.add(option.getSide(side.opposite()));
             } else {
-                return selectRandomCard(buckets.get(Difficulty.HARD));
+                log.error("Answer option {} of question {} was deleted", optionId, question.getId());
+                throw new IllegalStateException(String.format("Answer options of question %s were deleted, create a new question", question.getId()));
             }
         }
+
+        question.setOptions(options);
     }
 
-    private static Map<Difficulty, List<Card>> groupByDifficulty(List<Card> cards) {
-        return cards.stream().collect(Collectors.groupingBy(Card::getDifficulty));
+    /**
+     * Pick a random id of the set's id range and take the first card of the difficulty at or after it,
+     * wrapping around to the start of the range. Unlike a random offset it's a single index seek
+     */
+    private Card selectCardToStudy(User user, CardSet set, Map<Difficulty, Long> difficulties, IdRange range) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (Difficulty difficulty : CardSampler.preferenceOrder(random.nextDouble())) {
+            long count = difficulties.getOrDefault(difficulty, 0L);
+            if (count == 0) {
+                continue;
+            }
+
+            boolean unseen = difficulty == Difficulty.HARD;
+            long pick = randomId(random, range);
+            List<Card> cards = cardRepository.findBySetIdAndDifficultyFrom(set.getId(), user.getId(), difficulty, unseen, pick, FIRST);
+            if (cards.isEmpty() && pick > range.getMin()) {
+                cards = cardRepository.findBySetIdAndDifficultyFrom(set.getId(), user.getId(), difficulty, unseen, range.getMin(), FIRST);
+            }
+            if (!cards.isEmpty()) {
+                return cards.get(0);
+            }
+        }
+
+        log.error("Couldn't select card of the set with id {}", set.getId());
+        throw new IllegalStateException("Cards of the set were modified. Try again");
     }
 
-    private List<Card> getAnswerOptions(List<Card> cards, Card card) {
-        List<Card> options = new ArrayList<>();
+    private List<Card> selectAnswerOptions(CardSet set, Card card, long total, IdRange range) {
+        int size = (int) Math.min(total, NUMBER_OF_ANSWER_OPTIONS);
+        List<Card> options = new ArrayList<>(size);
         options.add(card);
 
-        int size = Math.min(cards.size(), NUMBER_OF_ANSWER_OPTIONS);
-        while (options.size() != size) {
-            Card option = selectRandomCard(cards);
+        Set<Long> selected = new HashSet<>();
+        selected.add(card.getId());
 
-            if (!options.contains(option)) {
-                options.add(option);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (options.size() < size) {
+            long pick = randomId(random, range);
+            List<Card> option = cardRepository.findBySetIdAndIdNotInFrom(set.getId(), selected, pick, FIRST);
+            if (option.isEmpty() && pick > range.getMin()) {
+                option = cardRepository.findBySetIdAndIdNotInFrom(set.getId(), selected, range.getMin(), FIRST);
             }
+            if (option.isEmpty()) {
+                log.warn("Set with id {} has fewer cards than expected, use {} answer options", set.getId(), options.size());
+                break;
+            }
+
+            options.add(option.get(0));
+            selected.add(option.get(0).getId());
         }
 
         Collections.shuffle(options);
         return options;
     }
 
-    private static Card selectRandomCard(List<Card> cards) {
-        return cards.get(new Random().nextInt(cards.size()));
+    private static long randomId(ThreadLocalRandom random, IdRange range) {
+        return random.nextLong(range.getMin(), range.getMax() + 1);
     }
 
-    private void decrementCardDifficulty(Card card) {
-        Difficulty difficulty = card.getDifficulty();
+    private void decrementDifficulty(CardProgress progress) {
+        Difficulty difficulty = progress.getDifficulty();
 
         if (difficulty == Difficulty.HARD) {
-            card.setDifficulty(Difficulty.GOOD);
+            progress.setDifficulty(Difficulty.GOOD);
         } else if(difficulty == Difficulty.GOOD) {
-            card.setDifficulty(Difficulty.EASY);
+            progress.setDifficulty(Difficulty.EASY);
         }
     }
 
-    private void incrementCardDifficulty(Card card) {
-        Difficulty difficulty = card.getDifficulty();
+    private void incrementDifficulty(CardProgress progress) {
+        Difficulty difficulty = progress.getDifficulty();
 
         if (difficulty == Difficulty.GOOD) {
-            card.setDifficulty(Difficulty.HARD);
+            progress.setDifficulty(Difficulty.HARD);
         } else if(difficulty == Difficulty.EASY) {
-            card.setDifficulty(Difficulty.GOOD);
+            progress.setDifficulty(Difficulty.GOOD);
+        }
+    }
+
+    private void verifyAccess(CardSet set, User user) {
+        if (set.isPrivate() && !set.getAuthor().equals(user)) {
+            log.error("User {} doesn't have access to the set {}", user.getId(), set.getId());
+            throw new ResourceNotAccessible(set, user, CardSet.class);
         }
     }
 
     private Question getQuestion(long questionId) {
-        return questionRepository.findById(questionId)
+        return questionRepository.findWithCardById(questionId)
                 .orElseThrow(() -> new ResourceNotFound(questionId, Question.class));
     }
 
     private CardSet getSet(long setId) {
-        return setRepository.findById(setId)
+        return setRepository.findWithAuthorById(setId)
                 .orElseThrow(() -> new ResourceNotFound(setId, CardSet.class));
     }
 
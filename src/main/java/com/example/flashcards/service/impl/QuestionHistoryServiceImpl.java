@@ -0,0 +1,139 @@
+package com.example.flashcards.service.impl;
+
+import com.example.flashcards.dto.learning.DailyStatsDto;
+import com.example.flashcards.exceptions.ResourceNotFound;
+import com.example.flashcards.model.User;
+import com.example.flashcards.model.learning.QuestionRollup;
+import com.example.flashcards.model.learning.QuestionStats;
+import com.example.flashcards.repository.QuestionRepository;
+import com.example.flashcards.repository.QuestionRollupRepository;
+import com.example.flashcards.repository.QuestionStatsRepository;
+import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.repository.projection.AnswerCount;
+import com.example.flashcards.repository.projection.DailyAnswerCount;
+import com.example.flashcards.service.QuestionHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Transactional
+public class QuestionHistoryServiceImpl implements QuestionHistoryService {
+    private final QuestionRepository questionRepository;
+    private final QuestionStatsRepository statsRepository;
+    private final QuestionRollupRepository rollupRepository;
+    private final UserRepository userRepository;
+
+    private static final int MAX_STATS_DAYS = 366;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyStatsDto> getDailyStats(int days, Authentication auth) {
+        log.info("Get daily statistics for the last {} days", days);
+
+        if (days < 1 || days > MAX_STATS_DAYS) {
+            log.error("Invalid number of days: {}", days);
+            throw new IllegalArgumentException(String.format("Number of days must be between 1 and %s", MAX_STATS_DAYS));
+        }
+
+        User user = getUser(auth);
+        LocalDate from = LocalDate.now().minusDays(days - 1);
+
+        Map<LocalDate, DailyStatsDto> stats = new TreeMap<>();
+        statsRepository.countDailyAnswers(user.getId(), from).forEach(count -> addCount(stats, count));
+        questionRepository.countDailyAnswers(user.getId(), from.atStartOfDay()).forEach(count -> addCount(stats, count));
+
+        return new ArrayList<>(stats.values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LocalDate> findOldestDay(LocalDate before) {
+        return Optional.ofNullable(questionRepository.findOldestAnswerBefore(before.atStartOfDay()))
+                .map(LocalDateTime::toLocalDate);
+    }
+
+    /**
+     * The rollup progress is locked until the transaction ends, so instances running the job at the same time
+     * roll up every day once. A day that was already rolled up is skipped
+     */
+    @Override
+    public int rollUp(LocalDate day) {
+        QuestionRollup rollup = rollupRepository.findForUpdateById(QuestionRollup.ID)
+                .orElseThrow(() -> new IllegalStateException("Question rollup progress is missing"));
+        if (rollup.getLastDay() != null && !day.isAfter(rollup.getLastDay())) {
+            log.info("Questions answered on {} were already rolled up", day);
+            return 0;
+        }
+        rollup.setLastDay(day);
+
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+
+        List<AnswerCount> counts = questionRepository.countAnswers(from, to);
+        if (counts.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> userIds = counts.stream().map(AnswerCount::getUserId).collect(Collectors.toSet());
+        Map<String, QuestionStats> stats = statsRepository.findByDayAndUserIdIn(day, userIds).stream()
+                .collect(Collectors.toMap(this::statsKey, Function.identity()));
+
+        for (AnswerCount count : counts) {
+            QuestionStats dayStats = stats.computeIfAbsent(statsKey(count.getUserId(), count.getCardId()),
+                    key -> QuestionStats.builder().userId(count.getUserId()).cardId(count.getCardId()).day(day).build());
+
+            dayStats.setAnswered(dayStats.getAnswered() + count.getAnswered());
+            dayStats.setCorrect(dayStats.getCorrect() + count.getCorrect());
+        }
+        statsRepository.saveAll(stats.values());
+
+        int deleted = questionRepository.deleteAnswered(from, to);
+        log.info("Rolled up {} questions answered on {} into {} statistics", deleted, day, stats.size());
+
+        return deleted;
+    }
+
+    @Override
+    public int purgeUnanswered(LocalDateTime before) {
+        int deleted = questionRepository.deleteUnansweredBefore(before);
+        log.info("Deleted {} unanswered questions created before {}", deleted, before);
+
+        return deleted;
+    }
+
+    private void addCount(Map<LocalDate, DailyStatsDto> stats, DailyAnswerCount count) {
+        DailyStatsDto dayStats = stats.computeIfAbsent(count.getDay(), day -> DailyStatsDto.builder().day(day).build());
+
+        dayStats.setAnswered(dayStats.getAnswered() + count.getAnswered());
+        dayStats.setCorrect(dayStats.getCorrect() + count.getCorrect());
+    }
+
+    private String statsKey(QuestionStats stats) {
+        return statsKey(stats.getUserId(), stats.getCardId());
+    }
+
+    private String statsKey(long userId, long cardId) {
+        return userId + ":" + cardId;
+    }
+
+    private User getUser(Authentication auth) {
+        return userRepository.findByEmail(auth.getName())
+                .orElseThrow(() -> new ResourceNotFound(auth.getName(), User.class));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.CardProgressRepository;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.projection.DifficultyCount;
+import com.example.flashcards.service.utils.CountCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Numbers of cards of the sets and of the user's cards per difficulty. They're needed for every question,
+ * so they're kept in the count cache and adjusted by the writes instead of being counted each time.
+ * Call the update methods after the write commits
+ */
+@Component
+@RequiredArgsConstructor
+public class CardCounts {
+    private final CountCache countCache;
+    private final CardRepository cardRepository;
+    private final CardProgressRepository progressRepository;
+
+    /**
+     * Count cards of the set
+     */
+    public long countCards(long setId) {
+        return countCache.get(cardsKey(setId), () -> cardRepository.countBySetId(setId));
+    }
+
+    /**
+     * Count cards of the set per difficulty for the user. Cards the user has never seen count as hard
+     *
+     * @param setId  id of the set
+     * @param userId id of the user
+     * @return number of cards per difficulty
+     */
+    public Map<Difficulty, Long> countByDifficulty(long setId, long userId) {
+        Map<Difficulty, Long> counts = findStudied(setId, userId);
+        if (counts == null) {
+            counts = countStudied(setId, userId);
+        }
+
+        long studied = counts.values().stream().mapToLong(Long::longValue).sum();
+        long unseen = Math.max(0, countCards(setId) - studied);
+        counts.merge(Difficulty.HARD, unseen, Long::sum);
+
+        return counts;
+    }
+
+    public void cardsAdded(long setId, long count) {
+        countCache.add(cardsKey(setId), count);
+    }
+
+    /**
+     * Difficulty of the user's card changed or the user studied the card for the first time
+     *
+     * @param previous difficulty before the answer or null if the card wasn't studied yet
+     * @param current  difficulty after the answer
+     */
+    public void difficultyChanged(long setId, long userId, Difficulty previous, Difficulty current) {
+        if (previous == current) {
+            return;
+        }
+
+        if (previous != null) {
+            countCache.add(studiedKey(setId, userId, previous), -1);
+        }
+        countCache.add(studiedKey(setId, userId, current), 1);
+    }
+
+    /**
+     * Forget all counts of the set, e.g. after its cards and their progress were removed
+     */
+    public void evict(long setId) {
+        countCache.evict(cardsKey(setId));
+        countCache.evictStartingWith(studiedPrefix(setId));
+    }
+
+    private Map<Difficulty, Long> findStudied(long setId, long userId) {
+        Map<Difficulty, Long> counts = new EnumMap<>(Difficulty.class);
+        for (Difficulty difficulty : Difficulty.values()) {
+            OptionalLong count = countCache.find(studiedKey(setId, userId, difficulty));
+            if (count.isEmpty()) {
+                return null;
+            }
+            counts.put(difficulty, count.getAsLong());
+        }
+
+        return counts;
+    }
+
+    private Map<Difficulty, Long> countStudied(long setId, long userId) {
+        Map<Difficulty, Long> counts = new EnumMap<>(Difficulty.class);
+        for (Difficulty difficulty : Difficulty.values()) {
+            counts.put(difficulty, 0L);
+        }
+        for (DifficultyCount count : progressRepository.countByUserIdAndSetIdGroupByDifficulty(userId, setId)) {
+            counts.put(count.getDifficulty(), count.getCount());
+        }
+
+        counts.forEach((difficulty, count) -> countCache.put(studiedKey(setId, userId, difficulty), count));
+        return counts;
+    }
+
+    private static String cardsKey(long setId) {
+        return "set-cards:" + setId;
+    }
+
+    private static String studiedPrefix(long setId) {
+        return "set-studied:" + setId + ":";
+    }
+
+    private static String studiedKey(long setId, long userId, Difficulty difficulty) {
+        return studiedPrefix(setId) + userId + ":" + difficulty;
+    }
+}
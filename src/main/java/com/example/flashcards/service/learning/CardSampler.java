@@ -0,0 +1,246 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.Difficulty;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Index of the card ids of a single set bucketed by difficulty.
+ * Selection and updates run in constant time and don't depend on the size of the set
+ */
+public class CardSampler {
+    private static final Difficulty[] HARD_FIRST = {Difficulty.HARD, Difficulty.GOOD, Difficulty.EASY};
+    private static final Difficulty[] GOOD_FIRST = {Difficulty.GOOD, Difficulty.HARD, Difficulty.EASY};
+    private static final Difficulty[] EASY_FIRST = {Difficulty.EASY, Difficulty.GOOD, Difficulty.HARD};
+    private static final int MAX_WEIGHTED_ATTEMPTS = 4;
+
+    private final Map<Difficulty, Bucket> buckets = new EnumMap<>(Difficulty.class);
+    private final Map<Long, Difficulty> difficulties = new HashMap<>();
+
+    public CardSampler() {
+        for (Difficulty difficulty : Difficulty.values()) {
+            buckets.put(difficulty, new Bucket());
+        }
+    }
+
+    /**
+     * Add card to the bucket of the given difficulty. Moves the card if it is already indexed
+     *
+     * @param cardId     id of the card
+     * @param difficulty difficulty of the card
+     */
+    public synchronized void add(long cardId, Difficulty difficulty) {
+        Difficulty previous = difficulties.put(cardId, difficulty);
+        if (previous == difficulty) {
+            return;
+        }
+
+        if (previous != null) {
+            buckets.get(previous).remove(cardId);
+        }
+        buckets.get(difficulty).add(cardId);
+    }
+
+    /**
+     * Add card to the bucket of the given difficulty unless it is already indexed
+     *
+     * @param cardId     id of the card
+     * @param difficulty difficulty of the card
+     * @return true if the card was added
+     */
+    public synchronized boolean addIfAbsent(long cardId, Difficulty difficulty) {
+        if (difficulties.containsKey(cardId)) {
+            return false;
+        }
+
+        add(cardId, difficulty);
+        return true;
+    }
+
+    /**
+     * Remove card from the index
+     *
+     * @param cardId id of the card
+     * @return true if the card was indexed
+     */
+    public synchronized boolean remove(long cardId) {
+        Difficulty previous = difficulties.remove(cardId);
+        if (previous == null) {
+            return false;
+        }
+
+        buckets.get(previous).remove(cardId);
+        return true;
+    }
+
+    public synchronized int size() {
+        return difficulties.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return difficulties.isEmpty();
+    }
+
+    /**
+     * Select card to study. Harder cards are selected more often according to {@link Difficulty#getDistribution()}.
+     * If the preferred bucket is empty, the closest non-empty one is used
+     *
+     * @return id of the selected card
+     */
+    public synchronized long selectCardToStudy() {
+        if (isEmpty()) {
+            throw new IllegalStateException("There are no cards to select from");
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (Difficulty difficulty : preferenceOrder(random.nextDouble())) {
+            Bucket bucket = buckets.get(difficulty);
+            if (bucket.size > 0) {
+                return bucket.get(random.nextInt(bucket.size));
+            }
+        }
+
+        throw new IllegalStateException("There are no cards to select from");
+    }
+
+    /**
+     * Select several cards to study. Cards are distinct as long as the set has enough cards
+     *
+     * @param count number of cards
+     * @return ids of the selected cards
+     */
+    public synchronized long[] selectCardsToStudy(int count) {
+        long[] cards = new long[count];
+        int distinct = Math.min(difficulties.size(), count);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int selected = 0;
+        int attempts = 0;
+        while (selected < distinct) {
+            long card = attempts++ < distinct * MAX_WEIGHTED_ATTEMPTS ? selectCardToStudy() : selectAnyCard(random);
+
+            if (!contains(cards, selected, card)) {
+                cards[selected++] = card;
+            }
+        }
+
+        while (selected < count) {
+            cards[selected++] = selectCardToStudy();
+        }
+
+        return cards;
+    }
+
+    /**
+     * Select distinct answer options for the card. The card itself is always one of the options
+     *
+     * @param cardId id of the studied card
+     * @param count  number of options
+     * @return shuffled ids of the option cards. Contains fewer ids if there are not enough cards
+     */
+    public synchronized long[] selectAnswerOptions(long cardId, int count) {
+        int size = Math.min(difficulties.size(), count);
+        long[] options = new long[size];
+        if (size == 0) {
+            return options;
+        }
+
+        options[0] = cardId;
+        int selected = 1;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (selected != size) {
+            long option = selectAnyCard(random);
+
+            if (!contains(options, selected, option)) {
+                options[selected++] = option;
+            }
+        }
+
+        shuffle(options, random);
+        return options;
+    }
+
+    private long selectAnyCard(ThreadLocalRandom random) {
+        int index = random.nextInt(difficulties.size());
+        for (Bucket bucket : buckets.values()) {
+            if (index < bucket.size) {
+                return bucket.get(index);
+            }
+            index -= bucket.size;
+        }
+
+        throw new IllegalStateException("Sampler index is inconsistent");
+    }
+
+    /**
+     * Order in which the difficulty buckets are tried for the given random value in [0, 1)
+     *
+     * @param random random value
+     * @return difficulties ordered by preference
+     */
+    public static Difficulty[] preferenceOrder(double random) {
+        if (random <= Difficulty.HARD.getDistribution()) {
+            return HARD_FIRST;
+        } else if (random < Difficulty.GOOD.getDistribution()) {
+            return GOOD_FIRST;
+        }
+        return EASY_FIRST;
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void shuffle(long[] values, ThreadLocalRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    /**
+     * Dense array of ids with the position of every id, so removal is a swap with the last element
+     */
+    private static class Bucket {
+        private long[] ids = new long[16];
+        private int size;
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            positions.put(id, size);
+            ids[size++] = id;
+        }
+
+        void remove(long id) {
+            Integer position = positions.remove(id);
+            if (position == null) {
+                return;
+            }
+
+            long last = ids[--size];
+            if (position != size) {
+                ids[position] = last;
+                positions.put(last, position);
+            }
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+    }
+}
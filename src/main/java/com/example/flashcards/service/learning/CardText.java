@@ -0,0 +1,22 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.learning.CardSide;
+import lombok.Value;
+
+/**
+ * Texts of both sides of a card
+ */
+@Value
+public class CardText {
+    String front;
+    String back;
+
+    public static CardText of(Card card) {
+        return new CardText(card.getFront(), card.getBack());
+    }
+
+    public String getSide(CardSide side) {
+        return side == CardSide.BACK ? back : front;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.Difficulty;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Deck of a set as seen by a single learner: the learner's difficulty buckets over the card texts of the set.
+ * The texts are shared by all sessions of the set and are changed only through {@link LearningSessionCache}
+ */
+@Getter
+public class LearningSession {
+    private final long setId;
+    private final long userId;
+    private final String username;
+    private final CardSampler sampler = new CardSampler();
+    private final Map<Long, CardText> cards;
+
+    private volatile long lastAccessMillis;
+    private volatile long lastAccessOrder;
+
+    LearningSession(long setId, long userId, String username, Map<Long, CardText> cards) {
+        this.setId = setId;
+        this.userId = userId;
+        this.username = username;
+        this.cards = Collections.unmodifiableMap(cards);
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public void updateDifficulty(long cardId, Difficulty difficulty) {
+        if (cards.containsKey(cardId)) {
+            sampler.add(cardId, difficulty);
+        }
+    }
+
+    public CardText getCard(long cardId) {
+        return cards.get(cardId);
+    }
+
+    /**
+     * Add card to the buckets of the learner. The difficulty is kept if the card is already present
+     *
+     * @return true if the card was added
+     */
+    boolean addCard(long cardId, Difficulty difficulty) {
+        return sampler.addIfAbsent(cardId, difficulty);
+    }
+
+    boolean removeCard(long cardId) {
+        return sampler.remove(cardId);
+    }
+
+    int size() {
+        return sampler.size();
+    }
+
+    void touch(long order) {
+        lastAccessMillis = System.currentTimeMillis();
+        lastAccessOrder = order;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.learning.CardProgress;
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.projection.StudyCard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of learning sessions per set and learner. Card texts are kept once per set and shared by
+ * the sessions of the set, every session adds the learner's difficulty of each card.
+ * <p>
+ * The cache is bounded by the number of cached cards, a card counts once for its text and once for every
+ * session holding it. Least recently used sessions are evicted when the cache is full and sessions expire
+ * after a period of inactivity. Only sets that are small enough to be kept in memory get a session.
+ * <p>
+ * Lookups don't lock, card changes lock only the deck of their set
+ */
+@Slf4j
+@Component
+public class LearningSessionCache {
+    private final long maxCards;
+    private final long maxCachedCards;
+    private final long ttlMillis;
+
+    private final Map<Long, Deck> decks = new ConcurrentHashMap<>();
+    private final AtomicLong cachedCards = new AtomicLong();
+    private final AtomicLong accesses = new AtomicLong();
+
+    public LearningSessionCache(
+            @Value("${learning.session.max-cards:20000}") long maxCards,
+            @Value("${learning.session.max-cached-cards:2000000}") long maxCachedCards,
+            @Value("${learning.session.ttl:30m}") Duration ttl
+    ) {
+        this.maxCards = maxCards;
+        this.maxCachedCards = maxCachedCards;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Get active session of the user for the set
+     *
+     * @param setId    id of the set
+     * @param username username of the learner
+     * @return session if it exists and hasn't expired
+     */
+    public Optional<LearningSession> find(long setId, String username) {
+        Deck deck = decks.get(setId);
+        LearningSession session = deck != null ? deck.sessions.get(username) : null;
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        if (isExpired(session)) {
+            log.debug("Learning session of user {} for set {} expired", username, setId);
+            remove(session);
+            return Optional.empty();
+        }
+
+        session.touch(accesses.incrementAndGet());
+        return Optional.of(session);
+    }
+
+    /**
+     * Create session of the user for the set from the given cards.
+     * Cards without difficulty were never studied by the user and are treated as hard
+     *
+     * @param setId    id of the set
+     * @param userId   id of the learner
+     * @param username username of the learner
+     * @param cards    cards of the set
+     * @return created session
+     */
+    public synchronized LearningSession create(long setId, long userId, String username, List<StudyCard> cards) {
+        log.debug("Create learning session of user {} for set {}", username, setId);
+
+        Deck deck = decks.computeIfAbsent(setId, id -> new Deck());
+        LearningSession session = new LearningSession(setId, userId, username, deck.cards);
+        synchronized (deck) {
+            for (StudyCard card : cards) {
+                if (deck.cards.put(card.getId(), new CardText(card.getFront(), card.getBack())) == null) {
+                    deck.weigh(1);
+                }
+
+                Difficulty difficulty = card.getDifficulty() != null ? card.getDifficulty() : Difficulty.HARD;
+                session.addCard(card.getId(), difficulty);
+            }
+            deck.weigh(session.size());
+
+            LearningSession replaced = deck.sessions.put(username, session);
+            if (replaced != null) {
+                deck.weigh(-replaced.size());
+            }
+        }
+
+        session.touch(accesses.incrementAndGet());
+        evictLeastRecentlyUsed();
+        return session;
+    }
+
+    /**
+     * Check whether set with the given number of cards can be kept in memory
+     *
+     * @param cardCount number of cards in the set
+     * @return true if the set can have a session
+     */
+    public boolean canHold(long cardCount) {
+        return cardCount <= maxCards;
+    }
+
+    public void addCard(Card card) {
+        Deck deck = decks.get(card.getSet().getId());
+        if (deck == null) {
+            return;
+        }
+
+        synchronized (deck) {
+            if (deck.removed) {
+                return;
+            }
+
+            if (deck.cards.put(card.getId(), CardText.of(card)) == null) {
+                deck.weigh(1);
+            }
+            for (LearningSession session : deck.sessions.values()) {
+                if (session.addCard(card.getId(), Difficulty.HARD)) {
+                    deck.weigh(1);
+                }
+            }
+        }
+    }
+
+    public void updateCard(Card card) {
+        addCard(card);
+    }
+
+    public void removeCard(Card card) {
+        Deck deck = decks.get(card.getSet().getId());
+        if (deck == null) {
+            return;
+        }
+
+        synchronized (deck) {
+            if (deck.removed) {
+                return;
+            }
+
+            if (deck.cards.remove(card.getId()) != null) {
+                deck.weigh(-1);
+            }
+            for (LearningSession session : deck.sessions.values()) {
+                if (session.removeCard(card.getId())) {
+                    deck.weigh(-1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write through the progress of the learner to the session
+     *
+     * @param username username of the learner
+     * @param progress updated progress
+     */
+    public void updateProgress(String username, CardProgress progress) {
+        Deck deck = decks.get(progress.getSetId());
+        LearningSession session = deck != null ? deck.sessions.get(username) : null;
+        if (session != null) {
+            session.updateDifficulty(progress.getCardId(), progress.getDifficulty());
+            session.touch(accesses.incrementAndGet());
+        }
+    }
+
+    public synchronized void evict(long setId) {
+        Deck deck = decks.remove(setId);
+        if (deck != null) {
+            synchronized (deck) {
+                deck.removed = true;
+                cachedCards.addAndGet(-deck.weight);
+            }
+        }
+    }
+
+    public int size() {
+        return decks.values().stream().mapToInt(deck -> deck.sessions.size()).sum();
+    }
+
+    /**
+     * Number of cached cards the cache is bounded by: card texts plus the cards of every session
+     */
+    public long cachedCards() {
+        return cachedCards.get();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        if (cachedCards.get() <= maxCachedCards) {
+            return;
+        }
+
+        List<LearningSession> sessions = new ArrayList<>();
+        decks.values().forEach(deck -> sessions.addAll(deck.sessions.values()));
+        sessions.sort(Comparator.comparingLong(LearningSession::getLastAccessOrder));
+
+        for (LearningSession session : sessions) {
+            if (cachedCards.get() <= maxCachedCards) {
+                break;
+            }
+            remove(session);
+        }
+    }
+
+    /**
+     * Remove the session. The deck of the set is removed with its last session
+     */
+    private synchronized void remove(LearningSession session) {
+        long setId = session.getSetId();
+        Deck deck = decks.get(setId);
+        if (deck == null) {
+            return;
+        }
+
+        synchronized (deck) {
+            if (!deck.sessions.remove(session.getUsername(), session)) {
+                return;
+            }
+
+            deck.weigh(-session.size());
+            if (deck.sessions.isEmpty()) {
+                decks.remove(setId);
+                deck.removed = true;
+                cachedCards.addAndGet(-deck.weight);
+            }
+        }
+    }
+
+    private boolean isExpired(LearningSession session) {
+        return System.currentTimeMillis() - session.getLastAccessMillis() >= ttlMillis;
+    }
+
+    /**
+     * Card texts of a set and the sessions sharing them. Changed only while holding the deck
+     */
+    private class Deck {
+        private final Map<Long, CardText> cards = new ConcurrentHashMap<>();
+        private final Map<String, LearningSession> sessions = new ConcurrentHashMap<>();
+        private long weight;
+        private boolean removed;
+
+        private void weigh(long cards) {
+            weight += cards;
+            cachedCards.addAndGet(cards);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.service.QuestionHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Background job that keeps the question table small. Answered questions older than the retention period
+ * are rolled up one day at a time, so every day is a short transaction, and stale unanswered questions are deleted
+ */
+@Slf4j
+@Component
+public class QuestionHistoryJob {
+    private final QuestionHistoryService historyService;
+    private final long retentionDays;
+
+    public QuestionHistoryJob(
+            QuestionHistoryService historyService,
+            @Value("${learning.history.retention:90d}") Duration retention
+    ) {
+        this.historyService = historyService;
+        this.retentionDays = retention.toDays();
+    }
+
+    @Scheduled(cron = "${learning.history.rollup-cron:0 30 3 * * *}")
+    public void rollUp() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        log.info("Roll up questions answered before {}", cutoff);
+
+        Optional<LocalDate> oldest = historyService.findOldestDay(cutoff);
+        if (oldest.isPresent()) {
+            for (LocalDate day = oldest.get(); day.isBefore(cutoff); day = day.plusDays(1)) {
+                historyService.rollUp(day);
+            }
+        }
+
+        historyService.purgeUnanswered(cutoff.atStartOfDay());
+    }
+}
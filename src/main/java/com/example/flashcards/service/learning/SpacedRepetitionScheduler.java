@@ -0,0 +1,69 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.CardProgress;
+import com.example.flashcards.model.learning.Difficulty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * SM-2 scheduler. A correct answer is graded as quality 4 and an incorrect one as quality 1
+ */
+@Component
+public class SpacedRepetitionScheduler {
+    public static final double INITIAL_EASE_FACTOR = 2.5;
+    private static final double MIN_EASE_FACTOR = 1.3;
+    private static final int CORRECT_QUALITY = 4;
+    private static final int INCORRECT_QUALITY = 1;
+
+    /**
+     * Create progress of the card that was never reviewed by the user. The card is hard and due immediately
+     *
+     * @param userId id of the user
+     * @param setId  id of the set of the card
+     * @param cardId id of the card
+     * @param now    current time
+     * @return progress of the card
+     */
+    public CardProgress start(long userId, long setId, long cardId, LocalDateTime now) {
+        return CardProgress.builder()
+                .userId(userId)
+                .setId(setId)
+                .cardId(cardId)
+                .difficulty(Difficulty.HARD)
+                .easeFactor(INITIAL_EASE_FACTOR)
+                .dueAt(now)
+                .build();
+    }
+
+    /**
+     * Update ease factor, interval and due time of the card after the review
+     *
+     * @param progress progress of the card
+     * @param correct  whether the card was answered correctly
+     * @param now      time of the review
+     */
+    public void review(CardProgress progress, boolean correct, LocalDateTime now) {
+        int quality = correct ? CORRECT_QUALITY : INCORRECT_QUALITY;
+
+        if (correct) {
+            if (progress.getRepetitions() == 0) {
+                progress.setIntervalDays(1);
+            } else if (progress.getRepetitions() == 1) {
+                progress.setIntervalDays(6);
+            } else {
+                progress.setIntervalDays((int) Math.round(progress.getIntervalDays() * progress.getEaseFactor()));
+            }
+            progress.setRepetitions(progress.getRepetitions() + 1);
+        } else {
+            progress.setRepetitions(0);
+            progress.setIntervalDays(1);
+        }
+
+        double easeFactor = progress.getEaseFactor() + 0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02);
+        progress.setEaseFactor(Math.max(MIN_EASE_FACTOR, easeFactor));
+
+        progress.setReviewedAt(now);
+        progress.setDueAt(now.plusDays(progress.getIntervalDays()));
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.flashcards.service.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Radix trie of the public set names for autocomplete.
+ * <p>
+ * A name is inserted once for every word it contains, starting at that word, so "Basic French" is suggested
+ * for both "bas" and "fre". Each node keeps the most popular sets of its subtree, so a lookup only walks
+ * the characters of the prefix and doesn't visit the subtree
+ */
+@Component
+public class SetNameTrie {
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_WORDS = 8;
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::getPopularity).reversed()
+            .thenComparingInt(entry -> entry.getName().length())
+            .thenComparingLong(Entry::getSetId);
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final Node root = new Node("");
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add the set or change its name. A renamed set keeps its popularity
+     */
+    public void putSet(long setId, String name) {
+        write(() -> {
+            Entry existing = entries.get(setId);
+            if (existing != null && existing.getName().equals(name)) {
+                return;
+            }
+
+            long popularity = 0;
+            if (existing != null) {
+                popularity = existing.getPopularity();
+                remove(existing);
+            }
+
+            Entry entry = new Entry(setId, name, keys(name));
+            entry.setPopularity(popularity);
+            entries.put(setId, entry);
+            entry.getKeys().forEach(key -> insert(key, entry));
+        });
+    }
+
+    public void removeSet(long setId) {
+        write(() -> {
+            Entry entry = entries.get(setId);
+            if (entry != null) {
+                remove(entry);
+            }
+        });
+    }
+
+    /**
+     * Replace the popularity of all sets and rerank them. Sets missing from the map aren't popular
+     *
+     * @param popularity popularity by set id
+     */
+    public void updatePopularity(Map<Long, Long> popularity) {
+        write(() -> {
+            entries.values().forEach(entry -> entry.setPopularity(popularity.getOrDefault(entry.getSetId(), 0L)));
+            rerank(root);
+        });
+    }
+
+    /**
+     * Find the most popular sets with a name or a word of the name starting with the prefix
+     *
+     * @param prefix typed prefix. Case, diacritics and punctuation are ignored
+     * @param limit  maximal number of suggestions, at most {@link #MAX_SUGGESTIONS}
+     * @return most popular sets first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String words = String.join(" ", Tokenizer.tokenize(prefix));
+        // a trailing separator means the last word is complete
+        String normalized = !words.isEmpty() && !Character.isLetterOrDigit(prefix.charAt(prefix.length() - 1)) ? words + " " : words;
+
+        return read(() -> {
+            Node node = find(normalized);
+            if (node == null) {
+                return List.of();
+            }
+
+            return Arrays.stream(node.top)
+                    .limit(limit)
+                    .map(entry -> new Suggestion(entry.getSetId(), entry.getName()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    public boolean contains(long setId) {
+        return read(() -> entries.containsKey(setId));
+    }
+
+    public int size() {
+        return read(entries::size);
+    }
+
+    public void clear() {
+        write(() -> {
+            entries.clear();
+            root.children = null;
+            root.setIds = null;
+            root.top = NO_ENTRIES;
+        });
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                return null;
+            }
+
+            int common = commonPrefix(child.label, key, position);
+            if (position + common == key.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+
+            position += common;
+            node = child;
+        }
+
+        return node;
+    }
+
+    private void insert(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.putChild(child);
+                position = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, position);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                position += common;
+            }
+
+            node = child;
+            path.add(node);
+        }
+
+        node.addSet(entry.getSetId());
+        rerank(path);
+    }
+
+    private void remove(Entry entry) {
+        for (String key : entry.getKeys()) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+
+            int position = 0;
+            while (node != null && position < key.length()) {
+                node = node.child(key.charAt(position));
+                if (node != null) {
+                    position += node.label.length();
+                    path.add(node);
+                }
+            }
+            if (node == null || !node.removeSet(entry.getSetId())) {
+                continue;
+            }
+
+            compact(path);
+            rerank(path);
+        }
+
+        entries.remove(entry.getSetId());
+    }
+
+    /**
+     * Detach nodes left without sets and children and merge nodes left with a single child into it
+     */
+    private void compact(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+
+            if (node.setIds == null && node.children == null) {
+                parent.children.remove(node.label.charAt(0));
+                if (parent.children.isEmpty()) {
+                    parent.children = null;
+                }
+            } else if (node.setIds == null && node.children.size() == 1) {
+                Node child = node.children.values().iterator().next();
+                node.label += child.label;
+                node.children = child.children;
+                node.setIds = child.setIds;
+                node.top = child.top;
+            }
+        }
+    }
+
+    private static Node split(Node parent, Node child, int length) {
+        Node middle = new Node(child.label.substring(0, length));
+        child.label = child.label.substring(length);
+        middle.putChild(child);
+        middle.top = child.top;
+        parent.putChild(middle);
+
+        return middle;
+    }
+
+    private void rerank(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            rank(path.get(i));
+        }
+    }
+
+    private void rerank(Node node) {
+        if (node.children != null) {
+            node.children.values().forEach(this::rerank);
+        }
+        rank(node);
+    }
+
+    private void rank(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.setIds != null) {
+            for (long setId : node.setIds) {
+                candidates.add(entries.get(setId));
+            }
+        }
+        if (node.children != null) {
+            node.children.values().forEach(child -> candidates.addAll(Arrays.asList(child.top)));
+        }
+
+        node.top = candidates.stream()
+                .distinct()
+                .sorted(RANKING)
+                .limit(MAX_SUGGESTIONS)
+                .toArray(Entry[]::new);
+    }
+
+    private static List<String> keys(String name) {
+        List<String> words = Tokenizer.tokenize(name);
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < words.size() && i < MAX_WORDS; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+
+        return keys;
+    }
+
+    private static int commonPrefix(String label, String key, int position) {
+        int length = Math.min(label.length(), key.length() - position);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(position + common)) {
+            common++;
+        }
+
+        return common;
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Children are created on demand, so the many leaves of the trie only hold their label and sets
+     */
+    private static class Node {
+        private String label;
+        private Map<Character, Node> children;
+        private Set<Long> setIds;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            return children == null ? null : children.get(first);
+        }
+
+        private void putChild(Node child) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            children.put(child.label.charAt(0), child);
+        }
+
+        private void addSet(long setId) {
+            if (setIds == null) {
+                setIds = new HashSet<>(2);
+            }
+            setIds.add(setId);
+        }
+
+        private boolean removeSet(long setId) {
+            if (setIds == null || !setIds.remove(setId)) {
+                return false;
+            }
+            if (setIds.isEmpty()) {
+                setIds = null;
+            }
+
+            return true;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final long setId;
+        private final String name;
+        private final List<String> keys;
+        @Setter
+        private long popularity;
+    }
+
+    @Value
+    public static class Suggestion {
+        long setId;
+        String name;
+    }
+}
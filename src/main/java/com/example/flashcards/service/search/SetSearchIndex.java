@@ -0,0 +1,267 @@
+package com.example.flashcards.service.search;
+
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory inverted index of the public sets over their name, description and the texts of their cards.
+ * <p>
+ * Every set keeps the term frequencies of its fields, so a single card can be added or removed
+ * without reading the rest of the set. A term weighs more in the name than in the description
+ * and both weigh more than the cards. Searches match sets containing all terms of the query and rank them
+ * by the sum of term weights multiplied by the inverse document frequency of the term.
+ * <p>
+ * Sets that aren't in the index, like private ones, ignore card updates
+ */
+@Component
+public class SetSearchIndex {
+    private static final float NAME_BOOST = 3;
+    private static final float DESCRIPTION_BOOST = 1.5f;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::getScore).reversed()
+            .thenComparingLong(Match::getSetId);
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add the set to the index or update its name and description. Cards of an already indexed set are kept
+     */
+    public void putSet(long setId, String name, String description) {
+        write(() -> {
+            Document document = documents.computeIfAbsent(setId, id -> new Document());
+
+            Set<String> changed = new LinkedHashSet<>(document.nameTerms.keySet());
+            changed.addAll(document.descriptionTerms.keySet());
+
+            document.nameTerms = frequencies(name);
+            document.descriptionTerms = frequencies(description);
+            changed.addAll(document.nameTerms.keySet());
+            changed.addAll(document.descriptionTerms.keySet());
+
+            reweigh(setId, document, changed);
+        });
+    }
+
+    public void removeSet(long setId) {
+        write(() -> {
+            Document document = documents.remove(setId);
+            if (document != null) {
+                document.weights.keySet().forEach(term -> removePosting(term, setId));
+            }
+        });
+    }
+
+    public void addCard(long setId, String front, String back) {
+        updateCard(setId, front, back, true);
+    }
+
+    public void removeCard(long setId, String front, String back) {
+        updateCard(setId, front, back, false);
+    }
+
+    public boolean contains(long setId) {
+        return read(() -> documents.containsKey(setId));
+    }
+
+    public int size() {
+        return read(documents::size);
+    }
+
+    public void clear() {
+        write(() -> {
+            documents.clear();
+            postings.clear();
+        });
+    }
+
+    /**
+     * Find sets matching all terms of the query
+     *
+     * @param query  search query
+     * @param offset number of best matches to skip
+     * @param limit  maximal number of matches to return
+     * @return ids of the matching sets, best first, and the total number of matches
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        return read(() -> {
+            List<Map<Long, Float>> termPostings = new ArrayList<>(terms.size());
+            List<Double> idfs = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Float> posting = postings.get(term);
+                if (posting == null) {
+                    return new SearchResult(List.of(), 0);
+                }
+                termPostings.add(posting);
+                idfs.add(Math.log(1 + (double) documents.size() / posting.size()));
+            }
+
+            int rarest = 0;
+            for (int i = 1; i < termPostings.size(); i++) {
+                if (termPostings.get(i).size() < termPostings.get(rarest).size()) {
+                    rarest = i;
+                }
+            }
+
+            int top = offset + limit;
+            PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+            long total = 0;
+
+            candidates:
+            for (long setId : termPostings.get(rarest).keySet()) {
+                double score = 0;
+                for (int i = 0; i < termPostings.size(); i++) {
+                    Float weight = termPostings.get(i).get(setId);
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += weight * idfs.get(i);
+                }
+
+                total++;
+                if (top > 0) {
+                    best.add(new Match(setId, score));
+                    if (best.size() > top) {
+                        best.poll();
+                    }
+                }
+            }
+
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+
+            List<Long> ids = new ArrayList<>(limit);
+            for (int i = offset; i < ranked.size(); i++) {
+                ids.add(ranked.get(i).getSetId());
+            }
+
+            return new SearchResult(ids, total);
+        });
+    }
+
+    private void updateCard(long setId, String front, String back, boolean added) {
+        write(() -> {
+            Document document = documents.get(setId);
+            if (document == null) {
+                return;
+            }
+
+            Set<String> changed = new LinkedHashSet<>();
+            for (String term : terms(front, back)) {
+                if (added) {
+                    document.cardTerms.merge(term, 1, Integer::sum);
+                } else {
+                    document.cardTerms.computeIfPresent(term, (key, count) -> count > 1 ? count - 1 : null);
+                }
+                changed.add(term);
+            }
+
+            reweigh(setId, document, changed);
+        });
+    }
+
+    private void reweigh(long setId, Document document, Set<String> terms) {
+        for (String term : terms) {
+            float weight = NAME_BOOST * document.nameTerms.getOrDefault(term, 0)
+                    + DESCRIPTION_BOOST * document.descriptionTerms.getOrDefault(term, 0);
+
+            int cardCount = document.cardTerms.getOrDefault(term, 0);
+            if (cardCount > 0) {
+                weight += 1 + (float) Math.log(cardCount);
+            }
+
+            if (weight > 0) {
+                document.weights.put(term, weight);
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(setId, weight);
+            } else if (document.weights.remove(term) != null) {
+                removePosting(term, setId);
+            }
+        }
+    }
+
+    private void removePosting(String term, long setId) {
+        Map<Long, Float> posting = postings.get(term);
+        if (posting != null) {
+            posting.remove(setId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static List<String> terms(String front, String back) {
+        List<String> terms = Tokenizer.tokenize(front);
+        terms.addAll(Tokenizer.tokenize(back));
+
+        return terms;
+    }
+
+    private static Map<String, Integer> frequencies(String text) {
+        List<String> terms = Tokenizer.tokenize(text);
+        if (terms.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+        return frequencies;
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class Document {
+        private Map<String, Integer> nameTerms = Collections.emptyMap();
+        private Map<String, Integer> descriptionTerms = Collections.emptyMap();
+        private final Map<String, Integer> cardTerms = new HashMap<>();
+        private final Map<String, Float> weights = new HashMap<>();
+    }
+
+    @Value
+    private static class Match {
+        long setId;
+        double score;
+    }
+
+    @Value
+    public static class SearchResult {
+        List<Long> setIds;
+        long total;
+    }
+}
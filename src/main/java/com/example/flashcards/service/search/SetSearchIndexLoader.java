@@ -0,0 +1,69 @@
+package com.example.flashcards.service.search;
+
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.repository.CardProgressRepository;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.CardSetRepository;
+import com.example.flashcards.repository.projection.CardTextOfSet;
+import com.example.flashcards.repository.projection.SetLearnerCount;
+import com.example.flashcards.repository.projection.SetText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds the search index and the set name trie from the database on startup. Sets and cards are streamed,
+ * so only the indexes themselves are held in memory. Popularity of the sets changes with every answer,
+ * so it is periodically reloaded instead of being tracked
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SetSearchIndexLoader implements ApplicationRunner {
+    private final CardSetRepository setRepository;
+    private final CardRepository cardRepository;
+    private final CardProgressRepository progressRepository;
+    private final SetSearchIndex searchIndex;
+    private final SetNameTrie nameTrie;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        log.info("Build search index of public sets");
+        searchIndex.clear();
+        nameTrie.clear();
+
+        try (Stream<SetText> sets = setRepository.streamTextsByType(SetType.PUBLIC)) {
+            sets.forEach(set -> {
+                searchIndex.putSet(set.getId(), set.getName(), set.getDescription());
+                nameTrie.putSet(set.getId(), set.getName());
+            });
+        }
+
+        try (Stream<CardTextOfSet> cards = cardRepository.streamTextsBySetType(SetType.PUBLIC)) {
+            cards.forEach(card -> searchIndex.addCard(card.getSetId(), card.getFront(), card.getBack()));
+        }
+
+        refreshPopularity();
+        log.info("Indexed {} public sets", searchIndex.size());
+    }
+
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${search.autocomplete.popularity-refresh:PT1H}",
+            initialDelayString = "${search.autocomplete.popularity-refresh:PT1H}")
+    public void refreshPopularity() {
+        Map<Long, Long> learners = progressRepository.countLearnersBySetType(SetType.PUBLIC).stream()
+                .collect(Collectors.toMap(SetLearnerCount::getSetId, SetLearnerCount::getLearners));
+
+        nameTrie.updatePopularity(learners);
+        log.debug("Refreshed popularity of {} learned public sets", learners.size());
+    }
+}
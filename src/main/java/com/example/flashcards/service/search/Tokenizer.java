@@ -0,0 +1,38 @@
+package com.example.flashcards.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits texts into lower case terms of letters and digits without diacritics, so "Café" matches "cafe"
+ */
+public final class Tokenizer {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Tokenizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(normalize(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+
+        return terms;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.flashcards.service.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers updates of in-memory structures until the surrounding transaction commits,
+ * so a rolled back write doesn't leave them behind. Runs immediately outside of a transaction
+ */
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
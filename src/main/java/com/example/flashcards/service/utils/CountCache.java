@@ -0,0 +1,128 @@
+package com.example.flashcards.service.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of the results of count queries. Used for approximate totals of the listings,
+ * so that most list requests don't run a count query at all, and for counts kept up to date by the writes.
+ * When the cache is full, expired counts are dropped first and then the least recently used ones
+ */
+@Slf4j
+@Component
+public class CountCache {
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, Entry> counts = new LinkedHashMap<>(16, 0.75f, true);
+
+    public CountCache(
+            @Value("${pagination.count-cache.ttl:60s}") Duration ttl,
+            @Value("${pagination.count-cache.max-entries:10000}") int maxEntries
+    ) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get cached count or run the count query if the cached one is missing or expired
+     *
+     * @param key   key of the query including its parameters
+     * @param count count query
+     * @return number of elements
+     */
+    public long get(String key, LongSupplier count) {
+        OptionalLong cached = find(key);
+        if (cached.isPresent()) {
+            return cached.getAsLong();
+        }
+
+        long value = count.getAsLong();
+        put(key, value);
+
+        return value;
+    }
+
+    /**
+     * Get cached count without running the count query
+     *
+     * @param key key of the query including its parameters
+     * @return cached count or empty if it's missing or expired
+     */
+    public synchronized OptionalLong find(String key) {
+        Entry entry = counts.get(key);
+        if (entry == null) {
+            return OptionalLong.empty();
+        }
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            counts.remove(key);
+            return OptionalLong.empty();
+        }
+
+        return OptionalLong.of(entry.count);
+    }
+
+    /**
+     * Cache count loaded together with other counts
+     */
+    public synchronized void put(String key, long count) {
+        long now = System.currentTimeMillis();
+        counts.put(key, new Entry(count, now + ttlMillis));
+
+        if (counts.size() > maxEntries) {
+            int size = counts.size();
+            counts.values().removeIf(entry -> entry.expiresAt <= now);
+
+            Iterator<Entry> eldest = counts.values().iterator();
+            while (counts.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+            }
+            log.debug("Count cache is full, evicted {} entries", size - counts.size());
+        }
+    }
+
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    /**
+     * Adjust cached count after a write. A missing count is left to the next query, an adjusted count
+     * still expires at its original time, so a missed update is corrected within the ttl
+     *
+     * @param key   key of the query including its parameters
+     * @param delta number of added elements, negative for removed ones
+     */
+    public synchronized void add(String key, long delta) {
+        counts.computeIfPresent(key, (k, entry) -> new Entry(Math.max(0, entry.count + delta), entry.expiresAt));
+    }
+
+    public synchronized void evict(String key) {
+        counts.remove(key);
+    }
+
+    /**
+     * Remove cached counts whose keys start with the prefix
+     */
+    public synchronized void evictStartingWith(String prefix) {
+        counts.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long expiresAt;
+
+        Entry(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
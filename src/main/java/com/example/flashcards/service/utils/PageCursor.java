@@ -0,0 +1,69 @@
+package com.example.flashcards.service.utils;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by creation time and id, newest or oldest first.
+ * Clients get it as an opaque url-safe token
+ */
+@Value
+public class PageCursor {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Cursor positioned before every element of a list ordered newest first
+     */
+    public static final PageCursor FIRST = new PageCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    /**
+     * Cursor positioned before every element of a list ordered oldest first
+     */
+    public static final PageCursor FIRST_ASCENDING = new PageCursor(LocalDateTime.of(1, 1, 1, 0, 0), 0);
+
+    LocalDateTime createdAt;
+    long id;
+
+    public String encode() {
+        String value = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode cursor of a list ordered newest first from the token
+     *
+     * @param token token returned by {@link #encode()}. Empty or null token means the first page
+     * @return decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        return decode(token, FIRST);
+    }
+
+    /**
+     * Decode cursor from the token
+     *
+     * @param token token returned by {@link #encode()}
+     * @param first cursor of the first page, returned for an empty or null token
+     * @return decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token, PageCursor first) {
+        if (token == null || token.isBlank()) {
+            return first;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+
+            return new PageCursor(LocalDateTime.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
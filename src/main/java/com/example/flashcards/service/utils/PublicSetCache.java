@@ -0,0 +1,246 @@
+package com.example.flashcards.service.utils;
+
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.user.UserDto;
+import com.example.flashcards.model.SetType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of mapped public sets. Bounded by the number of sets and by their total weight,
+ * a set weighs one plus the number of its cards. Least recently used sets are evicted first and every set
+ * expires after the ttl, so a missed invalidation heals by itself.
+ * <p>
+ * A set loaded while a change of it was committed may be stale, so a loaded set is only cached if the set
+ * wasn't invalidated since its load started. Callers get their own copy of a cached set and may modify it.
+ * Concurrent misses of a set can share one load with {@link #load}, so a burst of requests for a set that
+ * isn't cached yet loads it once. Hits, misses and evictions are published as the {@code cache.*} meters
+ * of the {@code publicSets} cache
+ */
+@Component
+public class PublicSetCache implements MeterBinder {
+    private static final String NAME = "publicSets";
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlMillis;
+
+    private final SingleFlight<Long, CardSetDto> loads;
+
+    private final LinkedHashMap<Long, Entry> sets = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    /**
+     * Generations of the sets that are being loaded. A set's generation changes when it is invalidated,
+     * only sets with a load in flight are tracked
+     */
+    private final Map<Long, Generation> generations = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PublicSetCache(
+            @Value("${sets.cache.max-entries:1000}") int maxEntries,
+            @Value("${sets.cache.max-weight:200000}") long maxWeight,
+            @Value("${sets.cache.ttl:10m}") Duration ttl,
+            @Value("${sets.cache.load-timeout:5s}") Duration loadTimeout
+    ) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.loads = new SingleFlight<>(loadTimeout);
+    }
+
+    /**
+     * Get cached set or load it. The loaded set is cached only if it is public
+     *
+     * @param setId  id of the set
+     * @param loader loads and maps the set. Runs without holding the cache
+     * @return copy of the cached or loaded set
+     */
+    public CardSetDto get(long setId, Supplier<CardSetDto> loader) {
+        long generation;
+        synchronized (this) {
+            CardSetDto cached = find(setId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return copy(cached);
+            }
+
+            misses.incrementAndGet();
+            Generation loading = generations.computeIfAbsent(setId, id -> new Generation());
+            loading.loads++;
+            generation = loading.value;
+        }
+
+        CardSetDto loaded = null;
+        try {
+            loaded = loader.get();
+        } finally {
+            complete(setId, loaded, generation);
+        }
+
+        return copy(loaded);
+    }
+
+    /**
+     * Load the set once for all concurrent callers. Doesn't cache the set, call it from the loader of {@link #get}
+     *
+     * @param setId  id of the set
+     * @param loader loads and maps the set. Must not depend on the caller, e.g. check access to the set after it
+     * @return loaded set, shared with the concurrent callers. {@link #get} returns a copy of it to each of them
+     */
+    public CardSetDto load(long setId, Supplier<CardSetDto> loader) {
+        return loads.execute(setId, loader);
+    }
+
+    /**
+     * Get a copy of the cached set without loading it and without counting a hit or a miss
+     */
+    public synchronized Optional<CardSetDto> peek(long setId) {
+        return Optional.ofNullable(find(setId)).map(PublicSetCache::copy);
+    }
+
+    /**
+     * Remove the set and let the next load of it start over. Call after every committed change of the set or its cards
+     */
+    public synchronized void invalidate(long setId) {
+        Generation loading = generations.get(setId);
+        if (loading != null) {
+            loading.value++;
+        }
+        loads.forget(setId);
+
+        Entry removed = sets.remove(setId);
+        if (removed != null) {
+            weight -= weigh(removed.set);
+        }
+    }
+
+    public synchronized int size() {
+        return sets.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tags("cache", NAME, "result", "hit")
+                .description("Number of sets served from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tags("cache", NAME, "result", "miss")
+                .description("Number of sets loaded from the database")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", NAME)
+                .register(registry);
+        Gauge.builder("cache.size", this, PublicSetCache::size)
+                .tag("cache", NAME)
+                .register(registry);
+        Gauge.builder("cache.weight", this, PublicSetCache::weight)
+                .tag("cache", NAME)
+                .description("Number of cached sets and cards")
+                .register(registry);
+    }
+
+    private CardSetDto find(long setId) {
+        Entry entry = sets.get(setId);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            sets.remove(setId);
+            weight -= weigh(entry.set);
+            return null;
+        }
+
+        return entry.set;
+    }
+
+    /**
+     * Finish a load of the set and cache a copy of the loaded set if it is still current
+     *
+     * @param loaded loaded set, null if the load failed
+     */
+    private synchronized void complete(long setId, CardSetDto loaded, long generation) {
+        Generation loading = generations.get(setId);
+        boolean current = loading.value == generation;
+        if (--loading.loads == 0) {
+            generations.remove(setId);
+        }
+
+        if (current && loaded != null && loaded.getType() == SetType.PUBLIC) {
+            put(setId, copy(loaded));
+        }
+    }
+
+    private void put(long setId, CardSetDto set) {
+        long setWeight = weigh(set);
+        if (setWeight > maxWeight) {
+            return;
+        }
+
+        Entry replaced = sets.put(setId, new Entry(set, System.currentTimeMillis() + ttlMillis));
+        weight += setWeight - (replaced == null ? 0 : weigh(replaced.set));
+
+        Iterator<Map.Entry<Long, Entry>> eldest = sets.entrySet().iterator();
+        while (sets.size() > maxEntries || weight > maxWeight) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= weigh(evicted.set);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long weigh(CardSetDto set) {
+        return 1L + (set.getCards() == null ? 0 : set.getCards().size());
+    }
+
+    private static CardSetDto copy(CardSetDto set) {
+        UserDto author = set.getAuthor() == null ? null : new UserDto(set.getAuthor().getId(), set.getAuthor().getNickname(),
+                set.getAuthor().getEmail(), set.getAuthor().getPassword(), set.getAuthor().getCreatedAt());
+        HashSet<CardDto> cards = set.getCards() == null ? null : set.getCards().stream()
+                .map(card -> new CardDto(card.getId(), card.getFront(), card.getBack(), card.getCreatedAt(), card.getUpdatedAt()))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        return new CardSetDto(set.getId(), author, set.getName(), set.getDescription(), set.getType(),
+                set.getCreatedAt(), set.getUpdatedAt(), cards, set.getRevision());
+    }
+
+    private static class Entry {
+        private final CardSetDto set;
+        private final long expiresAt;
+
+        private Entry(CardSetDto set, long expiresAt) {
+            this.set = set;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Generation {
+        private long value;
+        private int loads;
+    }
+}
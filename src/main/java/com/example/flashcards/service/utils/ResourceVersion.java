@@ -0,0 +1,70 @@
+package com.example.flashcards.service.utils;
+
+import com.example.flashcards.dto.set.CardSetDto;
+import lombok.Value;
+import org.springframework.http.HttpHeaders;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Strong entity tag and modification time of a set or a card, used to answer conditional requests.
+ * Tags are derived from the revision of the set, so any change of the set or its cards changes them
+ */
+@Value
+public class ResourceVersion {
+    String eTag;
+    LocalDateTime lastModified;
+
+    public static ResourceVersion ofSet(long setId, long revision, LocalDateTime lastModified) {
+        return new ResourceVersion(String.format("\"s%d-%d\"", setId, revision), lastModified);
+    }
+
+    public static ResourceVersion ofSet(CardSetDto set) {
+        LocalDateTime lastModified = set.getUpdatedAt() == null ? set.getCreatedAt() : set.getUpdatedAt();
+        return ofSet(set.getId(), set.getRevision(), lastModified);
+    }
+
+    public static ResourceVersion ofCard(long cardId, long setId, long revision, LocalDateTime lastModified) {
+        return new ResourceVersion(String.format("\"c%d-%d-%d\"", cardId, setId, revision), lastModified);
+    }
+
+    /**
+     * Whether the client already has this version. If-Modified-Since is only used without If-None-Match
+     *
+     * @param request headers of the request
+     * @return true if the response can be 304 Not Modified
+     */
+    public boolean isKnownBy(HttpHeaders request) {
+        List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || stripWeak(tag).equals(eTag));
+        }
+
+        if (lastModified == null) {
+            return false;
+        }
+
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        return ifModifiedSince >= 0 && getLastModifiedMillis() <= ifModifiedSince;
+    }
+
+    /**
+     * Modification time truncated to seconds, the precision of HTTP dates
+     */
+    public long getLastModifiedMillis() {
+        return lastModified.truncatedTo(ChronoUnit.SECONDS).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.flashcards.service.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key. The first caller runs the load in its own thread,
+ * callers arriving while it runs wait for its result instead of loading the key again.
+ * <p>
+ * A caller waits at most the timeout and then runs the load itself, so a stuck load can't block
+ * the following requests. Failures are shared like results. Nothing is kept after the load finishes,
+ * results are shared only by the callers that overlap with it
+ *
+ * @param <K> type of the key
+ * @param <V> type of the result
+ */
+@Slf4j
+public class SingleFlight<K, V> {
+    private final long timeoutMillis;
+
+    private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Run the load or wait for the load of the key already in flight
+     *
+     * @param key  key of the load including all its parameters
+     * @param load loads the value. Must give the same result to every caller of the key
+     * @return loaded value, shared with the callers that waited for it
+     */
+    public V execute(K key, Supplier<V> load) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(key, existing, load);
+        }
+
+        try {
+            V value = load.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Let the next caller of the key start a new load. Callers already waiting still get the result
+     * of the load in flight. Call after the loaded data changed
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    /**
+     * Let the next caller of every key start a new load. Call after a change that affects all the keys
+     */
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private V await(K key, CompletableFuture<V> flight, Supplier<V> load) {
+        try {
+            return flight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Load of {} didn't finish in {} ms, load it again", key, timeoutMillis);
+            return load.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for the load of %s", key), e);
+        }
+    }
+}
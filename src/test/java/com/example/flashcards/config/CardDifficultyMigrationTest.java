@@ -0,0 +1,125 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.User;
+import com.example.flashcards.model.learning.CardProgress;
+import com.example.flashcards.model.learning.Difficulty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Runs the migration against committed data, the way it runs at startup
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardDifficultyMigrationTest {
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        inTransaction(entityManager -> {
+            entityManager.createQuery("delete from CardProgress").executeUpdate();
+            entityManager.createQuery("delete from Card").executeUpdate();
+            entityManager.createQuery("delete from CardSet").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    void givenMigration_thenCopyStudiedDifficultiesToProgressOfAuthor() {
+        // given
+        long[] ids = inTransaction(entityManager -> {
+            User author = User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build();
+            entityManager.persist(author);
+            CardSet set = CardSet.builder().name("French").author(author).type(SetType.PRIVATE).createdAt(LocalDateTime.now()).build();
+            entityManager.persist(set);
+
+            Card good = card(set, "Bonjour", Difficulty.GOOD);
+            Card hard = card(set, "Merci", Difficulty.HARD);
+            Card easy = card(set, "Oui", Difficulty.EASY);
+            List.of(good, hard, easy).forEach(entityManager::persist);
+
+            return new long[]{author.getId(), good.getId(), easy.getId()};
+        });
+
+        // when
+        new CardDifficultyMigration(entityManagerFactory).afterPropertiesSet();
+        new CardDifficultyMigration(entityManagerFactory).afterPropertiesSet();
+
+        // then
+        List<CardProgress> progresses = inTransaction(entityManager -> entityManager
+                .createQuery("select p from CardProgress p order by p.cardId", CardProgress.class).getResultList());
+        List<Card> cards = inTransaction(entityManager -> entityManager
+                .createQuery("select c from Card c", Card.class).getResultList());
+
+        assertThat(progresses.stream().map(CardProgress::getCardId).collect(Collectors.toList()), contains(ids[1], ids[2]));
+        assertThat(progresses.stream().map(CardProgress::getDifficulty).collect(Collectors.toList()), contains(Difficulty.GOOD, Difficulty.EASY));
+        assertThat(progresses.stream().map(CardProgress::getUserId).collect(Collectors.toList()), everyItem(is(ids[0])));
+        assertThat(cards.stream().map(Card::getDifficulty).collect(Collectors.toList()), everyItem(nullValue()));
+    }
+
+    @Test
+    void givenMigration_whenAuthorAlreadyHasProgress_thenKeepIt() {
+        // given
+        long cardId = inTransaction(entityManager -> {
+            User author = User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build();
+            entityManager.persist(author);
+            CardSet set = CardSet.builder().name("French").author(author).type(SetType.PRIVATE).createdAt(LocalDateTime.now()).build();
+            entityManager.persist(set);
+            Card card = card(set, "Bonjour", Difficulty.EASY);
+            entityManager.persist(card);
+
+            entityManager.persist(CardProgress.builder().userId(author.getId()).setId(set.getId()).cardId(card.getId())
+                    .difficulty(Difficulty.HARD).easeFactor(2.5).dueAt(LocalDateTime.now()).build());
+            return card.getId();
+        });
+
+        // when
+        new CardDifficultyMigration(entityManagerFactory).afterPropertiesSet();
+
+        // then
+        List<CardProgress> progresses = inTransaction(entityManager -> entityManager
+                .createQuery("select p from CardProgress p", CardProgress.class).getResultList());
+        Card card = inTransaction(entityManager -> entityManager.find(Card.class, cardId));
+
+        assertThat(progresses.stream().map(CardProgress::getDifficulty).collect(Collectors.toList()), contains(Difficulty.HARD));
+        assertThat(card.getDifficulty(), nullValue());
+    }
+
+    private static Card card(CardSet set, String front, Difficulty difficulty) {
+        return Card.builder().front(front).back(front).set(set).difficulty(difficulty).createdAt(LocalDateTime.now()).build();
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            T result = action.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
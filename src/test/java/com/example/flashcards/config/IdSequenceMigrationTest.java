@@ -0,0 +1,73 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the migration against committed data, the way it runs at startup
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequenceMigrationTest {
+    private static final String NEXT_VALUE = "select base_value from information_schema.sequences where lower(sequence_name) = ?";
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from person");
+    }
+
+    @Test
+    void givenMigration_whenIdsWereGeneratedPastTheSequence_thenRestartItAfterThem() {
+        // given
+        jdbcTemplate.update("insert into person (id, nickname, email, enabled) values (?, ?, ?, ?)",
+                1000L, "j@d0e", "j.doe@mail.com", true);
+
+        // when
+        new IdSequenceMigration(jdbcTemplate, entityManagerFactory).afterPropertiesSet();
+
+        // then
+        assertThat(nextValue("person_seq"), is(1000 + IdSequenceMigration.ALLOCATION_SIZE + 1));
+    }
+
+    @Test
+    void givenMigration_whenSequenceIsAheadOfIds_thenLeaveItUntouched() {
+        // given
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build());
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+        long next = nextValue("person_seq");
+
+        // when
+        new IdSequenceMigration(jdbcTemplate, entityManagerFactory).afterPropertiesSet();
+        new IdSequenceMigration(jdbcTemplate, entityManagerFactory).afterPropertiesSet();
+
+        // then
+        assertThat(nextValue("person_seq"), is(next));
+    }
+
+    private long nextValue(String sequence) {
+        return jdbcTemplate.queryForObject(NEXT_VALUE, Long.class, sequence);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.User;
+import com.example.flashcards.model.learning.CardSide;
+import com.example.flashcards.model.learning.Question;
+import com.example.flashcards.model.learning.QuestionRollup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Runs the migration against committed data, the way it runs at startup
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QuestionHistoryMigrationTest {
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        inTransaction(entityManager -> {
+            entityManager.createQuery("delete from QuestionRollup").executeUpdate();
+            entityManager.createQuery("delete from Question").executeUpdate();
+            entityManager.createQuery("delete from Card").executeUpdate();
+            entityManager.createQuery("delete from CardSet").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    void givenMigration_thenSetCreationTimeOfOldQuestionsAndCreateRollupProgress() {
+        // given
+        LocalDateTime start = LocalDateTime.now();
+        LocalDateTime createdAt = start.minusDays(200).truncatedTo(ChronoUnit.SECONDS);
+        long[] ids = inTransaction(entityManager -> {
+            User user = User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build();
+            entityManager.persist(user);
+            CardSet set = CardSet.builder().name("French").author(user).type(SetType.PRIVATE).createdAt(createdAt).build();
+            entityManager.persist(set);
+            Card card = Card.builder().front("Bonjour").back("Hello").set(set).createdAt(createdAt).build();
+            entityManager.persist(card);
+
+            Question old = Question.builder().user(user).card(card).cardSide(CardSide.FRONT).build();
+            Question recent = Question.builder().user(user).card(card).cardSide(CardSide.FRONT).createdAt(createdAt).build();
+            List.of(old, recent).forEach(entityManager::persist);
+            return new long[]{old.getId(), recent.getId()};
+        });
+
+        // when
+        new QuestionHistoryMigration(jdbcTemplate).afterPropertiesSet();
+        new QuestionHistoryMigration(jdbcTemplate).afterPropertiesSet();
+
+        // then
+        Question old = inTransaction(entityManager -> entityManager.find(Question.class, ids[0]));
+        Question recent = inTransaction(entityManager -> entityManager.find(Question.class, ids[1]));
+        List<QuestionRollup> rollups = inTransaction(entityManager -> entityManager
+                .createQuery("select r from QuestionRollup r", QuestionRollup.class).getResultList());
+
+        assertThat(old.getCreatedAt(), notNullValue());
+        assertThat(old.getCreatedAt().isBefore(start), is(false));
+        assertThat(recent.getCreatedAt(), is(createdAt));
+        assertThat(rollups, hasSize(1));
+        assertThat(rollups.get(0).getId(), is(QuestionRollup.ID));
+        assertThat(rollups.get(0).getLastDay(), nullValue());
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            T result = action.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
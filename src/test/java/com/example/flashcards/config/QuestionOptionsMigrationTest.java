@@ -0,0 +1,183 @@
+package com.example.flashcards.config;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.User;
+import com.example.flashcards.model.learning.CardSide;
+import com.example.flashcards.model.learning.Question;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the migration against a committed legacy question_options table, the way it runs at startup
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QuestionOptionsMigrationTest {
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void init() {
+        jdbcTemplate.execute("create table question_options (question_id bigint not null, options varchar(255))");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("drop table if exists question_options");
+        inTransaction(entityManager -> {
+            entityManager.createQuery("delete from Question").executeUpdate();
+            entityManager.createQuery("delete from Card").executeUpdate();
+            entityManager.createQuery("delete from CardSet").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    void givenMigration_thenResolveOptionsToCardsInStoredOrder() {
+        // given
+        long[] ids = inTransaction(entityManager -> {
+            CardSet set = set(entityManager);
+            Card bonsoir = card(set, "Bonsoir", "Good evening");
+            Card merci = card(set, "Merci", "Thank you");
+            Card salut = card(set, "Salut", "Hi");
+            List.of(bonsoir, merci, salut).forEach(entityManager::persist);
+
+            Question question = question(set.getAuthor(), bonsoir, "Bonsoir", "Good evening");
+            entityManager.persist(question);
+            return new long[]{question.getId(), bonsoir.getId(), merci.getId(), salut.getId()};
+        });
+        insertOptions(ids[0], "Thank you", "Hi", "Good evening");
+
+        // when
+        new QuestionOptionsMigration(jdbcTemplate, transactionManager, 500).afterPropertiesSet();
+
+        // then
+        Question question = inTransaction(entityManager -> entityManager.find(Question.class, ids[0]));
+
+        assertThat(question.getOptionIds(), is(new long[]{ids[2], ids[3], ids[1]}));
+        assertThat(question.getQuestion(), is("Bonsoir"));
+        assertThat(question.getCorrectAnswer(), is("Good evening"));
+        assertThat(tableExists(), is(false));
+    }
+
+    @Test
+    void givenMigration_whenOptionMatchesSeveralCards_thenKeepStoredTexts() {
+        // given
+        long questionId = inTransaction(entityManager -> {
+            CardSet set = set(entityManager);
+            Card bonjour = card(set, "Bonjour", "Hello");
+            Card salut = card(set, "Salut", "Hello");
+            Card merci = card(set, "Merci", "Thank you");
+            List.of(bonjour, salut, merci).forEach(entityManager::persist);
+
+            Question question = question(set.getAuthor(), merci, "Merci", "Thank you");
+            entityManager.persist(question);
+            return question.getId();
+        });
+        insertOptions(questionId, "Hello", "Thank you");
+
+        // when
+        new QuestionOptionsMigration(jdbcTemplate, transactionManager, 500).afterPropertiesSet();
+
+        // then
+        Question question = inTransaction(entityManager -> entityManager.find(Question.class, questionId));
+
+        assertThat(question.getOptionIds().length, is(0));
+        assertThat(question.getQuestion(), is("Merci"));
+        assertThat(question.getCorrectAnswer(), is("Thank you"));
+        assertThat(tableExists(), is(false));
+    }
+
+    @Test
+    void givenMigration_whenQuestionsSpanSeveralBatches_thenMigrateEveryBatch() {
+        // given
+        long[] ids = inTransaction(entityManager -> {
+            CardSet set = set(entityManager);
+            Card bonsoir = card(set, "Bonsoir", "Good evening");
+            Card merci = card(set, "Merci", "Thank you");
+            List.of(bonsoir, merci).forEach(entityManager::persist);
+
+            Question first = question(set.getAuthor(), bonsoir, "Bonsoir", "Good evening");
+            Question second = question(set.getAuthor(), merci, "Merci", "Thank you");
+            List.of(first, second).forEach(entityManager::persist);
+            return new long[]{first.getId(), second.getId(), bonsoir.getId(), merci.getId()};
+        });
+        insertOptions(ids[0], "Thank you", "Good evening");
+        insertOptions(ids[1], "Good evening", "Thank you");
+
+        // when
+        new QuestionOptionsMigration(jdbcTemplate, transactionManager, 1).afterPropertiesSet();
+
+        // then
+        Question first = inTransaction(entityManager -> entityManager.find(Question.class, ids[0]));
+        Question second = inTransaction(entityManager -> entityManager.find(Question.class, ids[1]));
+
+        assertThat(first.getOptionIds(), is(new long[]{ids[3], ids[2]}));
+        assertThat(second.getOptionIds(), is(new long[]{ids[2], ids[3]}));
+        assertThat(tableExists(), is(false));
+    }
+
+    private void insertOptions(long questionId, String... options) {
+        for (String option : options) {
+            jdbcTemplate.update("insert into question_options (question_id, options) values (?, ?)", questionId, option);
+        }
+    }
+
+    private boolean tableExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) = 'question_options'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private static CardSet set(EntityManager entityManager) {
+        User author = User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build();
+        entityManager.persist(author);
+        CardSet set = CardSet.builder().name("French").author(author).type(SetType.PRIVATE).createdAt(LocalDateTime.now()).build();
+        entityManager.persist(set);
+        return set;
+    }
+
+    private static Card card(CardSet set, String front, String back) {
+        return Card.builder().front(front).back(back).set(set).createdAt(LocalDateTime.now()).build();
+    }
+
+    private static Question question(User user, Card card, String question, String correctAnswer) {
+        return Question.builder().user(user).card(card).cardSide(CardSide.FRONT)
+                .question(question).correctAnswer(correctAnswer).createdAt(LocalDateTime.now()).build();
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            T result = action.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
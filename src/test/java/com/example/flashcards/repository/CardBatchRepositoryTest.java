@@ -0,0 +1,81 @@
+package com.example.flashcards.repository;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+
+@DataJpaTest
+@Import(CardBatchRepository.class)
+class CardBatchRepositoryTest {
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    CardBatchRepository cardBatchRepository;
+
+    @Test
+    void givenCopyAll_thenCopyCardsInOrderWithIdsOfOneBlock() {
+        // given
+        User author = entityManager.persist(User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build());
+        CardSet original = entityManager.persist(set(author, "French"));
+        CardSet fork = entityManager.persist(set(author, "French copy"));
+        entityManager.persist(Card.builder().front("Bonjour").back("Hello").set(original).createdAt(LocalDateTime.now()).build());
+        entityManager.persist(Card.builder().front("Merci").back("Thank you").set(original).createdAt(LocalDateTime.now()).build());
+        entityManager.persist(Card.builder().front("Salut").back(null).set(original).createdAt(LocalDateTime.now()).build());
+        entityManager.flush();
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        // when
+        int copied = cardBatchRepository.copyAll(original.getId(), fork.getId(), now);
+
+        // then
+        List<Card> copies = entityManager.getEntityManager()
+                .createQuery("select c from Card c where c.set.id = :setId order by c.id", Card.class)
+                .setParameter("setId", fork.getId())
+                .getResultList();
+
+        assertThat(copied, is(3));
+        assertThat(copies.stream().map(Card::getFront).collect(Collectors.toList()), contains("Bonjour", "Merci", "Salut"));
+        assertThat(copies.stream().map(Card::getBack).collect(Collectors.toList()), contains("Hello", "Thank you", null));
+        assertThat(copies.stream().map(Card::getCreatedAt).collect(Collectors.toList()), everyItem(is(now)));
+        // consecutive ids come from the block of the pooled optimizer, not from a sequence call per card
+        assertThat(copies.get(1).getId() - copies.get(0).getId(), is(1L));
+        assertThat(copies.get(2).getId() - copies.get(1).getId(), is(1L));
+    }
+
+    @Test
+    void givenCopyAll_whenSetHasNoCards_thenCopyNothing() {
+        // given
+        User author = entityManager.persist(User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build());
+        CardSet original = entityManager.persist(set(author, "French"));
+        CardSet fork = entityManager.persist(set(author, "French copy"));
+        entityManager.flush();
+
+        // when
+        int copied = cardBatchRepository.copyAll(original.getId(), fork.getId(), LocalDateTime.now());
+
+        // then
+        assertThat(copied, is(0));
+    }
+
+    private static CardSet set(User author, String name) {
+        return CardSet.builder().name(name).author(author).type(SetType.PRIVATE).createdAt(LocalDateTime.now()).build();
+    }
+}
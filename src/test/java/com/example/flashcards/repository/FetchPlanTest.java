@@ -0,0 +1,137 @@
+package com.example.flashcards.repository;
+
+import com.example.flashcards.config.ModelMapperConfig;
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.pagination.CountMode;
+import com.example.flashcards.dto.pagination.PaginationRequest;
+import com.example.flashcards.dto.pagination.PaginationResponse;
+import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.set.CardSetSummaryDto;
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.User;
+import com.example.flashcards.service.CardService;
+import com.example.flashcards.service.CardSetService;
+import com.example.flashcards.service.impl.CardServiceImpl;
+import com.example.flashcards.service.impl.CardSetServiceImpl;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetNameTrie;
+import com.example.flashcards.service.search.SetSearchIndex;
+import com.example.flashcards.service.utils.CountCache;
+import com.example.flashcards.service.utils.DtoMappers;
+import com.example.flashcards.service.utils.PublicSetCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Counts the statements executed by the read paths, so a regression to N+1 loading fails the build
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({CardSetServiceImpl.class, CardServiceImpl.class, CardBatchRepository.class, DtoMappers.class, ModelMapperConfig.class,
+        LearningSessionCache.class, CardCounts.class, CountCache.class, SetSearchIndex.class, SetNameTrie.class,
+        PublicSetCache.class})
+class FetchPlanTest {
+    private static final int CARDS = 10;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    CardSetService setService;
+
+    @Autowired
+    CardService cardService;
+
+    private Statistics statistics;
+    private Authentication auth;
+    private CardSet set;
+    private Card card;
+
+    @BeforeEach
+    void init() {
+        User author = entityManager.persist(User.builder().nickname("j@d0e").email("j.doe@mail.com").enabled(true).build());
+        auth = new UsernamePasswordAuthenticationToken(author.getEmail(), null);
+
+        for (int i = 0; i < 3; i++) {
+            set = entityManager.persist(CardSet.builder().name("Set " + i).author(author)
+                    .type(SetType.PUBLIC).createdAt(LocalDateTime.now()).build());
+        }
+        for (int i = 0; i < CARDS; i++) {
+            card = entityManager.persist(Card.builder().front("front " + i).back("back " + i).set(set)
+                    .createdAt(LocalDateTime.now()).build());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void givenGetSetById_thenLoadSetWithAuthorAndCardsWithoutLazyLoads() {
+        CardSetDto result = setService.getSetById(set.getId(), auth);
+
+        assertThat(result.getCards(), hasSize(CARDS));
+        // set with author and cards, authenticated user
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    void givenGetSetById_whenPublicSetIsCached_thenRunNoStatements() {
+        setService.getSetById(set.getId(), auth);
+        statistics.clear();
+
+        CardSetDto result = setService.getSetById(set.getId(), auth);
+
+        assertThat(result.getCards(), hasSize(CARDS));
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+    }
+
+    @Test
+    void givenGetCardById_thenLoadSetAndCardWithoutLazyLoads() {
+        CardDto result = cardService.getCardById(card.getId(), set.getId(), auth);
+
+        assertThat(result.getId(), is(card.getId()));
+        // set with author, card with set, authenticated user
+        assertThat(statistics.getPrepareStatementCount(), is(3L));
+    }
+
+    @Test
+    void givenGetPublicSets_whenCountIsExact_thenRunPageAndCountStatements() {
+        // A page smaller than the listing, a short first page would make the total known without a count
+        PaginationResponse<CardSetSummaryDto> result = setService.getPublicSets(new PaginationRequest(0, 2, CountMode.EXACT));
+
+        assertThat(result.getContent(), hasSize(2));
+        assertThat(result.getTotalElements(), is(3L));
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    void givenGetPublicSets_whenCountIsDisabled_thenRunOnlyPageStatement() {
+        PaginationResponse<CardSetSummaryDto> result = setService.getPublicSets(new PaginationRequest(0, 10, CountMode.NONE));
+
+        assertThat(result.getContent(), hasSize(3));
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+    }
+}
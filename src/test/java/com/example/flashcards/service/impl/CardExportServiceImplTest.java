@@ -0,0 +1,144 @@
+package com.example.flashcards.service.impl;
+
+import com.example.flashcards.exceptions.ResourceNotAccessible;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
+import com.example.flashcards.model.User;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.CardSetRepository;
+import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.service.CardExportService;
+import com.example.flashcards.service.cards.CardExport;
+import com.example.flashcards.service.cards.CardListFormat;
+import com.example.flashcards.service.cards.CardRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardExportServiceImplTest {
+    CardRepository cardRepository;
+    CardSetRepository setRepository;
+    UserRepository userRepository;
+    PlatformTransactionManager transactionManager;
+
+    CardExportService exportService;
+
+    private final User author = User.builder().id(3L).email("j.doe@mail.com").nickname("j@d0e").build();
+    private final Authentication auth = new UsernamePasswordAuthenticationToken(author.getEmail(), null);
+
+    @BeforeEach
+    void init() {
+        cardRepository = Mockito.mock(CardRepository.class);
+        setRepository = Mockito.mock(CardSetRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+
+        exportService = new CardExportServiceImpl(cardRepository, setRepository, userRepository, transactionManager);
+
+        when(userRepository.findByEmail(author.getEmail())).thenReturn(Optional.of(author));
+    }
+
+    @Test
+    void givenExportCards_whenCsv_thenWriteHeaderAndQuoteFields() throws IOException {
+        // given
+        CardSet set = CardSet.builder().id(1L).author(author).name("French: basics").type(SetType.PRIVATE).build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(set));
+        when(cardRepository.streamRowsBySetId(1L)).thenReturn(Stream.of(
+                new CardRow("Bonjour", "Hello"),
+                new CardRow("Merci, beaucoup", "Thank you\nvery much"),
+                new CardRow("Il dit \"oui\"", null)
+        ));
+
+        CardExport export = exportService.exportCards(1L, CardListFormat.CSV, auth);
+        String result = write(export);
+
+        // then
+        assertThat(export.getFilename(), is("French_basics.csv"));
+        assertThat(result, is("front,back\r\n" +
+                "Bonjour,Hello\r\n" +
+                "\"Merci, beaucoup\",\"Thank you\nvery much\"\r\n" +
+                "\"Il dit \"\"oui\"\"\",\r\n"));
+    }
+
+    @Test
+    void givenExportCards_whenFieldsStartLikeFormulas_thenPrefixThemWithApostrophe() throws IOException {
+        // given
+        CardSet set = CardSet.builder().id(1L).author(author).name("Formulas").build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(set));
+        when(cardRepository.streamRowsBySetId(1L)).thenReturn(Stream.of(
+                new CardRow("=1+2", "+3"),
+                new CardRow("-4", "@SUM(A1)"),
+                new CardRow("\tTab", "a-b"),
+                new CardRow("'=A1", "'quoted")
+        ));
+
+        String csv = write(exportService.exportCards(1L, CardListFormat.CSV, auth));
+
+        // then
+        assertThat(csv, is("front,back\r\n" +
+                "'=1+2,'+3\r\n" +
+                "'-4,'@SUM(A1)\r\n" +
+                "'\tTab,a-b\r\n" +
+                "''=A1,'quoted\r\n"));
+    }
+
+    @Test
+    void givenExportCards_whenNdjson_thenWriteObjectPerLine() throws IOException {
+        // given
+        CardSet set = CardSet.builder().id(1L).author(author).name("French").build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(set));
+        when(cardRepository.streamRowsBySetId(1L)).thenReturn(Stream.of(
+                new CardRow("Bonjour", "Hello"),
+                new CardRow("Salut", null)
+        ));
+
+        String result = write(exportService.exportCards(1L, CardListFormat.NDJSON, auth));
+
+        // then
+        assertThat(result, is("{\"front\":\"Bonjour\",\"back\":\"Hello\"}\n{\"front\":\"Salut\"}\n"));
+    }
+
+    @Test
+    void givenExportCards_whenUserIsNotSetAuthorAndTypeIsPrivate_thenThrowException() {
+        // given
+        User other = User.builder().id(6L).email("test@mail.com").build();
+        CardSet set = CardSet.builder().id(1L).author(other).name("French").type(SetType.PRIVATE).build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(set));
+
+        // then
+        assertThrows(ResourceNotAccessible.class, () -> exportService.exportCards(1L, CardListFormat.CSV, auth));
+        verify(cardRepository, never()).streamRowsBySetId(anyLong());
+    }
+
+    private static String write(CardExport export) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        export.writeTo(output);
+
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.flashcards.service.impl;
+
+import com.example.flashcards.dto.card.CardImportResultDto;
+import com.example.flashcards.exceptions.ResourceNotAccessible;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.User;
+import com.example.flashcards.repository.CardBatchRepository;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.CardSetRepository;
+import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.service.CardImportService;
+import com.example.flashcards.service.cards.CardListFormat;
+import com.example.flashcards.service.cards.CardRow;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetSearchIndex;
+import com.example.flashcards.service.utils.PublicSetCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardImportServiceImplTest {
+    CardRepository cardRepository;
+    CardBatchRepository cardBatchRepository;
+    CardSetRepository setRepository;
+    UserRepository userRepository;
+    LearningSessionCache sessions;
+    CardCounts counts;
+    SetSearchIndex searchIndex;
+    PublicSetCache setCache;
+    PlatformTransactionManager transactionManager;
+
+    CardImportService importService;
+
+    private final User author = User.builder().id(3L).email("j.doe@mail.com").nickname("j@d0e").build();
+    private final CardSet set = CardSet.builder().id(1L).author(author).name("French").build();
+    private final Authentication auth = new UsernamePasswordAuthenticationToken(author.getEmail(), null);
+
+    private final List<CardRow> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        cardRepository = Mockito.mock(CardRepository.class);
+        cardBatchRepository = Mockito.mock(CardBatchRepository.class);
+        setRepository = Mockito.mock(CardSetRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+        sessions = Mockito.mock(LearningSessionCache.class);
+        counts = Mockito.mock(CardCounts.class);
+        searchIndex = Mockito.mock(SetSearchIndex.class);
+        setCache = Mockito.mock(PublicSetCache.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+
+        importService = new CardImportServiceImpl(cardRepository, cardBatchRepository, setRepository, userRepository, sessions, counts, searchIndex, setCache, transactionManager);
+
+        when(userRepository.findByEmail(author.getEmail())).thenReturn(Optional.of(author));
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(set));
+        when(cardRepository.findFrontsBySetId(1L)).thenReturn(new HashSet<>(Set.of("Bonjour")));
+        when(cardBatchRepository.getBatchSize()).thenReturn(2);
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(1)))
+                .when(cardBatchRepository).insertAll(eq(1L), anyList(), any());
+    }
+
+    @Test
+    void givenImportCards_whenCsvHasHeaderQuotesAndDuplicates_thenCommitNewCardsInBatches() {
+        // given
+        String csv = "front,back\r\n" +
+                "Bonjour,Hello\r\n" +
+                "\"Merci, beaucoup\",\"Thank you\nvery much\"\r\n" +
+                "\"Il dit \"\"oui\"\"\",He says \"yes\"\r\n" +
+                ",No front\r\n" +
+                "\r\n" +
+                "Salut,Hi\r\n" +
+                "Salut,Hi again\r\n";
+
+        // when
+        CardImportResultDto result = importService.importCards(1L, input(csv), CardListFormat.CSV, true, StandardCharsets.UTF_8, auth);
+
+        // then
+        assertThat(inserted, contains(
+                new CardRow("Merci, beaucoup", "Thank you\nvery much"),
+                new CardRow("Il dit \"oui\"", "He says \"yes\""),
+                new CardRow("Salut", "Hi")
+        ));
+        verify(cardBatchRepository, times(2)).insertAll(eq(1L), anyList(), any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(setRepository, times(2)).incrementRevision(eq(1L), any());
+        verify(sessions, times(2)).evict(1L);
+        verify(setCache, times(2)).invalidate(1L);
+        verify(counts).cardsAdded(1L, 2);
+        verify(counts).cardsAdded(1L, 1);
+        verify(searchIndex).addCard(1L, "Salut", "Hi");
+
+        assertThat(result.getImported(), is(3L));
+        assertThat(result.getDuplicates(), is(2L));
+        assertThat(result.getInvalid(), is(1L));
+    }
+
+    @Test
+    void givenImportCards_whenCsvHasNoHeader_thenImportFirstRowAsCard() {
+        // given
+        String csv = "front,back\r\nSalut,Hi\r\n";
+
+        // when
+        CardImportResultDto result = importService.importCards(1L, input(csv), CardListFormat.CSV, false, StandardCharsets.UTF_8, auth);
+
+        // then
+        assertThat(inserted, contains(new CardRow("front", "back"), new CardRow("Salut", "Hi")));
+        assertThat(result.getImported(), is(2L));
+    }
+
+    @Test
+    void givenImportCards_whenTsv_thenSplitOnTabs() {
+        // given
+        String tsv = "Merci, beaucoup\tThank you\nSalut\n";
+
+        // when
+        CardImportResultDto result = importService.importCards(1L, input(tsv), CardListFormat.TSV, false, StandardCharsets.UTF_8, auth);
+
+        // then
+        assertThat(inserted, contains(new CardRow("Merci, beaucoup", "Thank you"), new CardRow("Salut", null)));
+        assertThat(result.getImported(), is(2L));
+    }
+
+    @Test
+    void givenImportCards_whenFieldsHaveFormulaPrefix_thenRemoveIt() {
+        // given
+        String csv = "front,back\r\n'=1+2,'+3\r\n''-4,'quoted\r\n";
+
+        // when
+        CardImportResultDto result = importService.importCards(1L, input(csv), CardListFormat.CSV, true, StandardCharsets.UTF_8, auth);
+
+        // then
+        assertThat(inserted, contains(new CardRow("=1+2", "+3"), new CardRow("'-4", "'quoted")));
+        assertThat(result.getImported(), is(2L));
+    }
+
+    @Test
+    void givenImportCards_whenNdjsonHasMalformedLines_thenSkipThem() {
+        // given
+        String ndjson = "{\"front\": \"Merci\", \"back\": \"Thank you\"}\n" +
+                "{\"front\": \"Salut\"\n" +
+                "[1, 2]\n" +
+                "\n" +
+                "{\"back\": \"Hi\"}\n";
+
+        // when
+        CardImportResultDto result = importService.importCards(1L, input(ndjson), CardListFormat.NDJSON, false, StandardCharsets.UTF_8, auth);
+
+        // then
+        assertThat(inserted, contains(new CardRow("Merci", "Thank you")));
+        assertThat(result.getImported(), is(1L));
+        assertThat(result.getInvalid(), is(3L));
+    }
+
+    @Test
+    void givenImportCards_whenNothingIsNew_thenDontEvictSessions() {
+        // when
+        CardImportResultDto result = importService.importCards(1L, input("Bonjour,Hello\n"), CardListFormat.CSV, false, StandardCharsets.UTF_8, auth);
+
+        // then
+        verify(cardBatchRepository, never()).insertAll(anyLong(), anyList(), any());
+        verify(transactionManager, never()).getTransaction(any());
+        verify(sessions, never()).evict(anyLong());
+        assertThat(result.getDuplicates(), is(1L));
+    }
+
+    @Test
+    void givenImportCards_whenQuotedFieldIsNotTerminated_thenThrowException() {
+        // given
+        InputStream csv = input("Salut,\"Hi\n");
+
+        // then
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importCards(1L, csv, CardListFormat.CSV, false, StandardCharsets.UTF_8, auth));
+    }
+
+    @Test
+    void givenImportCards_whenUserIsNotAuthorOfTheSet_thenThrowException() {
+        // given
+        User other = User.builder().id(4L).email("other@mail.com").nickname("other").build();
+        Authentication otherAuth = new UsernamePasswordAuthenticationToken(other.getEmail(), null);
+
+        // when
+        when(userRepository.findByEmail(other.getEmail())).thenReturn(Optional.of(other));
+
+        // then
+        assertThrows(ResourceNotAccessible.class,
+                () -> importService.importCards(1L, input("Salut,Hi\n"), CardListFormat.CSV, false, StandardCharsets.UTF_8, otherAuth));
+        verify(cardRepository, never()).findFrontsBySetId(anyLong());
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
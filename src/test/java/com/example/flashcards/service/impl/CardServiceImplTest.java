@@ -1,6 +1,8 @@
 package com.example.flashcards.service.impl;
 
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.exceptions.ResourceAlreadyExist;
 import com.example.flashcards.exceptions.ResourceNotAccessible;
 import com.example.flashcards.exceptions.ResourceNotFound;
@@ -9,10 +11,18 @@ import com.example.flashcards.model.CardSet;
 import com.example.flashcards.model.SetType;
 import com.example.flashcards.model.User;
 import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.CardProgressRepository;
 import com.example.flashcards.repository.CardRepository;
 import com.example.flashcards.repository.CardSetRepository;
 import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.repository.projection.SetRevision;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetSearchIndex;
 import com.example.flashcards.service.utils.DtoMappers;
+import com.example.flashcards.service.utils.PublicSetCache;
+import com.example.flashcards.service.utils.PageCursor;
+import com.example.flashcards.service.utils.ResourceVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,19 +31,27 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,6 +66,21 @@ class CardServiceImplTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    CardProgressRepository progressRepository;
+
+    @Mock
+    LearningSessionCache sessions;
+
+    @Mock
+    CardCounts counts;
+
+    @Mock
+    SetSearchIndex searchIndex;
+
+    @Mock
+    PublicSetCache setCache;
+
     DtoMappers mappers;
 
     CardServiceImpl cardService;
@@ -58,7 +91,7 @@ class CardServiceImplTest {
         modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
 
         mappers = Mockito.spy(new DtoMappers(modelMapper));
-        cardService = new CardServiceImpl(cardRepository, setRepository, userRepository, mappers);
+        cardService = new CardServiceImpl(cardRepository, setRepository, userRepository, progressRepository, sessions, counts, searchIndex, setCache, mappers);
     }
 
     @Test
@@ -76,7 +109,7 @@ class CardServiceImplTest {
 
         // when
         when(mappers.mapCardDtoToCard(cardDto)).thenReturn(card);
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
         when(cardRepository.save(any(Card.class))).then(returnsFirstArg());
 
@@ -84,18 +117,54 @@ class CardServiceImplTest {
 
         // then
         verify(mappers).mapCardDtoToCard(cardDto);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
+        verify(cardRepository).existsBySetIdAndFront(setId, "Bonsoir");
         verify(cardRepository).save(any(Card.class));
         verify(mappers).mapCardToCardDto(any(Card.class));
+        verify(setRepository).incrementRevision(eq(setId), any(LocalDateTime.class));
+        verify(setCache).invalidate(setId);
 
         assertThat(card.getSet(), is(set));
-        assertThat(card.getDifficulty(), is(Difficulty.HARD));
+        assertThat(card.getDifficulty(), nullValue());
         assertThat(result.getFront(), is(cardDto.getFront()));
         assertThat(result.getBack(), is(cardDto.getBack()));
         assertThat(result.getCreatedAt(), is(notNullValue()));
     }
 
+    @Test
+    void givenSaveCard_whenTransactionIsActive_thenUpdateSessionsAfterCommit() {
+        // given
+        CardDto cardDto = CardDto.builder().front("Bonsoir").back("Good evening").build();
+        Card card = Card.builder().front("Bonsoir").back("Good evening").build();
+
+        String email = "jhn.doe@mail.com";
+        User author = User.builder().id(3L).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).cards(new HashSet<>()).build();
+
+        when(mappers.mapCardDtoToCard(cardDto)).thenReturn(card);
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
+        when(cardRepository.save(any(Card.class))).then(returnsFirstArg());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            cardService.saveCard(setId, cardDto, auth);
+
+            // then
+            verify(sessions, Mockito.never()).addCard(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(sessions).addCard(card);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     @Test
     void givenSaveCard_whenUserIsNotAuthorOfTheSet_thenThrowException() {
         // given
@@ -110,12 +179,12 @@ class CardServiceImplTest {
                 .author(User.builder().id(6L).email("test@mail.com").build()).cards(new HashSet<>()).build();
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.saveCard(setId, cardDto, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
     }
 
@@ -132,12 +201,12 @@ class CardServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.empty());
 
         // then
         assertThrows(ResourceNotFound.class, () -> cardService.saveCard(setId, cardDto, auth));
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
     }
 
 
@@ -150,21 +219,22 @@ class CardServiceImplTest {
 
         long setId = 4;
         CardSet set = CardSet.builder().id(setId).name("French").author(author).build();
-        set.setCards(Set.of(Card.builder().front("Bonsoir").set(set).build()));
 
         CardDto cardDto = CardDto.builder().front("Bonsoir").back("Good evening").build();
         Card card = Card.builder().front("Bonsoir").back("Good evening").build();
 
         // when
         when(mappers.mapCardDtoToCard(cardDto)).thenReturn(card);
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
+        when(cardRepository.existsBySetIdAndFront(setId, "Bonsoir")).thenReturn(true);
 
         // then
         assertThrows(ResourceAlreadyExist.class, () -> cardService.saveCard(setId, cardDto, auth));
         verify(mappers).mapCardDtoToCard(cardDto);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
+        verify(cardRepository, Mockito.never()).save(any(Card.class));
     }
 
     @Test
@@ -181,16 +251,16 @@ class CardServiceImplTest {
         Card card = Card.builder().id(cardId).set(set).front("Bonsoir").build();
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
 
         cardService.deleteCard(cardId, setId, auth);
 
         // then
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
         verify(cardRepository).delete(card);
     }
 
@@ -210,15 +280,15 @@ class CardServiceImplTest {
                 .set(CardSet.builder().id(1L).name("Test").author(author).build()).build();
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.deleteCard(cardId, setId, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
     }
 
     @Test
@@ -235,12 +305,12 @@ class CardServiceImplTest {
         long cardId = 2;
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.deleteCard(cardId, setId, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
     }
 
@@ -255,12 +325,12 @@ class CardServiceImplTest {
         long cardId = 2;
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.empty());
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
 
         // then
         assertThrows(ResourceNotFound.class, () -> cardService.deleteCard(cardId, setId, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
     }
 
@@ -281,16 +351,17 @@ class CardServiceImplTest {
         card.setSet(set);
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
         when(cardRepository.save(any(Card.class))).then(returnsFirstArg());
 
         CardDto result = cardService.replaceCard(cardId, setId, cardDto, auth);
 
         // then
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
+        verify(cardRepository).existsBySetIdAndFrontAndIdNot(setId, "Bonsoir", cardId);
         verify(cardRepository).save(card);
         verify(mappers).mapCardToCardDto(any(Card.class));
 
@@ -312,21 +383,22 @@ class CardServiceImplTest {
         Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
 
         long setId = 4;
-        CardSet set = CardSet.builder().id(setId).name("French").author(author)
-                .cards(Set.of(card, Card.builder().id(9L).front("Bonsoir").build())).build();
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).build();
 
         card.setSet(set);
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.existsBySetIdAndFrontAndIdNot(setId, "Bonsoir", cardId)).thenReturn(true);
 
         // then
         assertThrows(ResourceAlreadyExist.class, () -> cardService.replaceCard(cardId, setId, cardDto, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
+        assertThat(card.getFront(), is("Test"));
     }
 
     @Test
@@ -347,15 +419,15 @@ class CardServiceImplTest {
         card.setSet(otherSet);
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.replaceCard(cardId, setId, cardDto, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
     }
 
     @Test
@@ -372,15 +444,15 @@ class CardServiceImplTest {
         CardSet set = CardSet.builder().id(setId).name("French").author(author).cards(Set.of()).build();
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.empty());
 
         // then
         assertThrows(ResourceNotFound.class, () -> cardService.replaceCard(cardId, setId, cardDto, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
     }
 
     @Test
@@ -396,12 +468,12 @@ class CardServiceImplTest {
         long setId = 4;
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.empty());
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
 
         // then
         assertThrows(ResourceNotFound.class, () -> cardService.replaceCard(cardId, setId, cardDto, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
     }
 
@@ -421,12 +493,12 @@ class CardServiceImplTest {
         CardSet set = CardSet.builder().id(setId).name("French").author(author).cards(Set.of()).build();
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.replaceCard(cardId, setId, cardDto, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
     }
 
@@ -447,16 +519,16 @@ class CardServiceImplTest {
         card.setSet(set);
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
 
         CardDto result = cardService.getCardById(cardId, setId, auth);
 
         // then
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
         verify(mappers).mapCardToCardDto(card);
 
         assertThat(result.getId(), is(cardId));
@@ -484,16 +556,16 @@ class CardServiceImplTest {
         card.setSet(set);
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
 
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.getCardById(cardId, setId, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(userRepository).findByEmail(email);
-        verify(cardRepository).findById(cardId);
+        verify(cardRepository).findWithSetById(cardId);
     }
 
     @Test
@@ -513,14 +585,14 @@ class CardServiceImplTest {
         card.setSet(other);
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.of(card));
 
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> cardService.getCardById(cardId, setId, auth));
-        verify(setRepository).findById(setId);
-        verify(cardRepository).findById(cardId);
+        verify(setRepository).findWithAuthorById(setId);
+        verify(cardRepository).findWithSetById(cardId);
     }
 
     @Test
@@ -534,12 +606,12 @@ class CardServiceImplTest {
         long setId = 4;
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.empty());
 
 
         // then
         assertThrows(ResourceNotFound.class, () -> cardService.getCardById(cardId, setId, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
     }
 
     @Test
@@ -555,13 +627,159 @@ class CardServiceImplTest {
         CardSet set = CardSet.builder().id(setId).name("French").author(author).cards(Set.of()).build();
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(cardRepository.findWithSetById(cardId)).thenReturn(Optional.empty());
 
 
         // then
         assertThrows(ResourceNotFound.class, () -> cardService.getCardById(cardId, setId, auth));
-        verify(setRepository).findById(setId);
-        verify(cardRepository).findById(cardId);
+        verify(setRepository).findWithAuthorById(setId);
+        verify(cardRepository).findWithSetById(cardId);
+    }
+
+    @Test
+    void givenGetCards_whenThereAreMoreCards_thenReturnPageWithNextCursor() {
+        // given
+        String email = "jhn.doe@mail.com";
+        User author = User.builder().id(3L).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).type(SetType.PRIVATE).build();
+        LocalDateTime createdAt = LocalDateTime.of(2022, 6, 1, 10, 0);
+        PageCursor after = new PageCursor(createdAt, 20);
+        List<CardDto> cards = List.of(
+                CardDto.builder().id(11).front("Bonjour").createdAt(createdAt.plusMinutes(1)).build(),
+                CardDto.builder().id(12).front("Bonsoir").createdAt(createdAt.plusMinutes(1)).build(),
+                CardDto.builder().id(15).front("Salut").createdAt(createdAt.plusMinutes(2)).build()
+        );
+
+        // when
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(author));
+        when(cardRepository.findBySetIdAfter(setId, createdAt, 20, PageRequest.of(0, 3))).thenReturn(cards);
+
+        CursorPaginationResponse<CardDto> result = cardService.getCards(setId, null,
+                new CursorPaginationRequest(after.encode(), 2), auth);
+
+        // then
+        assertThat(result.getContent(), contains(cards.get(0), cards.get(1)));
+        assertThat(result.isLast(), is(false));
+        assertThat(PageCursor.decode(result.getNext()), is(new PageCursor(createdAt.plusMinutes(1), 12)));
+    }
+
+    @Test
+    void givenGetCards_whenFilteredByHardDifficulty_thenIncludeUnseenCards() {
+        // given
+        String email = "jhn.doe@mail.com";
+        User author = User.builder().id(3L).email(email).build();
+        User user = User.builder().id(5L).email("test@mail.com").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).type(SetType.PUBLIC).build();
+        List<CardDto> cards = List.of(CardDto.builder().id(11).front("Bonjour").build());
+
+        // when
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(cardRepository.findBySetIdAndDifficultyAfter(setId, user.getId(), Difficulty.HARD, true,
+                PageCursor.FIRST_ASCENDING.getCreatedAt(), PageCursor.FIRST_ASCENDING.getId(), PageRequest.of(0, 11)))
+                .thenReturn(cards);
+
+        CursorPaginationResponse<CardDto> result = cardService.getCards(setId, Difficulty.HARD,
+                new CursorPaginationRequest(null, 10), auth);
+
+        // then
+        assertThat(result.getContent(), is(cards));
+        assertThat(result.isLast(), is(true));
+        assertThat(result.getNext(), is(nullValue()));
+    }
+
+    @Test
+    void givenGetCards_whenUserIsNotSetAuthorAndTypeIsPrivate_thenThrowException() {
+        // given
+        String email = "jhn.doe@mail.com";
+        User author = User.builder().id(3L).email(email).build();
+        User user = User.builder().id(5L).email("test@mail.com").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).type(SetType.PRIVATE).build();
+
+        // when
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        // then
+        CursorPaginationRequest pagination = new CursorPaginationRequest(null, 10);
+        assertThrows(ResourceNotAccessible.class, () -> cardService.getCards(setId, null, pagination, auth));
+    }
+
+    @Test
+    void givenGetCards_whenCursorIsMalformed_thenThrowException() {
+        // given
+        String email = "jhn.doe@mail.com";
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+        CursorPaginationRequest pagination = new CursorPaginationRequest("not a cursor", 10);
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> cardService.getCards(4, null, pagination, auth));
+    }
+
+    @Test
+    void givenFindCardVersion_whenSetIsPublic_thenReturnVersionOfSet() {
+        // given
+        Authentication auth = new UsernamePasswordAuthenticationToken("jhn.doe@mail.com", null);
+        LocalDateTime updatedAt = LocalDateTime.of(2022, 10, 1, 12, 0);
+
+        // when
+        when(cardRepository.findRevisionByIdAndSetId(7, 4)).thenReturn(Optional.of(revision(3L, SetType.PUBLIC, 6, updatedAt)));
+
+        Optional<ResourceVersion> result = cardService.findCardVersion(7, 4, auth);
+
+        // then
+        assertThat(result, is(Optional.of(ResourceVersion.ofCard(7, 4, 6, updatedAt))));
+    }
+
+    @Test
+    void givenFindCardVersion_whenUserIsNotAuthorOfPrivateSet_thenReturnEmpty() {
+        // given
+        String email = "jhn.doe@mail.com";
+        User user = User.builder().id(3L).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        // when
+        when(cardRepository.findRevisionByIdAndSetId(7, 4)).thenReturn(Optional.of(revision(8L, SetType.PRIVATE, 6, LocalDateTime.now())));
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+        Optional<ResourceVersion> result = cardService.findCardVersion(7, 4, auth);
+
+        // then
+        assertThat(result, is(Optional.empty()));
+    }
+
+    private static SetRevision revision(long authorId, SetType type, long revision, LocalDateTime lastModified) {
+        return new SetRevision() {
+            @Override
+            public long getRevision() {
+                return revision;
+            }
+
+            @Override
+            public SetType getType() {
+                return type;
+            }
+
+            @Override
+            public long getAuthorId() {
+                return authorId;
+            }
+
+            @Override
+            public LocalDateTime getLastModified() {
+                return lastModified;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,13 @@
 package com.example.flashcards.service.impl;
 
 import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.pagination.CountMode;
+import com.example.flashcards.dto.pagination.CursorPaginationRequest;
+import com.example.flashcards.dto.pagination.CursorPaginationResponse;
 import com.example.flashcards.dto.pagination.PaginationRequest;
 import com.example.flashcards.dto.pagination.PaginationResponse;
 import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.dto.set.CardSetSummaryDto;
 import com.example.flashcards.exceptions.ResourceAlreadyExist;
 import com.example.flashcards.exceptions.ResourceNotAccessible;
 import com.example.flashcards.exceptions.ResourceNotFound;
@@ -11,50 +15,101 @@ import com.example.flashcards.model.Card;
 import com.example.flashcards.model.CardSet;
 import com.example.flashcards.model.SetType;
 import com.example.flashcards.model.User;
+import com.example.flashcards.repository.CardBatchRepository;
+import com.example.flashcards.repository.CardProgressRepository;
 import com.example.flashcards.repository.CardSetRepository;
 import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.repository.projection.SetRevision;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.search.SetNameTrie;
+import com.example.flashcards.service.search.SetSearchIndex;
+import com.example.flashcards.service.utils.CountCache;
 import com.example.flashcards.service.utils.DtoMappers;
+import com.example.flashcards.service.utils.PageCursor;
+import com.example.flashcards.service.utils.PublicSetCache;
+import com.example.flashcards.service.utils.ResourceVersion;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class CardSetServiceImplTest {
 
     CardSetRepository setRepository;
+    CardBatchRepository cardBatchRepository;
     UserRepository userRepository;
+    CardProgressRepository progressRepository;
+    LearningSessionCache sessions;
+    CardCounts counts;
+    CountCache countCache;
+    SetSearchIndex searchIndex;
+    SetNameTrie nameTrie;
+    PublicSetCache setCache;
     DtoMappers mappers;
+    PlatformTransactionManager transactionManager;
 
     CardSetServiceImpl setService;
 
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
     @BeforeEach
     void init() {
         setRepository = Mockito.mock(CardSetRepository.class);
+        cardBatchRepository = Mockito.mock(CardBatchRepository.class);
         userRepository = Mockito.mock(UserRepository.class);
+        progressRepository = Mockito.mock(CardProgressRepository.class);
+        sessions = Mockito.mock(LearningSessionCache.class);
+        counts = Mockito.mock(CardCounts.class);
+        countCache = new CountCache(Duration.ofMinutes(1), 100);
+        searchIndex = new SetSearchIndex();
+        nameTrie = new SetNameTrie();
+        setCache = new PublicSetCache(100, 1000, Duration.ofMinutes(10), Duration.ofSeconds(5));
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
 
         ModelMapper modelMapper = new ModelMapper();
         modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
         mappers = Mockito.spy(new DtoMappers(modelMapper));
 
-        setService = new CardSetServiceImpl(setRepository, userRepository, mappers);
+        setService = new CardSetServiceImpl(setRepository, cardBatchRepository, userRepository, progressRepository, sessions, counts, countCache, searchIndex, nameTrie, setCache,
+                mappers, transactionManager, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
     }
 
     @Test
@@ -75,7 +130,11 @@ class CardSetServiceImplTest {
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(setRepository.findByNameAndAuthor(setDto.getName(), user)).thenReturn(Optional.empty());
-        when(setRepository.save(any(CardSet.class))).then(returnsFirstArg());
+        when(setRepository.save(any(CardSet.class))).then(invocation -> {
+            CardSet saved = invocation.getArgument(0);
+            saved.setId(9L);
+            return saved;
+        });
 
         CardSetDto result = setService.saveSet(setDto, auth);
 
@@ -130,13 +189,13 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
 
         setService.deleteSet(setId, auth);
 
         // then
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(setRepository).delete(set);
     }
 
@@ -151,12 +210,12 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.empty());
 
         // then
         assertThrows(ResourceNotFound.class, () -> setService.deleteSet(setId, auth));
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
     }
 
     @Test
@@ -173,12 +232,12 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> setService.deleteSet(setId, auth));
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
     }
 
     @Test
@@ -197,19 +256,59 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        searchIndex.putSet(setId, set.getName(), set.getDescription());
+        nameTrie.putSet(setId, set.getName());
+        setCache.get(setId, () -> CardSetDto.builder().id(setId).name("French").type(SetType.PUBLIC).build());
 
         CardSetDto result = setService.replaceSet(setId, setDto, auth);
 
         // then
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(setRepository).save(set);
         verify(mappers).mapCardSetToCardSetDto(set);
 
         assertThat(result.getName(), is(setDto.getName()));
         assertThat(result.getDescription(), is(setDto.getDescription()));
         assertThat(result.getType(), is(setDto.getType()));
+        assertThat(searchIndex.contains(setId), is(false));
+        assertThat(nameTrie.contains(setId), is(false));
+        assertThat(setCache.size(), is(0));
+    }
+
+    @Test
+    void givenReplaceSet_whenSetIsRemovedFromIndexBeforeCommit_thenIndexItWithCards() {
+        // given
+        long setId = 4;
+        CardSetDto setDto = CardSetDto.builder().name("French basics").type(SetType.PUBLIC).build();
+
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        CardSet set = CardSet.builder().id(setId).name("French").type(SetType.PUBLIC).author(user).build();
+        set.setCards(Set.of(Card.builder().id(1L).front("Bonjour").back("Hello").build()));
+
+        // when
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        searchIndex.putSet(setId, set.getName(), null);
+        searchIndex.addCard(setId, "Bonjour", "Hello");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            setService.replaceSet(setId, setDto, auth);
+            // a concurrent update made the set private and then public again before this one committed
+            searchIndex.removeSet(setId);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // then
+        assertThat(searchIndex.search("bonjour", 0, 10).getSetIds(), contains(setId));
+        assertThat(searchIndex.search("basics", 0, 10).getSetIds(), contains(setId));
     }
 
     @Test
@@ -237,13 +336,13 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
 
         setService.replaceSet(setId, setDto, auth);
 
         // then
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
         verify(setRepository).save(set);
         verify(mappers).mapCardSetToCardSetDto(set);
 
@@ -263,12 +362,12 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.empty());
 
         // then
         assertThrows(ResourceNotFound.class, () -> setService.replaceSet(setId, setDto, auth));
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
     }
 
     @Test
@@ -288,12 +387,12 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> setService.replaceSet(setId, setDto, auth));
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorById(setId);
     }
 
     @Test
@@ -308,13 +407,13 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.of(set));
 
         CardSetDto result = setService.getSetById(setId, auth);
 
         // then
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorAndCardsById(setId);
         verify(mappers).mapCardSetToCardSetDto(set);
 
         assertThat(result.getId(), is(setId));
@@ -332,11 +431,11 @@ class CardSetServiceImplTest {
         long setId = 14;
 
         // when
-        when(setRepository.findById(setId)).thenReturn(Optional.empty());
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.empty());
 
         // then
         assertThrows(ResourceNotFound.class, () -> setService.getSetById(setId, auth));
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorAndCardsById(setId);
     }
 
     @Test
@@ -353,13 +452,13 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.of(set));
 
         CardSetDto result = setService.getSetById(setId, auth);
 
         // then
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorAndCardsById(setId);
         verify(mappers).mapCardSetToCardSetDto(set);
 
         assertThat(result.getId(), is(setId));
@@ -368,6 +467,157 @@ class CardSetServiceImplTest {
         assertThat(result.getAuthor().getEmail(), is(other.getEmail()));
     }
 
+    @Test
+    void givenGetSetById_whenPublicSetIsCached_thenDontLoadItAgain() {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 14;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).type(SetType.PUBLIC).build();
+
+        // when
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.of(set));
+
+        CardSetDto first = setService.getSetById(setId, auth);
+        CardSetDto second = setService.getSetById(setId, new UsernamePasswordAuthenticationToken("other@mail.com", null));
+
+        // then
+        verify(setRepository, times(1)).findWithAuthorAndCardsById(setId);
+        verify(userRepository, times(1)).findByEmail(any());
+        assertThat(second, is(first));
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    void givenGetSetById_whenSetIsPrivate_thenDontCacheIt() {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 14;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).type(SetType.PRIVATE).build();
+
+        // when
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.of(set));
+
+        setService.getSetById(setId, auth);
+        setService.getSetById(setId, auth);
+
+        // then
+        verify(setRepository, times(2)).findWithAuthorAndCardsById(setId);
+        assertThat(setCache.size(), is(0));
+    }
+
+    @Test
+    void givenGetSetById_whenPrivateSetLoadIsShared_thenVerifyAccessForEachCaller() throws Exception {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        String otherEmail = "test@mail.com";
+        User other = User.builder().id(5).email(otherEmail).build();
+        Authentication otherAuth = new UsernamePasswordAuthenticationToken(otherEmail, null);
+
+        long setId = 14;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).type(SetType.PRIVATE).build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail(otherEmail)).thenReturn(Optional.of(other));
+        when(setRepository.findWithAuthorAndCardsById(setId)).then(invocation -> {
+            started.countDown();
+            await(release);
+            return Optional.of(set);
+        });
+
+        // when
+        Future<CardSetDto> author = executor.submit(() -> setService.getSetById(setId, auth));
+        started.await();
+        Future<CardSetDto> stranger = executor.submit(() -> setService.getSetById(setId, otherAuth));
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        assertThat(author.get(5, TimeUnit.SECONDS).getName(), is("French"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> stranger.get(5, TimeUnit.SECONDS));
+        assertThat(error.getCause(), instanceOf(ResourceNotAccessible.class));
+
+        verify(setRepository, times(1)).findWithAuthorAndCardsById(setId);
+        verify(userRepository).findByEmail(email);
+        verify(userRepository).findByEmail(otherEmail);
+    }
+
+    @Test
+    void givenFindSetVersion_whenPublicSetIsCached_thenDontQueryRevision() {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 14;
+        LocalDateTime createdAt = LocalDateTime.of(2022, 10, 1, 12, 0);
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).type(SetType.PUBLIC)
+                .revision(3).createdAt(createdAt).build();
+
+        // when
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.of(set));
+
+        setService.getSetById(setId, auth);
+        Optional<ResourceVersion> result = setService.findSetVersion(setId, auth);
+
+        // then
+        verify(setRepository, never()).findRevisionById(anyLong());
+        assertThat(result, is(Optional.of(ResourceVersion.ofSet(setId, 3, createdAt))));
+    }
+
+    @Test
+    void givenFindSetVersion_whenUserIsNotAuthorOfTheSetAndSetIsPrivate_thenReturnEmpty() {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 14;
+        SetRevision revision = revision(5, SetType.PRIVATE, 5L);
+
+        // when
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findRevisionById(setId)).thenReturn(Optional.of(revision));
+
+        Optional<ResourceVersion> result = setService.findSetVersion(setId, auth);
+
+        // then
+        assertThat(result, is(Optional.empty()));
+    }
+
+    @Test
+    void givenFindSetVersion_whenUserIsAuthorOfPrivateSet_thenReturnVersion() {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 14;
+        SetRevision revision = revision(2, SetType.PRIVATE, 7L);
+
+        // when
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findRevisionById(setId)).thenReturn(Optional.of(revision));
+
+        Optional<ResourceVersion> result = setService.findSetVersion(setId, auth);
+
+        // then
+        assertThat(result.map(ResourceVersion::getETag), is(Optional.of("\"s14-7\"")));
+    }
+
     @Test
     void givenGetSetById_whenUserIsNotAuthorOfTheSetAndSetIsPrivate_thenThrowException() {
         // given
@@ -382,12 +632,12 @@ class CardSetServiceImplTest {
 
         // when
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
-        when(setRepository.findById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findWithAuthorAndCardsById(setId)).thenReturn(Optional.of(set));
 
         // then
         assertThrows(ResourceNotAccessible.class, () -> setService.getSetById(setId, auth));
         verify(userRepository).findByEmail(email);
-        verify(setRepository).findById(setId);
+        verify(setRepository).findWithAuthorAndCardsById(setId);
     }
 
     @Test
@@ -404,7 +654,7 @@ class CardSetServiceImplTest {
                 CardSet.builder().id(3L).author(user).name("Japanese").type(SetType.PRIVATE).build()
         );
 
-        Page<CardSet> page = new PageImpl<>(sets);
+        Page<CardSetSummaryDto> page = new PageImpl<>(summaries(sets));
 
         PaginationRequest pagination = PaginationRequest.builder().page(0).size(10).build();
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
@@ -414,7 +664,7 @@ class CardSetServiceImplTest {
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(setRepository.findByAuthor(user, pageRequest)).thenReturn(page);
 
-        PaginationResponse<CardSetDto> response = setService.getSetsByAuthor(userId, pagination, auth);
+        PaginationResponse<CardSetSummaryDto> response = setService.getSetsByAuthor(userId, pagination, auth);
 
         // then
         verify(userRepository).findById(userId);
@@ -440,7 +690,7 @@ class CardSetServiceImplTest {
                 CardSet.builder().id(2L).author(other).name("Spanish").type(SetType.PUBLIC).build()
         );
 
-        Page<CardSet> page = new PageImpl<>(sets);
+        Page<CardSetSummaryDto> page = new PageImpl<>(summaries(sets));
 
         PaginationRequest pagination = PaginationRequest.builder().page(0).size(10).build();
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
@@ -450,7 +700,7 @@ class CardSetServiceImplTest {
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(setRepository.findByAuthorAndType(other, SetType.PUBLIC, pageRequest)).thenReturn(page);
 
-        PaginationResponse<CardSetDto> response = setService.getSetsByAuthor(userId, pagination, auth);
+        PaginationResponse<CardSetSummaryDto> response = setService.getSetsByAuthor(userId, pagination, auth);
 
         // then
         verify(userRepository).findById(userId);
@@ -472,14 +722,14 @@ class CardSetServiceImplTest {
                 CardSet.builder().id(2L).name("French B1 vocab").type(SetType.PUBLIC).build()
         );
 
-        Page<CardSet> page = new PageImpl<>(sets);
+        Page<CardSetSummaryDto> page = new PageImpl<>(summaries(sets));
 
         PaginationRequest pagination = PaginationRequest.builder().page(0).size(10).build();
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
 
         // when
         when(setRepository.findByNameContainingIgnoreCaseAndType(name, SetType.PUBLIC, pageRequest)).thenReturn(page);
-        PaginationResponse<CardSetDto> response = setService.getPublicSetsByName(name, pagination);
+        PaginationResponse<CardSetSummaryDto> response = setService.getPublicSetsByName(name, pagination);
 
         // then
         verify(setRepository).findByNameContainingIgnoreCaseAndType(name, SetType.PUBLIC, pageRequest);
@@ -503,7 +753,7 @@ class CardSetServiceImplTest {
                 CardSet.builder().id(2L).author(user).name("French B1 vocab").type(SetType.PUBLIC).build()
         );
 
-        Page<CardSet> page = new PageImpl<>(sets);
+        Page<CardSetSummaryDto> page = new PageImpl<>(summaries(sets));
 
         PaginationRequest pagination = PaginationRequest.builder().page(0).size(10).build();
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
@@ -513,7 +763,7 @@ class CardSetServiceImplTest {
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(setRepository.findByAuthorAndNameContainingIgnoreCase(user, name, pageRequest)).thenReturn(page);
 
-        PaginationResponse<CardSetDto> response = setService.getSetsByAuthorAndName(userId, name, pagination, auth);
+        PaginationResponse<CardSetSummaryDto> response = setService.getSetsByAuthorAndName(userId, name, pagination, auth);
 
         // then
         verify(userRepository).findById(userId);
@@ -540,7 +790,7 @@ class CardSetServiceImplTest {
         List<CardSet> sets = List.of(
                 CardSet.builder().id(2L).author(other).name("French").type(SetType.PUBLIC).build()
         );
-        Page<CardSet> page = new PageImpl<>(sets);
+        Page<CardSetSummaryDto> page = new PageImpl<>(summaries(sets));
 
         PaginationRequest pagination = PaginationRequest.builder().page(0).size(10).build();
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
@@ -550,7 +800,7 @@ class CardSetServiceImplTest {
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(setRepository.findByAuthorAndNameContainingIgnoreCaseAndType(other, name, SetType.PUBLIC, pageRequest)).thenReturn(page);
 
-        PaginationResponse<CardSetDto> response = setService.getSetsByAuthorAndName(userId, name, pagination, auth);
+        PaginationResponse<CardSetSummaryDto> response = setService.getSetsByAuthorAndName(userId, name, pagination, auth);
 
         // then
         verify(userRepository).findById(userId);
@@ -569,20 +819,356 @@ class CardSetServiceImplTest {
                 CardSet.builder().id(2L).name("French").type(SetType.PUBLIC).build(),
                 CardSet.builder().id(2L).name("Spanish").type(SetType.PUBLIC).build()
         );
-        Page<CardSet> page = new PageImpl<>(sets);
+        Page<CardSetSummaryDto> page = new PageImpl<>(summaries(sets));
 
         PaginationRequest pagination = PaginationRequest.builder().page(0).size(10).build();
         PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
 
         // when
         when(setRepository.findByType(SetType.PUBLIC, pageRequest)).thenReturn(page);
-        PaginationResponse<CardSetDto> response = setService.getPublicSets(pagination);
+        PaginationResponse<CardSetSummaryDto> response = setService.getPublicSets(pagination);
 
         // then
         verify(setRepository).findByType(SetType.PUBLIC, pageRequest);
+        verify(mappers, never()).mapCardSetToCardSetDto(any());
 
         assertThat(response.getContent(), hasSize(sets.size()));
         assertThat(response.getPage(), is(pagination.getPage()));
         assertThat(response.getSize(), is(sets.size()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenGetPublicSetsAfterCursor_whenThereAreMoreSets_thenReturnCursorOfTheLastSet() {
+        // given
+        LocalDateTime createdAt = LocalDateTime.of(2022, 10, 1, 12, 0);
+        List<CardSet> sets = List.of(
+                CardSet.builder().id(9L).name("French").type(SetType.PUBLIC).createdAt(createdAt).build(),
+                CardSet.builder().id(7L).name("Spanish").type(SetType.PUBLIC).createdAt(createdAt).build(),
+                CardSet.builder().id(5L).name("German").type(SetType.PUBLIC).createdAt(createdAt.minusDays(1)).build()
+        );
+
+        PageCursor cursor = new PageCursor(createdAt.plusDays(1), 12L);
+        CursorPaginationRequest pagination = CursorPaginationRequest.builder().after(cursor.encode()).size(2).build();
+
+        // when
+        when(setRepository.findByTypeAfter(SetType.PUBLIC, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, 3))).thenReturn(summaries(sets));
+        CursorPaginationResponse<CardSetSummaryDto> response = setService.getPublicSets(pagination);
+
+        // then
+        verify(setRepository).findByTypeAfter(SetType.PUBLIC, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, 3));
+
+        assertThat(response.getContent(), hasSize(2));
+        assertThat(response.isLast(), is(false));
+        assertThat(PageCursor.decode(response.getNext()), is(new PageCursor(createdAt, 7L)));
+    }
+
+    @Test
+    void givenGetPublicSetsAfterCursor_whenCursorIsEmpty_thenReturnFirstPage() {
+        // given
+        List<CardSet> sets = List.of(
+                CardSet.builder().id(2L).name("French").type(SetType.PUBLIC).createdAt(LocalDateTime.now()).build()
+        );
+        CursorPaginationRequest pagination = CursorPaginationRequest.builder().after("").size(10).build();
+
+        // when
+        when(setRepository.findByTypeAfter(SetType.PUBLIC, PageCursor.FIRST.getCreatedAt(), PageCursor.FIRST.getId(), PageRequest.of(0, 11)))
+                .thenReturn(summaries(sets));
+        CursorPaginationResponse<CardSetSummaryDto> response = setService.getPublicSets(pagination);
+
+        // then
+        assertThat(response.getContent(), hasSize(1));
+        assertThat(response.isLast(), is(true));
+        assertThat(response.getNext(), nullValue());
+    }
+
+    @Test
+    void givenGetPublicSetsAfterCursor_whenCursorIsMalformed_thenThrowException() {
+        // given
+        CursorPaginationRequest pagination = CursorPaginationRequest.builder().after("not a cursor").size(10).build();
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> setService.getPublicSets(pagination));
+        verify(setRepository, never()).findByTypeAfter(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void givenGetPublicSets_whenCountIsNotRequested_thenDontCountSets() {
+        // given
+        List<CardSet> sets = List.of(
+                CardSet.builder().id(1L).name("French").type(SetType.PUBLIC).build(),
+                CardSet.builder().id(2L).name("Spanish").type(SetType.PUBLIC).build()
+        );
+
+        PaginationRequest pagination = PaginationRequest.builder().page(0).size(2).countMode(CountMode.NONE).build();
+        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
+
+        // when
+        when(setRepository.findSliceByType(SetType.PUBLIC, pageRequest)).thenReturn(new SliceImpl<>(summaries(sets), pageRequest, true));
+        PaginationResponse<CardSetSummaryDto> response = setService.getPublicSets(pagination);
+
+        // then
+        verify(setRepository, never()).findByType(any(), any());
+        verify(setRepository, never()).countByType(any());
+
+        assertThat(response.getContent(), hasSize(2));
+        assertThat(response.isLast(), is(false));
+        assertThat(response.getTotalElements(), nullValue());
+    }
+
+    @Test
+    void givenGetPublicSets_whenCountIsApproximate_thenCountOnlyOnce() {
+        // given
+        List<CardSet> sets = List.of(
+                CardSet.builder().id(1L).name("French").type(SetType.PUBLIC).build(),
+                CardSet.builder().id(2L).name("Spanish").type(SetType.PUBLIC).build()
+        );
+
+        PaginationRequest pagination = PaginationRequest.builder().page(0).size(2).countMode(CountMode.APPROXIMATE).build();
+        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
+
+        // when
+        when(setRepository.findSliceByType(SetType.PUBLIC, pageRequest)).thenReturn(new SliceImpl<>(summaries(sets), pageRequest, true));
+        when(setRepository.countByType(SetType.PUBLIC)).thenReturn(5L);
+
+        setService.getPublicSets(pagination);
+        PaginationResponse<CardSetSummaryDto> response = setService.getPublicSets(pagination);
+
+        // then
+        verify(setRepository, times(1)).countByType(SetType.PUBLIC);
+
+        assertThat(response.getTotalElements(), is(5L));
+        assertThat(response.getTotalPages(), is(3));
+        assertThat(response.isApproximate(), is(true));
+    }
+
+    @Test
+    void givenGetPublicSets_whenPageIsRequestedConcurrently_thenShareOneQuery() throws Exception {
+        // given
+        List<CardSet> sets = List.of(
+                CardSet.builder().id(1L).name("French").type(SetType.PUBLIC).build(),
+                CardSet.builder().id(2L).name("Spanish").type(SetType.PUBLIC).build()
+        );
+
+        PaginationRequest pagination = PaginationRequest.builder().page(0).size(2).countMode(CountMode.NONE).build();
+        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(setRepository.findSliceByType(SetType.PUBLIC, pageRequest)).then(invocation -> {
+            started.countDown();
+            await(release);
+            return new SliceImpl<>(summaries(sets), pageRequest, false);
+        });
+
+        // when
+        Future<PaginationResponse<CardSetSummaryDto>> first = executor.submit(() -> setService.getPublicSets(pagination));
+        started.await();
+        Future<PaginationResponse<CardSetSummaryDto>> second = executor.submit(() -> setService.getPublicSets(pagination));
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        assertThat(first.get(5, TimeUnit.SECONDS).getContent(), hasSize(2));
+        assertThat(second.get(5, TimeUnit.SECONDS).getContent(), hasSize(2));
+        verify(setRepository, times(1)).findSliceByType(SetType.PUBLIC, pageRequest);
+    }
+
+    @Test
+    void givenGetPublicSets_whenSetIsDeletedWhilePageIsQueried_thenQueryPageAgain() throws Exception {
+        // given
+        String email = "j.doe@mail.com";
+        User user = User.builder().id(2).email(email).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(email, null);
+
+        long setId = 1;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).type(SetType.PUBLIC).build();
+
+        PaginationRequest pagination = PaginationRequest.builder().page(0).size(2).countMode(CountMode.NONE).build();
+        PageRequest pageRequest = PageRequest.of(pagination.getPage(), pagination.getSize());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(setRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(setRepository.findSliceByType(SetType.PUBLIC, pageRequest))
+                .then(invocation -> {
+                    started.countDown();
+                    await(release);
+                    return new SliceImpl<>(summaries(List.of(set)), pageRequest, false);
+                })
+                .thenReturn(new SliceImpl<>(List.of(), pageRequest, false));
+
+        Future<PaginationResponse<CardSetSummaryDto>> stale = executor.submit(() -> setService.getPublicSets(pagination));
+        started.await();
+
+        // when
+        setService.deleteSet(setId, auth);
+        PaginationResponse<CardSetSummaryDto> response = setService.getPublicSets(pagination);
+        release.countDown();
+
+        // then
+        assertThat(response.getContent(), is(empty()));
+        assertThat(stale.get(5, TimeUnit.SECONDS).getContent(), hasSize(1));
+        verify(setRepository, times(2)).findSliceByType(SetType.PUBLIC, pageRequest);
+    }
+
+    private static List<CardSetSummaryDto> summaries(List<CardSet> sets) {
+        return sets.stream()
+                .map(set -> CardSetSummaryDto.builder().id(set.getId()).name(set.getName()).type(set.getType())
+                        .authorId(set.getAuthor() != null ? set.getAuthor().getId() : 0)
+                        .cardCount(set.getCards() != null ? set.getCards().size() : 0)
+                        .createdAt(set.getCreatedAt()).build())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void givenForkSet_whenSetIsPublic_thenCopySetAndCardsToPrivateSet() {
+        // given
+        User author = User.builder().id(3L).email("j.doe@mail.com").nickname("j@d0e").build();
+        User user = User.builder().id(5L).email("test@mail.com").nickname("tester").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        CardSet original = CardSet.builder().id(1L).name("French").description("Basics").author(author).type(SetType.PUBLIC).build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(original));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(setRepository.findByNameAndAuthor("French", user)).thenReturn(Optional.empty());
+        when(setRepository.saveAndFlush(any(CardSet.class))).then(invocation -> {
+            CardSet fork = invocation.getArgument(0);
+            fork.setId(7L);
+            return fork;
+        });
+        when(cardBatchRepository.copyAll(eq(1L), eq(7L), any())).thenReturn(120);
+
+        CardSetSummaryDto result = setService.forkSet(1L, null, auth);
+
+        // then
+        ArgumentCaptor<CardSet> captor = ArgumentCaptor.forClass(CardSet.class);
+        verify(setRepository).saveAndFlush(captor.capture());
+        assertThat(captor.getValue().getAuthor(), is(user));
+        assertThat(captor.getValue().getDescription(), is("Basics"));
+        assertThat(captor.getValue().getType(), is(SetType.PRIVATE));
+
+        assertThat(result.getId(), is(7L));
+        assertThat(result.getName(), is("French"));
+        assertThat(result.getAuthorId(), is(5L));
+        assertThat(result.getCardCount(), is(120L));
+    }
+
+    @Test
+    void givenForkSet_whenUserAlreadyHasSetWithThatName_thenThrowException() {
+        // given
+        User user = User.builder().id(5L).email("test@mail.com").nickname("tester").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        CardSet original = CardSet.builder().id(1L).name("French").author(user).type(SetType.PRIVATE).build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(original));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(setRepository.findByNameAndAuthor("French", user)).thenReturn(Optional.of(original));
+
+        // then
+        assertThrows(ResourceAlreadyExist.class, () -> setService.forkSet(1L, " ", auth));
+        verify(cardBatchRepository, never()).copyAll(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void givenForkSet_whenNameIsTooLong_thenThrowException() {
+        // given
+        User user = User.builder().id(5L).email("test@mail.com").nickname("tester").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        CardSet original = CardSet.builder().id(1L).name("French").author(user).type(SetType.PRIVATE).build();
+        String name = "a".repeat(CardSet.NAME_LENGTH + 1);
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(original));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> setService.forkSet(1L, name, auth));
+        verify(setRepository, never()).saveAndFlush(any());
+        verify(cardBatchRepository, never()).copyAll(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void givenForkSet_whenSetIsPrivateAndUserIsNotAuthor_thenThrowException() {
+        // given
+        User author = User.builder().id(3L).email("j.doe@mail.com").nickname("j@d0e").build();
+        User user = User.builder().id(5L).email("test@mail.com").nickname("tester").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        CardSet original = CardSet.builder().id(1L).name("French").author(author).type(SetType.PRIVATE).build();
+
+        // when
+        when(setRepository.findWithAuthorById(1L)).thenReturn(Optional.of(original));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        // then
+        assertThrows(ResourceNotAccessible.class, () -> setService.forkSet(1L, "Copy", auth));
+        verify(setRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void givenSearchPublicSets_thenReturnSetsInRankOrderWithoutPrivateOnes() {
+        // given
+        searchIndex.putSet(1L, "Spanish", "Some french words");
+        searchIndex.putSet(2L, "French", "Basics");
+        searchIndex.putSet(3L, "French verbs", null);
+
+        List<CardSetSummaryDto> found = List.of(
+                CardSetSummaryDto.builder().id(1L).name("Spanish").type(SetType.PUBLIC).build(),
+                CardSetSummaryDto.builder().id(2L).name("French").type(SetType.PUBLIC).build(),
+                CardSetSummaryDto.builder().id(3L).name("French verbs").type(SetType.PRIVATE).build()
+        );
+
+        // when
+        when(setRepository.findSummariesByIdIn(List.of(2L, 3L, 1L))).thenReturn(found);
+
+        PaginationResponse<CardSetSummaryDto> result = setService.searchPublicSets("FRENCH", new PaginationRequest(0, 10));
+
+        // then
+        assertThat(result.getContent().stream().map(CardSetSummaryDto::getId).collect(Collectors.toList()), contains(2L, 1L));
+        assertThat(result.getTotalElements(), is(2L));
+    }
+
+    @Test
+    void givenSearchPublicSets_whenNothingMatches_thenDontQueryRepository() {
+        // given
+        searchIndex.putSet(1L, "Spanish", null);
+
+        // when
+        PaginationResponse<CardSetSummaryDto> result = setService.searchPublicSets("french", new PaginationRequest(0, 10));
+
+        // then
+        assertThat(result.getContent(), is(empty()));
+        assertThat(result.getTotalElements(), is(0L));
+        verify(setRepository, never()).findSummariesByIdIn(any());
+    }
+
+    @Test
+    void givenSuggestPublicSets_whenLimitIsTooLarge_thenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> setService.suggestPublicSets("fr", SetNameTrie.MAX_SUGGESTIONS + 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SetRevision revision(long authorId, SetType type, long revision) {
+        SetRevision setRevision = mock(SetRevision.class);
+        when(setRevision.getAuthorId()).thenReturn(authorId);
+        when(setRevision.getType()).thenReturn(type);
+        when(setRevision.getRevision()).thenReturn(revision);
+        when(setRevision.getLastModified()).thenReturn(LocalDateTime.of(2022, 10, 1, 12, 0));
+
+        return setRevision;
+    }
+}
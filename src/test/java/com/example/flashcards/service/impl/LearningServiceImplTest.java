@@ -1,46 +1,83 @@
 package com.example.flashcards.service.impl;
 
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.learning.DueCountDto;
 import com.example.flashcards.dto.learning.QuestionAnswerDto;
 import com.example.flashcards.dto.learning.QuestionDto;
 import com.example.flashcards.exceptions.ResourceNotAccessible;
 import com.example.flashcards.exceptions.ResourceNotFound;
 import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.SetType;
 import com.example.flashcards.model.User;
+import com.example.flashcards.model.learning.CardProgress;
 import com.example.flashcards.model.learning.CardSide;
 import com.example.flashcards.model.learning.Difficulty;
 import com.example.flashcards.model.learning.Question;
+import com.example.flashcards.repository.CardProgressRepository;
+import com.example.flashcards.repository.CardRepository;
 import com.example.flashcards.repository.CardSetRepository;
 import com.example.flashcards.repository.QuestionRepository;
 import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.repository.projection.StudyCard;
+import com.example.flashcards.repository.projection.DifficultyCount;
+import com.example.flashcards.repository.projection.IdRange;
+import com.example.flashcards.repository.projection.SetRevision;
 import com.example.flashcards.service.LearningService;
+import com.example.flashcards.service.learning.CardCounts;
+import com.example.flashcards.service.learning.LearningSessionCache;
+import com.example.flashcards.service.learning.SpacedRepetitionScheduler;
+import com.example.flashcards.service.utils.CountCache;
 import com.example.flashcards.service.utils.DtoMappers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class LearningServiceImplTest {
     CardSetRepository cardSetRepository;
+    CardRepository cardRepository;
     UserRepository userRepository;
     QuestionRepository questionRepository;
+    CardProgressRepository progressRepository;
+    LearningSessionCache sessions;
+    CardCounts counts;
     DtoMappers mappers;
+    PlatformTransactionManager transactionManager;
 
     LearningService learningService;
 
@@ -49,26 +86,32 @@ class LearningServiceImplTest {
     @BeforeEach
     void init() {
         cardSetRepository = Mockito.mock(CardSetRepository.class);
+        cardRepository = Mockito.mock(CardRepository.class);
         userRepository = Mockito.mock(UserRepository.class);
         questionRepository = Mockito.mock(QuestionRepository.class);
+        progressRepository = Mockito.mock(CardProgressRepository.class);
+        sessions = Mockito.spy(new LearningSessionCache(100, 100, Duration.ofMinutes(30)));
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        counts = new CardCounts(new CountCache(Duration.ofMinutes(1), 100), cardRepository, progressRepository);
 
         ModelMapper mapper = new ModelMapper();
         mapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
         mappers = Mockito.spy(new DtoMappers(mapper));
 
-        learningService = new LearningServiceImpl(cardSetRepository, userRepository, questionRepository, mappers);
+        learningService = new LearningServiceImpl(cardSetRepository, cardRepository, userRepository, questionRepository, progressRepository, sessions, counts, new SpacedRepetitionScheduler(), mappers, transactionManager);
     }
 
     @ParameterizedTest
     @MethodSource("correctAnswerDifficulties")
     void givenSubmitQuestionAnswer_whenAnswerIsCorrect_thenDecrementCardDifficulty(Difficulty currentDifficulty, Difficulty expectedDifficulty) {
         // given
-        Card card = Card.builder().id(2L).front("Bonsoir").back("Good evening").difficulty(currentDifficulty).build();
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = Card.builder().id(2L).front("Bonsoir").back("Good evening").set(set).build();
+        CardProgress progress = progress(card, currentDifficulty);
 
         long questionId = 2;
         Question question = Question.builder().id(questionId).card(card).user(user)
-                .question("Bonsoir").correctAnswer("Good evening").cardSide(CardSide.FRONT)
-                .options(List.of("Good evening", "Hello", "How are you?", "They")).build();
+                .cardSide(CardSide.FRONT).optionIds(new long[]{2, 1}).build();
 
         String answer = "Good evening";
         QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer(answer).build();
@@ -76,19 +119,22 @@ class LearningServiceImplTest {
         Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
 
         // when
-        when(questionRepository.findById(questionId)).thenReturn(Optional.of(question));
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
         when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(progressRepository.findByUserIdAndCardIdIn(user.getId(), Set.of(card.getId()))).thenReturn(List.of(progress));
+        when(cardRepository.findAllById(Set.of(1L))).thenReturn(List.of(frenchCards(set).get(0)));
 
-        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, auth);
+        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth);
 
         // then
-        verify(questionRepository).findById(questionId);
-        verify(userRepository).findByEmail(user.getEmail());
+        verify(questionRepository).findWithCardById(questionId);
+        verify(userRepository, Mockito.never()).findByEmail(any());
         verify(mappers).mapQuestionToQuestionDto(question);
 
         assertThat(result.getAnswer(), is(answer));
         assertThat(result.isCorrect(), is(true));
-        assertThat(card.getDifficulty(), is(expectedDifficulty));
+        assertThat(progress.getDifficulty(), is(expectedDifficulty));
+        assertThat(card.getDifficulty(), nullValue());
     }
 
     static Stream<Arguments> correctAnswerDifficulties() {
@@ -103,12 +149,13 @@ class LearningServiceImplTest {
     @MethodSource("incorrectAnswerDifficulties")
     void givenSubmitQuestionAnswer_whenAnswerIsIncorrect_thenIncrementCardDifficulty(Difficulty currentDifficulty, Difficulty expectedDifficulty) {
         // given
-        Card card = Card.builder().id(2L).front("Bonsoir").back("Good evening").difficulty(currentDifficulty).build();
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = Card.builder().id(2L).front("Bonsoir").back("Good evening").set(set).build();
+        CardProgress progress = progress(card, currentDifficulty);
 
         long questionId = 2;
         Question question = Question.builder().id(questionId).card(card).user(user)
-                .question("Bonsoir").correctAnswer("Good evening").cardSide(CardSide.FRONT)
-                .options(List.of("Good evening", "Hello", "How are you?", "They")).build();
+                .cardSide(CardSide.FRONT).optionIds(new long[]{2, 1}).build();
 
         String answer = "Hello";
         QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer(answer).build();
@@ -116,19 +163,22 @@ class LearningServiceImplTest {
         Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
 
         // when
-        when(questionRepository.findById(questionId)).thenReturn(Optional.of(question));
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
         when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(progressRepository.findByUserIdAndCardIdIn(user.getId(), Set.of(card.getId()))).thenReturn(List.of(progress));
+        when(cardRepository.findAllById(Set.of(1L))).thenReturn(List.of(frenchCards(set).get(0)));
 
-        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, auth);
+        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth);
 
         // then
-        verify(questionRepository).findById(questionId);
-        verify(userRepository).findByEmail(user.getEmail());
+        verify(questionRepository).findWithCardById(questionId);
+        verify(userRepository, Mockito.never()).findByEmail(any());
         verify(mappers).mapQuestionToQuestionDto(question);
 
         assertThat(result.getAnswer(), is(answer));
         assertThat(result.isCorrect(), is(false));
-        assertThat(card.getDifficulty(), is(expectedDifficulty));
+        assertThat(progress.getDifficulty(), is(expectedDifficulty));
+        assertThat(card.getDifficulty(), nullValue());
     }
 
     static Stream<Arguments> incorrectAnswerDifficulties() {
@@ -139,6 +189,147 @@ class LearningServiceImplTest {
         );
     }
 
+    @Test
+    void givenSubmitQuestionAnswer_whenCardWasEditedAfterQuestion_thenVerifyAnswerAsItWasAsked() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+        Card card = Card.builder().id(2L).front("Bonsoir").back("Good night").set(set).build();
+
+        long questionId = 2;
+        Question question = Question.builder().id(questionId).card(card).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{1, 2})
+                .question("Bonsoir").correctAnswer("Good evening").build();
+
+        QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer("Good evening").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
+        when(cardRepository.findAllById(Set.of(1L))).thenReturn(List.of(cards.get(0)));
+
+        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth);
+
+        // then
+        assertThat(result.isCorrect(), is(true));
+        assertThat(result.getOptions(), contains("Hello", "Good evening"));
+    }
+
+    @Test
+    void givenSubmitQuestionAnswer_whenOptionCardWasDeleted_thenThrowException() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = frenchCards(set).get(1);
+
+        long questionId = 2;
+        Question question = Question.builder().id(questionId).card(card).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{7, 2})
+                .question("Bonsoir").correctAnswer("Good evening").build();
+
+        QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer("Good evening").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
+        when(cardRepository.findAllById(Set.of(7L))).thenReturn(List.of());
+
+        // then
+        assertThrows(IllegalStateException.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth));
+        assertThat(question.isClosed(), is(false));
+        verify(progressRepository, Mockito.never()).saveAllAndFlush(anyIterable());
+    }
+
+    @Test
+    void givenSubmitQuestionAnswer_whenNextQuestionIsRequested_thenCreateItInTheSameRequest() {
+        // given
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        long questionId = 2;
+        Question question = Question.builder().id(questionId).card(cards.get(0)).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{1, 5, 4, 3}).build();
+
+        QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer("Hello").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(cardRepository.findStudyCardsBySetId(setId, user.getId())).thenReturn(studyCards(cards));
+        when(cardRepository.getReferenceById(anyLong())).thenAnswer(invocation -> findCardById(cards, invocation.getArgument(0)));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+        when(cardRepository.findAllById(Set.of(3L, 4L, 5L))).thenReturn(cards.subList(2, 5));
+
+        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, true, auth);
+
+        // then
+        verify(questionRepository).save(any(Question.class));
+
+        assertThat(result.isCorrect(), is(true));
+        assertThat(result.getNext(), notNullValue());
+        assertThat(result.getNext().getAnswer(), nullValue());
+        assertThat(result.getNext().getCardSide(), is(CardSide.FRONT));
+        assertThat(FRONTS, hasItem(result.getNext().getQuestion()));
+        assertThat(result.getNext().getOptions(), hasSize(4));
+        // texts of the answered question only, the next one is built from the session
+        verify(cardRepository).findAllById(anyIterable());
+    }
+
+    @Test
+    void givenSubmitQuestionAnswer_whenProgressIsCreatedConcurrently_thenVerifyAnswerAgain() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = Card.builder().id(2L).front("Bonsoir").back("Good evening").set(set).build();
+        CardProgress progress = progress(card, Difficulty.HARD);
+
+        long questionId = 2;
+        QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer("Good evening").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findWithCardById(questionId)).thenAnswer(invocation -> Optional.of(Question.builder()
+                .id(questionId).card(card).user(user).cardSide(CardSide.FRONT).optionIds(new long[]{2}).build()));
+        when(progressRepository.findByUserIdAndCardIdIn(user.getId(), Set.of(card.getId())))
+                .thenReturn(List.of(), List.of(progress));
+        when(progressRepository.saveAllAndFlush(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("uq_card_progress_user_and_card"))
+                .thenReturn(List.of());
+
+        QuestionDto result = learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth);
+
+        // then
+        verify(questionRepository, Mockito.times(2)).findWithCardById(questionId);
+        verify(transactionManager).rollback(any());
+
+        assertThat(result.isCorrect(), is(true));
+        assertThat(progress.getDifficulty(), is(Difficulty.GOOD));
+    }
+
+    @Test
+    void givenSubmitQuestionAnswer_whenConflictRepeats_thenThrowException() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = Card.builder().id(2L).front("Bonsoir").back("Good evening").set(set).build();
+
+        long questionId = 2;
+        QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer("Good evening").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findWithCardById(questionId)).thenAnswer(invocation -> Optional.of(Question.builder()
+                .id(questionId).card(card).user(user).cardSide(CardSide.FRONT).optionIds(new long[]{2}).build()));
+        when(progressRepository.saveAllAndFlush(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("uq_card_progress_user_and_card"));
+
+        // then
+        assertThrows(DataIntegrityViolationException.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth));
+        verify(progressRepository, Mockito.times(2)).saveAllAndFlush(anyIterable());
+    }
+
     @Test
     void givenSubmitQuestionAnswer_whenQuestionNotFound_thenThrowException() {
         // given
@@ -150,10 +341,10 @@ class LearningServiceImplTest {
         Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
 
         // when
-        when(questionRepository.findById(questionId)).thenReturn(Optional.empty());
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.empty());
 
         // then
-        assertThrows(ResourceNotFound.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, auth));
+        assertThrows(ResourceNotFound.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth));
     }
 
     @Test
@@ -169,11 +360,11 @@ class LearningServiceImplTest {
         Authentication auth = new UsernamePasswordAuthenticationToken(otherUser.getEmail(), null);
 
         // when
-        when(questionRepository.findById(questionId)).thenReturn(Optional.of(question));
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
         when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(otherUser));
 
         // then
-        assertThrows(ResourceNotAccessible.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, auth));
+        assertThrows(ResourceNotAccessible.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth));
     }
 
     @Test
@@ -188,10 +379,531 @@ class LearningServiceImplTest {
         Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
 
         // when
-        when(questionRepository.findById(questionId)).thenReturn(Optional.of(question));
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
         when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
 
         // then
-        assertThrows(IllegalStateException.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, auth));
+        assertThrows(IllegalStateException.class, () -> learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth));
+    }
+
+    @Test
+    void givenSubmitQuestionAnswers_thenVerifyAllAnswersWithSingleQuery() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        Question first = Question.builder().id(7L).card(cards.get(0)).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{1, 5, 4, 3}).build();
+        Question second = Question.builder().id(8L).card(cards.get(2)).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{1, 5, 4, 3}).build();
+
+        List<QuestionAnswerDto> answers = List.of(
+                QuestionAnswerDto.builder().questionId(8L).answer("Yes").build(),
+                QuestionAnswerDto.builder().questionId(7L).answer("Hello").build()
+        );
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        CardProgress firstProgress = progress(cards.get(0), Difficulty.HARD);
+        CardProgress secondProgress = progress(cards.get(2), Difficulty.EASY);
+
+        // when
+        when(questionRepository.findByIdIn(Set.of(7L, 8L))).thenReturn(List.of(first, second));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(progressRepository.findByUserIdAndCardIdIn(user.getId(), Set.of(1L, 3L))).thenReturn(List.of(firstProgress, secondProgress));
+        when(cardRepository.findAllById(Set.of(4L, 5L))).thenReturn(List.of(cards.get(3), cards.get(4)));
+
+        List<QuestionDto> result = learningService.submitQuestionAnswers(answers, auth);
+
+        // then
+        verify(questionRepository).findByIdIn(Set.of(7L, 8L));
+        verify(questionRepository, Mockito.never()).findWithCardById(anyLong());
+        verify(cardRepository).findAllById(Set.of(4L, 5L));
+        verify(progressRepository).saveAllAndFlush(anyIterable());
+
+        assertThat(result.stream().map(QuestionDto::isCorrect).collect(Collectors.toList()), contains(false, true));
+        assertThat(result.get(0).getQuestion(), is("Merci"));
+        assertThat(result.get(0).getOptions(), contains("Hello", "Yes", "Hi", "Thank you"));
+        assertThat(firstProgress.getDifficulty(), is(Difficulty.GOOD));
+        assertThat(secondProgress.getDifficulty(), is(Difficulty.GOOD));
+    }
+
+    @Test
+    void givenSubmitQuestionAnswers_whenOneQuestionIsNotAccessible_thenRejectAllAnswers() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = frenchCards(set).get(0);
+        User otherUser = User.builder().id(8).email("test@mail.com").build();
+
+        Question own = Question.builder().id(7L).card(card).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{1, 5, 4, 3}).build();
+        Question foreign = Question.builder().id(8L).user(otherUser).build();
+
+        List<QuestionAnswerDto> answers = List.of(
+                QuestionAnswerDto.builder().questionId(7L).answer("Hello").build(),
+                QuestionAnswerDto.builder().questionId(8L).answer("Yes").build()
+        );
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findByIdIn(Set.of(7L, 8L))).thenReturn(List.of(own, foreign));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+
+        // then
+        assertThrows(ResourceNotAccessible.class, () -> learningService.submitQuestionAnswers(answers, auth));
+        assertThat(own.isClosed(), is(false));
+        verify(progressRepository, Mockito.never()).saveAllAndFlush(anyIterable());
+    }
+
+    @Test
+    void givenSubmitQuestionAnswers_whenQuestionIdIsDuplicated_thenThrowException() {
+        // given
+        List<QuestionAnswerDto> answers = List.of(
+                QuestionAnswerDto.builder().questionId(7L).answer("Hello").build(),
+                QuestionAnswerDto.builder().questionId(7L).answer("Yes").build()
+        );
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> learningService.submitQuestionAnswers(answers, auth));
+    }
+
+    @Test
+    void givenSubmitQuestionAnswer_whenCardWasNeverReviewed_thenScheduleNextReview() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Card card = frenchCards(set).get(0);
+
+        long questionId = 2;
+        Question question = Question.builder().id(questionId).card(card).user(user)
+                .cardSide(CardSide.FRONT).optionIds(new long[]{1, 5, 4, 3}).build();
+
+        QuestionAnswerDto questionAnswerDto = QuestionAnswerDto.builder().answer("Hello").build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(questionRepository.findWithCardById(questionId)).thenReturn(Optional.of(question));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(progressRepository.findByUserIdAndCardIdIn(user.getId(), Set.of(card.getId()))).thenReturn(List.of());
+        when(cardRepository.findAllById(Set.of(3L, 4L, 5L))).thenReturn(frenchCards(set).subList(2, 5));
+
+        learningService.submitQuestionAnswer(questionId, questionAnswerDto, false, auth);
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<CardProgress>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(progressRepository).saveAllAndFlush(captor.capture());
+
+        CardProgress progress = captor.getValue().iterator().next();
+        assertThat(progress.getUserId(), is(user.getId()));
+        assertThat(progress.getSetId(), is(set.getId()));
+        assertThat(progress.getCardId(), is(card.getId()));
+        assertThat(progress.getDifficulty(), is(Difficulty.GOOD));
+        assertThat(progress.getRepetitions(), is(1));
+        assertThat(progress.getDueAt(), is(question.getAnsweredAt().plusDays(1)));
+    }
+
+    @Test
+    void givenGetDueCards_whenNotEnoughCardsAreDue_thenFillWithUnseenCards() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(set.getId())).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(progressRepository.findDueCards(eq(user.getId()), eq(set.getId()), any(), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(cards.get(2)));
+        when(cardRepository.findUnseenBySetId(set.getId(), user.getId(), PageRequest.of(0, 2)))
+                .thenReturn(List.of(cards.get(0), cards.get(1)));
+
+        List<CardDto> result = learningService.getDueCards(set.getId(), 3, auth);
+
+        // then
+        assertThat(result.stream().map(CardDto::getFront).collect(Collectors.toList()), contains("Merci", "Bonjour", "Bonsoir"));
+    }
+
+    @Test
+    void givenCountDueCards_thenCountDueAndUnseenCards() {
+        // given
+        CardSet set = CardSet.builder().id(4L).name("French").author(user).build();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(set.getId())).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(progressRepository.countByUserIdAndSetIdAndDueAtLessThanEqual(eq(user.getId()), eq(set.getId()), any())).thenReturn(2L);
+        when(progressRepository.countByUserIdAndSetId(user.getId(), set.getId())).thenReturn(3L);
+        when(cardRepository.countBySetId(set.getId())).thenReturn(5L);
+
+        DueCountDto result = learningService.countDueCards(set.getId(), auth);
+
+        // then
+        assertThat(result.getDue(), is(2L));
+        assertThat(result.getUnseen(), is(2L));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSetFitsInMemory_thenBuildQuestionWithSampler() {
+        // given
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        QuestionDto questionDto = new QuestionDto();
+        questionDto.setCardSide(CardSide.FRONT);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(progressRepository.countByUserIdAndSetIdGroupByDifficulty(user.getId(), setId)).thenReturn(countByDifficulty(cards));
+        when(cardRepository.findStudyCardsBySetId(setId, user.getId())).thenReturn(studyCards(cards));
+        when(cardRepository.getReferenceById(anyLong())).thenAnswer(invocation -> findCardById(cards, invocation.getArgument(0)));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+
+        QuestionDto result = learningService.createQuestion(setId, questionDto, auth);
+
+        // then
+        verify(cardSetRepository).findWithAuthorById(setId);
+        verify(userRepository).findByEmail(user.getEmail());
+        verify(sessions).create(eq(setId), eq(user.getId()), eq(user.getEmail()), any());
+        verify(questionRepository).save(any(Question.class));
+
+        assertThat(FRONTS, hasItem(result.getQuestion()));
+        assertThat(result.getOptions(), hasSize(4));
+        assertThat(result.getOptions(), everyItem(not(in(FRONTS))));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSessionIsActive_thenDoNotReloadSetAndCards() {
+        // given
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(cardRepository.findStudyCardsBySetId(setId, user.getId())).thenReturn(studyCards(cards));
+        when(cardRepository.getReferenceById(anyLong())).thenAnswer(invocation -> findCardById(cards, invocation.getArgument(0)));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+
+        when(cardSetRepository.findRevisionById(setId)).thenReturn(Optional.of(revision(user.getId(), SetType.PRIVATE)));
+
+        learningService.createQuestion(setId, new QuestionDto(), auth);
+        QuestionDto result = learningService.createQuestion(setId, new QuestionDto(), auth);
+
+        // then
+        verify(cardSetRepository).findWithAuthorById(setId);
+        verify(cardSetRepository).findRevisionById(setId);
+        verify(userRepository).findByEmail(user.getEmail());
+        verify(cardRepository).findStudyCardsBySetId(setId, user.getId());
+        verify(questionRepository, Mockito.times(2)).save(any(Question.class));
+
+        assertThat(result.getOptions(), hasSize(4));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSetWasMadePrivateDuringSession_thenThrowException() {
+        // given
+        long setId = 4;
+        User author = User.builder().id(8).email("test@mail.com").build();
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).type(SetType.PUBLIC).build();
+        List<Card> cards = frenchCards(set);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(cardRepository.findStudyCardsBySetId(setId, user.getId())).thenReturn(studyCards(cards));
+        when(cardRepository.getReferenceById(anyLong())).thenAnswer(invocation -> findCardById(cards, invocation.getArgument(0)));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+        when(cardSetRepository.findRevisionById(setId)).thenReturn(Optional.of(revision(author.getId(), SetType.PRIVATE)));
+
+        learningService.createQuestion(setId, new QuestionDto(), auth);
+
+        // then
+        assertThrows(ResourceNotAccessible.class, () -> learningService.createQuestion(setId, new QuestionDto(), auth));
+        assertThat(sessions.find(setId, user.getEmail()).isPresent(), is(false));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSetIsTooLargeForSampler_thenSelectCardsInDatabase() {
+        // given
+        learningService = new LearningServiceImpl(cardSetRepository, cardRepository, userRepository,
+                questionRepository, progressRepository, new LearningSessionCache(0, 100, Duration.ofMinutes(30)), counts, new SpacedRepetitionScheduler(), mappers, transactionManager);
+
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        QuestionDto questionDto = new QuestionDto();
+        questionDto.setCardSide(CardSide.BACK);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(progressRepository.countByUserIdAndSetIdGroupByDifficulty(user.getId(), setId)).thenReturn(countByDifficulty(cards));
+        when(cardRepository.findIdRangeBySetId(setId)).thenReturn(idRange(1L, 5L));
+        when(cardRepository.findBySetIdAndDifficultyFrom(eq(setId), eq(user.getId()), any(Difficulty.class), anyBoolean(), anyLong(), any()))
+                .thenReturn(List.of(cards.get(0)));
+        when(cardRepository.findBySetIdAndIdNotInFrom(eq(setId), anyCollection(), anyLong(), any()))
+                .thenReturn(List.of(cards.get(1)), List.of(cards.get(2)), List.of(cards.get(3)));
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+
+        QuestionDto result = learningService.createQuestion(setId, questionDto, auth);
+
+        // then
+        verify(cardRepository, Mockito.never()).findStudyCardsBySetId(setId, user.getId());
+        verify(cardRepository, Mockito.times(3)).findBySetIdAndIdNotInFrom(eq(setId), anyCollection(), anyLong(), any());
+
+        assertThat(result.getQuestion(), is("Hello"));
+        assertThat(result.getOptions(), containsInAnyOrder("Bonjour", "Bonsoir", "Merci", "Salut"));
+    }
+
+    @Test
+    void givenCreateQuestion_whenNoCardFollowsRandomId_thenWrapAroundToFirstId() {
+        // given
+        learningService = new LearningServiceImpl(cardSetRepository, cardRepository, userRepository,
+                questionRepository, progressRepository, new LearningSessionCache(0, 100, Duration.ofMinutes(30)), counts, new SpacedRepetitionScheduler(), mappers, transactionManager);
+
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn(2L);
+        when(progressRepository.countByUserIdAndSetIdGroupByDifficulty(user.getId(), setId)).thenReturn(List.of());
+        when(cardRepository.findIdRangeBySetId(setId)).thenReturn(idRange(1L, 1000L));
+        when(cardRepository.findBySetIdAndDifficultyFrom(eq(setId), eq(user.getId()), eq(Difficulty.HARD), eq(true), anyLong(), any()))
+                .thenReturn(List.of());
+        when(cardRepository.findBySetIdAndDifficultyFrom(setId, user.getId(), Difficulty.HARD, true, 1L, PageRequest.of(0, 1)))
+                .thenReturn(List.of(cards.get(0)));
+        when(cardRepository.findBySetIdAndIdNotInFrom(eq(setId), anyCollection(), anyLong(), any()))
+                .thenReturn(List.of());
+        when(cardRepository.findBySetIdAndIdNotInFrom(eq(setId), anyCollection(), eq(1L), any()))
+                .thenReturn(List.of(cards.get(1)));
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+
+        QuestionDto result = learningService.createQuestion(setId, new QuestionDto(), auth);
+
+        // then
+        assertThat(result.getQuestion(), is("Hello"));
+        assertThat(result.getOptions(), containsInAnyOrder("Bonjour", "Bonsoir"));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSetIsEmpty_thenThrowException() {
+        // given
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).cards(new HashSet<>()).build();
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn(0L);
+
+        // then
+        assertThrows(IllegalStateException.class, () -> learningService.createQuestion(setId, new QuestionDto(), auth));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSetIsPublic_thenAllowOtherUsersToStudy() {
+        // given
+        long setId = 4;
+        User author = User.builder().id(8).email("test@mail.com").build();
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).type(SetType.PUBLIC).build();
+        List<Card> cards = frenchCards(set);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(cardRepository.findStudyCardsBySetId(setId, user.getId())).thenReturn(studyCards(cards));
+        when(cardRepository.getReferenceById(anyLong())).thenAnswer(invocation -> findCardById(cards, invocation.getArgument(0)));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(questionRepository.save(any(Question.class))).then(returnsFirstArg());
+
+        QuestionDto result = learningService.createQuestion(setId, new QuestionDto(), auth);
+
+        // then
+        verify(sessions).create(eq(setId), eq(user.getId()), eq(user.getEmail()), any());
+        assertThat(result.getOptions(), hasSize(4));
+    }
+
+    @Test
+    void givenCreateQuestion_whenSetIsPrivateAndUserIsNotAuthor_thenThrowException() {
+        // given
+        long setId = 4;
+        User author = User.builder().id(8).email("test@mail.com").build();
+        CardSet set = CardSet.builder().id(setId).name("French").author(author).type(SetType.PRIVATE).build();
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+
+        // then
+        assertThrows(ResourceNotAccessible.class, () -> learningService.createQuestion(setId, new QuestionDto(), auth));
+    }
+
+    @Test
+    void givenCreateQuiz_thenCreateQuestionsAboutDistinctCards() {
+        // given
+        long setId = 4;
+        CardSet set = CardSet.builder().id(setId).name("French").author(user).build();
+        List<Card> cards = frenchCards(set);
+
+        QuestionDto questionDto = new QuestionDto();
+        questionDto.setCardSide(CardSide.FRONT);
+
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(cardSetRepository.findWithAuthorById(setId)).thenReturn(Optional.of(set));
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(cardRepository.countBySetId(setId)).thenReturn((long) cards.size());
+        when(progressRepository.countByUserIdAndSetIdGroupByDifficulty(user.getId(), setId)).thenReturn(countByDifficulty(cards));
+        when(cardRepository.findStudyCardsBySetId(setId, user.getId())).thenReturn(studyCards(cards));
+        when(cardRepository.getReferenceById(anyLong())).thenAnswer(invocation -> findCardById(cards, invocation.getArgument(0)));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(questionRepository.saveAll(anyIterable())).then(returnsFirstArg());
+
+        List<QuestionDto> result = learningService.createQuiz(setId, 5, questionDto, auth);
+
+        // then
+        verify(cardRepository, Mockito.never()).findAllById(anyIterable());
+        verify(questionRepository).saveAll(anyIterable());
+
+        assertThat(result, hasSize(5));
+        assertThat(result.stream().map(QuestionDto::getQuestion).collect(Collectors.toSet()), equalTo(FRONTS));
+    }
+
+    @Test
+    void givenCreateQuiz_whenSizeIsInvalid_thenThrowException() {
+        // given
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> learningService.createQuiz(4, 0, new QuestionDto(), auth));
+        assertThrows(IllegalArgumentException.class, () -> learningService.createQuiz(4, 1000, new QuestionDto(), auth));
+    }
+
+    private static final Set<String> FRONTS = Set.of("Bonjour", "Bonsoir", "Merci", "Salut", "Oui");
+
+    private static List<Card> frenchCards(CardSet set) {
+        return List.of(
+                Card.builder().id(1L).front("Bonjour").back("Hello").difficulty(Difficulty.HARD).set(set).build(),
+                Card.builder().id(2L).front("Bonsoir").back("Good evening").difficulty(Difficulty.GOOD).set(set).build(),
+                Card.builder().id(3L).front("Merci").back("Thank you").difficulty(Difficulty.EASY).set(set).build(),
+                Card.builder().id(4L).front("Salut").back("Hi").difficulty(Difficulty.HARD).set(set).build(),
+                Card.builder().id(5L).front("Oui").back("Yes").difficulty(Difficulty.HARD).set(set).build()
+        );
+    }
+
+    private CardProgress progress(Card card, Difficulty difficulty) {
+        return CardProgress.builder().userId(user.getId()).setId(card.getSet().getId()).cardId(card.getId())
+                .difficulty(difficulty).easeFactor(SpacedRepetitionScheduler.INITIAL_EASE_FACTOR).build();
+    }
+
+    private static Card findCardById(List<Card> cards, long id) {
+        return cards.stream().filter(card -> card.getId() == id).findFirst().orElseThrow();
+    }
+
+    private static List<DifficultyCount> countByDifficulty(List<Card> cards) {
+        return cards.stream()
+                .collect(Collectors.groupingBy(Card::getDifficulty, Collectors.counting()))
+                .entrySet().stream()
+                .map(entry -> new DifficultyCount() {
+                    public Difficulty getDifficulty() {
+                        return entry.getKey();
+                    }
+
+                    public long getCount() {
+                        return entry.getValue();
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static SetRevision revision(long authorId, SetType type) {
+        return new SetRevision() {
+            public long getRevision() {
+                return 0;
+            }
+
+            public SetType getType() {
+                return type;
+            }
+
+            public long getAuthorId() {
+                return authorId;
+            }
+
+            public LocalDateTime getLastModified() {
+                return null;
+            }
+        };
+    }
+
+    private static IdRange idRange(Long min, Long max) {
+        return new IdRange() {
+            public Long getMin() {
+                return min;
+            }
+
+            public Long getMax() {
+                return max;
+            }
+        };
+    }
+
+    private static List<StudyCard> studyCards(List<Card> cards) {
+        return cards.stream()
+                .map(card -> new StudyCard() {
+                    public long getId() {
+                        return card.getId();
+                    }
+
+                    public String getFront() {
+                        return card.getFront();
+                    }
+
+                    public String getBack() {
+                        return card.getBack();
+                    }
+
+                    public Difficulty getDifficulty() {
+                        return card.getDifficulty();
+                    }
+                })
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package com.example.flashcards.service.impl;
+
+import com.example.flashcards.dto.learning.DailyStatsDto;
+import com.example.flashcards.model.User;
+import com.example.flashcards.model.learning.QuestionRollup;
+import com.example.flashcards.model.learning.QuestionStats;
+import com.example.flashcards.repository.QuestionRepository;
+import com.example.flashcards.repository.QuestionRollupRepository;
+import com.example.flashcards.repository.QuestionStatsRepository;
+import com.example.flashcards.repository.UserRepository;
+import com.example.flashcards.repository.projection.AnswerCount;
+import com.example.flashcards.repository.projection.DailyAnswerCount;
+import com.example.flashcards.service.QuestionHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuestionHistoryServiceImplTest {
+    QuestionRepository questionRepository;
+    QuestionStatsRepository statsRepository;
+    QuestionRollupRepository rollupRepository;
+    UserRepository userRepository;
+
+    QuestionHistoryService historyService;
+
+    private final User user = User.builder().id(3L).email("j.doe@mail.com").nickname("j@d0e").build();
+
+    @BeforeEach
+    void init() {
+        questionRepository = Mockito.mock(QuestionRepository.class);
+        statsRepository = Mockito.mock(QuestionStatsRepository.class);
+        rollupRepository = Mockito.mock(QuestionRollupRepository.class);
+        userRepository = Mockito.mock(UserRepository.class);
+
+        historyService = new QuestionHistoryServiceImpl(questionRepository, statsRepository, rollupRepository, userRepository);
+    }
+
+    @Test
+    void givenRollUp_whenStatisticsOfTheDayExist_thenMergeCountsAndDeleteQuestions() {
+        // given
+        LocalDate day = LocalDate.of(2022, 6, 1);
+        QuestionStats existing = QuestionStats.builder().userId(3L).cardId(1L).day(day).answered(2).correct(1).build();
+        QuestionRollup rollup = QuestionRollup.builder().id(QuestionRollup.ID).lastDay(day.minusDays(1)).build();
+
+        // when
+        when(rollupRepository.findForUpdateById(QuestionRollup.ID)).thenReturn(Optional.of(rollup));
+        when(questionRepository.countAnswers(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(answerCount(3L, 1L, 4, 3), answerCount(3L, 2L, 1, 0)));
+        when(statsRepository.findByDayAndUserIdIn(day, Set.of(3L))).thenReturn(List.of(existing));
+        when(questionRepository.deleteAnswered(day.atStartOfDay(), day.plusDays(1).atStartOfDay())).thenReturn(5);
+
+        int result = historyService.rollUp(day);
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<QuestionStats>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(statsRepository).saveAll(captor.capture());
+
+        List<QuestionStats> saved = new ArrayList<>(captor.getValue());
+        assertThat(saved, hasSize(2));
+        assertThat(existing.getAnswered(), is(6L));
+        assertThat(existing.getCorrect(), is(4L));
+
+        QuestionStats created = saved.stream().filter(stats -> stats.getCardId() == 2L).findFirst().orElseThrow();
+        assertThat(created.getDay(), is(day));
+        assertThat(created.getAnswered(), is(1L));
+        assertThat(created.getCorrect(), is(0L));
+
+        assertThat(result, is(5));
+        assertThat(rollup.getLastDay(), is(day));
+    }
+
+    @Test
+    void givenRollUp_whenNothingWasAnswered_thenDoNothing() {
+        // given
+        LocalDate day = LocalDate.of(2022, 6, 1);
+
+        QuestionRollup rollup = QuestionRollup.builder().id(QuestionRollup.ID).build();
+
+        // when
+        when(rollupRepository.findForUpdateById(QuestionRollup.ID)).thenReturn(Optional.of(rollup));
+        when(questionRepository.countAnswers(any(), any())).thenReturn(List.of());
+
+        int result = historyService.rollUp(day);
+
+        // then
+        verify(statsRepository, Mockito.never()).saveAll(any());
+        verify(questionRepository, Mockito.never()).deleteAnswered(any(), any());
+        assertThat(result, is(0));
+        assertThat(rollup.getLastDay(), is(day));
+    }
+
+    @Test
+    void givenRollUp_whenDayWasAlreadyRolledUp_thenSkipIt() {
+        // given
+        LocalDate day = LocalDate.of(2022, 6, 1);
+        QuestionRollup rollup = QuestionRollup.builder().id(QuestionRollup.ID).lastDay(day).build();
+
+        // when
+        when(rollupRepository.findForUpdateById(QuestionRollup.ID)).thenReturn(Optional.of(rollup));
+
+        int result = historyService.rollUp(day);
+
+        // then
+        verify(questionRepository, Mockito.never()).countAnswers(any(), any());
+        verify(statsRepository, Mockito.never()).saveAll(any());
+        verify(questionRepository, Mockito.never()).deleteAnswered(any(), any());
+        assertThat(result, is(0));
+        assertThat(rollup.getLastDay(), is(day));
+    }
+
+    @Test
+    void givenGetDailyStats_thenMergeRollupsWithRecentQuestions() {
+        // given
+        LocalDate today = LocalDate.now();
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // when
+        when(userRepository.findByEmail(auth.getName())).thenReturn(Optional.of(user));
+        when(statsRepository.countDailyAnswers(user.getId(), today.minusDays(6)))
+                .thenReturn(List.of(dailyCount(today.minusDays(5), 10, 7), dailyCount(today.minusDays(1), 2, 2)));
+        when(questionRepository.countDailyAnswers(user.getId(), today.minusDays(6).atStartOfDay()))
+                .thenReturn(List.of(dailyCount(today, 4, 1), dailyCount(today.minusDays(1), 3, 1)));
+
+        List<DailyStatsDto> result = historyService.getDailyStats(7, auth);
+
+        // then
+        assertThat(result.stream().map(DailyStatsDto::getDay).collect(Collectors.toList()),
+                contains(today.minusDays(5), today.minusDays(1), today));
+        assertThat(result.get(1).getAnswered(), is(5L));
+        assertThat(result.get(1).getCorrect(), is(3L));
+    }
+
+    @Test
+    void givenGetDailyStats_whenNumberOfDaysIsInvalid_thenThrowException() {
+        // given
+        Authentication auth = new UsernamePasswordAuthenticationToken(user.getEmail(), null);
+
+        // then
+        assertThrows(IllegalArgumentException.class, () -> historyService.getDailyStats(0, auth));
+        verify(questionRepository, Mockito.never()).countDailyAnswers(anyLong(), any());
+    }
+
+    private static AnswerCount answerCount(long userId, long cardId, long answered, long correct) {
+        return new AnswerCount() {
+            public long getUserId() {
+                return userId;
+            }
+
+            public long getCardId() {
+                return cardId;
+            }
+
+            public long getAnswered() {
+                return answered;
+            }
+
+            public long getCorrect() {
+                return correct;
+            }
+        };
+    }
+
+    private static DailyAnswerCount dailyCount(LocalDate day, long answered, long correct) {
+        return new DailyAnswerCount() {
+            public LocalDate getDay() {
+                return day;
+            }
+
+            public long getAnswered() {
+                return answered;
+            }
+
+            public long getCorrect() {
+                return correct;
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.CardProgressRepository;
+import com.example.flashcards.repository.CardRepository;
+import com.example.flashcards.repository.projection.DifficultyCount;
+import com.example.flashcards.service.utils.CountCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardCountsTest {
+    private static final long SET_ID = 4;
+    private static final long USER_ID = 3;
+
+    CardRepository cardRepository;
+    CardProgressRepository progressRepository;
+
+    CardCounts counts;
+
+    @BeforeEach
+    void init() {
+        cardRepository = Mockito.mock(CardRepository.class);
+        progressRepository = Mockito.mock(CardProgressRepository.class);
+        counts = new CardCounts(new CountCache(Duration.ofMinutes(1), 100), cardRepository, progressRepository);
+
+        when(cardRepository.countBySetId(SET_ID)).thenReturn(10L);
+        when(progressRepository.countByUserIdAndSetIdGroupByDifficulty(USER_ID, SET_ID))
+                .thenReturn(List.of(count(Difficulty.GOOD, 3), count(Difficulty.EASY, 2)));
+    }
+
+    @Test
+    void givenCountByDifficulty_thenCountUnseenCardsAsHardAndQueryOnce() {
+        // when
+        counts.countByDifficulty(SET_ID, USER_ID);
+        Map<Difficulty, Long> result = counts.countByDifficulty(SET_ID, USER_ID);
+
+        // then
+        verify(cardRepository).countBySetId(SET_ID);
+        verify(progressRepository).countByUserIdAndSetIdGroupByDifficulty(USER_ID, SET_ID);
+
+        assertThat(result, is(Map.of(Difficulty.HARD, 5L, Difficulty.GOOD, 3L, Difficulty.EASY, 2L)));
+    }
+
+    @Test
+    void givenWrites_thenAdjustCachedCountsWithoutQuerying() {
+        // given
+        counts.countByDifficulty(SET_ID, USER_ID);
+
+        // when
+        counts.cardsAdded(SET_ID, 2);
+        counts.difficultyChanged(SET_ID, USER_ID, null, Difficulty.HARD);
+        counts.difficultyChanged(SET_ID, USER_ID, Difficulty.GOOD, Difficulty.EASY);
+        Map<Difficulty, Long> result = counts.countByDifficulty(SET_ID, USER_ID);
+
+        // then
+        verify(cardRepository).countBySetId(SET_ID);
+        verify(progressRepository).countByUserIdAndSetIdGroupByDifficulty(USER_ID, SET_ID);
+
+        assertThat(counts.countCards(SET_ID), is(12L));
+        assertThat(result, is(Map.of(Difficulty.HARD, 7L, Difficulty.GOOD, 2L, Difficulty.EASY, 3L)));
+    }
+
+    @Test
+    void givenEvict_thenQueryCountsAgain() {
+        // given
+        counts.countByDifficulty(SET_ID, USER_ID);
+
+        // when
+        counts.evict(SET_ID);
+        counts.countByDifficulty(SET_ID, USER_ID);
+
+        // then
+        verify(cardRepository, Mockito.times(2)).countBySetId(SET_ID);
+        verify(progressRepository, Mockito.times(2)).countByUserIdAndSetIdGroupByDifficulty(USER_ID, SET_ID);
+    }
+
+    private static DifficultyCount count(Difficulty difficulty, long count) {
+        return new DifficultyCount() {
+            public Difficulty getDifficulty() {
+                return difficulty;
+            }
+
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
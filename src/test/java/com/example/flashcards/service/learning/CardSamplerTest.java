@@ -0,0 +1,113 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.Difficulty;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardSamplerTest {
+
+    @Test
+    void givenSelectCardToStudy_whenOnlyOneBucketIsNotEmpty_thenSelectFromIt() {
+        // given
+        CardSampler sampler = new CardSampler();
+        sampler.add(1, Difficulty.EASY);
+        sampler.add(2, Difficulty.EASY);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            long selected = sampler.selectCardToStudy();
+
+            // then
+            assertTrue(selected == 1 || selected == 2);
+        }
+    }
+
+    @Test
+    void givenAdd_whenCardIsAlreadyIndexed_thenMoveItToNewBucket() {
+        // given
+        CardSampler sampler = new CardSampler();
+        sampler.add(1, Difficulty.HARD);
+        sampler.add(2, Difficulty.HARD);
+
+        // when
+        sampler.add(1, Difficulty.EASY);
+        sampler.remove(2);
+
+        // then
+        assertThat(sampler.size(), is(1));
+        assertThat(sampler.selectCardToStudy(), is(1L));
+    }
+
+    @Test
+    void givenSelectAnswerOptions_thenReturnDistinctOptionsContainingTheCard() {
+        // given
+        CardSampler sampler = new CardSampler();
+        for (long id = 1; id <= 10; id++) {
+            sampler.add(id, Difficulty.values()[(int) (id % 3)]);
+        }
+
+        // when
+        long[] options = sampler.selectAnswerOptions(5, 4);
+
+        // then
+        assertThat(options.length, is(4));
+        assertThat(Arrays.stream(options).distinct().count(), is(4L));
+        assertTrue(Arrays.stream(options).anyMatch(id -> id == 5));
+    }
+
+    @Test
+    void givenSelectAnswerOptions_whenSetIsSmallerThanNumberOfOptions_thenReturnAllCards() {
+        // given
+        CardSampler sampler = new CardSampler();
+        sampler.add(1, Difficulty.HARD);
+        sampler.add(2, Difficulty.GOOD);
+
+        // when
+        long[] options = sampler.selectAnswerOptions(1, 4);
+
+        // then
+        assertThat(options.length, is(2));
+        assertThat(Arrays.stream(options).sum(), is(3L));
+    }
+
+    @Test
+    void givenSelectCardsToStudy_whenSetHasEnoughCards_thenReturnDistinctCards() {
+        // given
+        CardSampler sampler = new CardSampler();
+        sampler.add(1, Difficulty.HARD);
+        sampler.add(2, Difficulty.EASY);
+        sampler.add(3, Difficulty.EASY);
+
+        // when
+        long[] cards = sampler.selectCardsToStudy(3);
+
+        // then
+        assertThat(Arrays.stream(cards).sorted().toArray(), is(new long[]{1, 2, 3}));
+    }
+
+    @Test
+    void givenSelectCardsToStudy_whenSetIsSmallerThanCount_thenRepeatCards() {
+        // given
+        CardSampler sampler = new CardSampler();
+        sampler.add(1, Difficulty.HARD);
+        sampler.add(2, Difficulty.GOOD);
+
+        // when
+        long[] cards = sampler.selectCardsToStudy(5);
+
+        // then
+        assertThat(cards.length, is(5));
+        assertThat(Arrays.stream(cards).distinct().count(), is(2L));
+    }
+
+    @Test
+    void givenSelectCardToStudy_whenSamplerIsEmpty_thenThrowException() {
+        assertThrows(IllegalStateException.class, () -> new CardSampler().selectCardToStudy());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.Card;
+import com.example.flashcards.model.CardSet;
+import com.example.flashcards.model.learning.CardSide;
+import com.example.flashcards.model.learning.Difficulty;
+import com.example.flashcards.repository.projection.StudyCard;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class LearningSessionCacheTest {
+    private static final String USERNAME = "j.doe@mail.com";
+
+    @Test
+    void givenCreate_whenCacheIsFull_thenEvictLeastRecentlyUsedSession() {
+        // given
+        LearningSessionCache cache = new LearningSessionCache(100, 4, Duration.ofMinutes(30));
+        cache.create(1, 3, USERNAME, List.of(studyCard(1, "Bonjour", "Hello")));
+        cache.create(2, 3, USERNAME, List.of(studyCard(2, "Hola", "Hello")));
+
+        // when
+        cache.find(1, USERNAME);
+        cache.create(3, 3, USERNAME, List.of(studyCard(3, "Ciao", "Hello")));
+
+        // then
+        assertThat(cache.size(), is(2));
+        assertThat(cache.cachedCards(), is(4L));
+        assertThat(cache.find(1, USERNAME).isPresent(), is(true));
+        assertThat(cache.find(2, USERNAME).isPresent(), is(false));
+        assertThat(cache.find(3, USERNAME).isPresent(), is(true));
+    }
+
+    @Test
+    void givenCreate_whenSetHasSessionOfOtherLearner_thenShareCardTexts() {
+        // given
+        LearningSessionCache cache = new LearningSessionCache(100, 100, Duration.ofMinutes(30));
+        List<StudyCard> cards = List.of(studyCard(1, "Bonjour", "Hello"), studyCard(2, "Merci", "Thank you"));
+        LearningSession first = cache.create(4, 3, USERNAME, cards);
+
+        // when
+        LearningSession second = cache.create(4, 8, "test@mail.com", cards);
+
+        // then
+        assertThat(second.getCard(1), is(sameInstance(first.getCard(1))));
+        // two texts and two cards of each session
+        assertThat(cache.cachedCards(), is(6L));
+    }
+
+    @Test
+    void givenFind_whenSessionExpired_thenReturnEmpty() {
+        // given
+        LearningSessionCache cache = new LearningSessionCache(100, 100, Duration.ZERO);
+        cache.create(1, 3, USERNAME, List.of());
+
+        // then
+        assertThat(cache.find(1, USERNAME).isPresent(), is(false));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    void givenCardMutations_thenUpdateSessionsOfTheSet() {
+        // given
+        LearningSessionCache cache = new LearningSessionCache(100, 100, Duration.ofMinutes(30));
+        LearningSession session = cache.create(4, 3, USERNAME, List.of(studyCard(1, "Bonjour", "Hello")));
+
+        CardSet set = CardSet.builder().id(4L).build();
+        Card updated = Card.builder().id(1L).front("Bonjour").back("Good day").set(set).build();
+        Card added = Card.builder().id(2L).front("Merci").back("Thank you").set(set).build();
+
+        // when
+        cache.updateCard(updated);
+        cache.addCard(added);
+        cache.removeCard(updated);
+
+        // then
+        assertThat(session.getCard(1), nullValue());
+        assertThat(session.getCard(2).getSide(CardSide.BACK), is("Thank you"));
+        assertThat(session.getSampler().size(), is(1));
+        assertThat(cache.cachedCards(), is(2L));
+    }
+
+    @Test
+    void givenEvict_thenRemoveAllSessionsOfTheSet() {
+        // given
+        LearningSessionCache cache = new LearningSessionCache(100, 100, Duration.ofMinutes(30));
+        cache.create(4, 3, USERNAME, List.of());
+        cache.create(4, 8, "test@mail.com", List.of());
+        cache.create(5, 3, USERNAME, List.of());
+
+        // when
+        cache.evict(4);
+
+        // then
+        assertThat(cache.size(), is(1));
+        assertThat(cache.find(5, USERNAME).isPresent(), is(true));
+        assertThat(cache.cachedCards(), is(0L));
+    }
+
+    private static StudyCard studyCard(long id, String front, String back) {
+        return new StudyCard() {
+            public long getId() {
+                return id;
+            }
+
+            public String getFront() {
+                return front;
+            }
+
+            public String getBack() {
+                return back;
+            }
+
+            public Difficulty getDifficulty() {
+                return null;
+            }
+        };
+    }
+}
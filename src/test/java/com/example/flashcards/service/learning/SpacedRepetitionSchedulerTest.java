@@ -0,0 +1,63 @@
+package com.example.flashcards.service.learning;
+
+import com.example.flashcards.model.learning.CardProgress;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+class SpacedRepetitionSchedulerTest {
+    private final SpacedRepetitionScheduler scheduler = new SpacedRepetitionScheduler();
+    private final LocalDateTime now = LocalDateTime.of(2022, 10, 1, 12, 0);
+
+    @Test
+    void givenReview_whenAnswersAreCorrect_thenGrowInterval() {
+        // given
+        CardProgress progress = scheduler.start(1, 2, 3, now);
+
+        // when
+        scheduler.review(progress, true, now);
+        scheduler.review(progress, true, now);
+        scheduler.review(progress, true, now);
+
+        // then
+        assertThat(progress.getRepetitions(), is(3));
+        assertThat(progress.getIntervalDays(), is(15));
+        assertThat(progress.getEaseFactor(), closeTo(2.5, 1e-9));
+        assertThat(progress.getDueAt(), is(now.plusDays(15)));
+    }
+
+    @Test
+    void givenReview_whenAnswerIsIncorrect_thenResetIntervalAndLowerEaseFactor() {
+        // given
+        CardProgress progress = scheduler.start(1, 2, 3, now);
+        scheduler.review(progress, true, now);
+        scheduler.review(progress, true, now);
+
+        // when
+        scheduler.review(progress, false, now);
+
+        // then
+        assertThat(progress.getRepetitions(), is(0));
+        assertThat(progress.getIntervalDays(), is(1));
+        assertThat(progress.getEaseFactor(), closeTo(1.96, 1e-9));
+        assertThat(progress.getDueAt(), is(now.plusDays(1)));
+    }
+
+    @Test
+    void givenReview_whenAnswersAreIncorrect_thenKeepMinimalEaseFactor() {
+        // given
+        CardProgress progress = scheduler.start(1, 2, 3, now);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            scheduler.review(progress, false, now);
+        }
+
+        // then
+        assertThat(progress.getEaseFactor(), closeTo(1.3, 1e-9));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.flashcards.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class SetNameTrieTest {
+    SetNameTrie trie;
+
+    @BeforeEach
+    void init() {
+        trie = new SetNameTrie();
+    }
+
+    @Test
+    void givenSuggest_thenMatchStartOfAnyWordIgnoringCaseAndDiacritics() {
+        // given
+        trie.putSet(1L, "Basic French");
+        trie.putSet(2L, "Français: verbes");
+        trie.putSet(3L, "Spanish");
+
+        // then
+        assertThat(ids(trie.suggest("FR", 10)), contains(1L, 2L));
+        assertThat(ids(trie.suggest("bas", 10)), contains(1L));
+        assertThat(ids(trie.suggest("français ver", 10)), contains(2L));
+        assertThat(trie.suggest("german", 10), is(empty()));
+    }
+
+    @Test
+    void givenSuggest_whenPrefixEndsWithSeparator_thenMatchOnlyWholeWord() {
+        // given
+        trie.putSet(1L, "French");
+        trie.putSet(2L, "French verbs");
+        trie.putSet(3L, "Frenchy");
+
+        // then
+        assertThat(ids(trie.suggest("french ", 10)), contains(2L));
+        assertThat(ids(trie.suggest("french", 10)), contains(1L, 3L, 2L));
+    }
+
+    @Test
+    void givenUpdatePopularity_thenSuggestMostPopularFirstUpToLimit() {
+        // given
+        trie.putSet(1L, "French A1");
+        trie.putSet(2L, "French A2");
+        trie.putSet(3L, "French B1");
+
+        // when
+        trie.updatePopularity(Map.of(2L, 5L, 3L, 9L));
+
+        // then
+        assertThat(ids(trie.suggest("fre", 2)), contains(3L, 2L));
+        assertThat(ids(trie.suggest("french a", 10)), contains(2L, 1L));
+    }
+
+    @Test
+    void givenPutSet_whenSetIsRenamed_thenKeepPopularityAndDropOldName() {
+        // given
+        trie.putSet(1L, "French");
+        trie.putSet(2L, "Spanish");
+        trie.updatePopularity(Map.of(1L, 3L));
+
+        // when
+        trie.putSet(1L, "Spanish verbs");
+
+        // then
+        assertThat(trie.suggest("fr", 10), is(empty()));
+        assertThat(ids(trie.suggest("spa", 10)), contains(1L, 2L));
+    }
+
+    @Test
+    void givenRemoveSet_thenKeepSetsSharingItsPrefix() {
+        // given
+        trie.putSet(1L, "French");
+        trie.putSet(2L, "French verbs");
+        trie.putSet(3L, "Freedom");
+
+        // when
+        trie.removeSet(2L);
+        trie.removeSet(3L);
+
+        // then
+        assertThat(ids(trie.suggest("fre", 10)), contains(1L));
+        assertThat(trie.suggest("verbs", 10), is(empty()));
+        assertThat(trie.size(), is(1));
+
+        // when
+        trie.putSet(4L, "Freedom");
+
+        // then
+        assertThat(ids(trie.suggest("free", 10)), contains(4L));
+    }
+
+    private static List<Long> ids(List<SetNameTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SetNameTrie.Suggestion::getSetId).collect(Collectors.toList());
+    }
+}
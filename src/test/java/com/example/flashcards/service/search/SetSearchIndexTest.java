@@ -0,0 +1,117 @@
+package com.example.flashcards.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class SetSearchIndexTest {
+    SetSearchIndex index;
+
+    @BeforeEach
+    void init() {
+        index = new SetSearchIndex();
+    }
+
+    @Test
+    void givenSearch_thenRankNameBeforeDescriptionBeforeCards() {
+        // given
+        index.putSet(1L, "Vocabulary", null);
+        index.addCard(1L, "Café", "Coffee");
+        index.putSet(2L, "Drinks", "Coffee and tea");
+        index.putSet(3L, "Coffee", "Brewing");
+
+        // when
+        SetSearchIndex.SearchResult result = index.search("coffee", 0, 10);
+
+        // then
+        assertThat(result.getSetIds(), contains(3L, 2L, 1L));
+        assertThat(result.getTotal(), is(3L));
+    }
+
+    @Test
+    void givenSearch_whenQueryHasManyTerms_thenMatchOnlySetsContainingAllOfThem() {
+        // given
+        index.putSet(1L, "French verbs", null);
+        index.putSet(2L, "French", "Nouns");
+        index.putSet(3L, "Spanish verbs", null);
+
+        // when
+        SetSearchIndex.SearchResult result = index.search("verbs, french!", 0, 10);
+
+        // then
+        assertThat(result.getSetIds(), contains(1L));
+        assertThat(result.getTotal(), is(1L));
+    }
+
+    @Test
+    void givenSearch_whenOffsetIsGiven_thenSkipBestMatchesAndCountAll() {
+        // given
+        for (long id = 1; id <= 5; id++) {
+            index.putSet(id, "French " + id, null);
+        }
+
+        // when
+        SetSearchIndex.SearchResult result = index.search("french", 2, 2);
+
+        // then
+        assertThat(result.getSetIds(), contains(3L, 4L));
+        assertThat(result.getTotal(), is(5L));
+    }
+
+    @Test
+    void givenRemoveCard_whenTermIsOnlyInThatCard_thenSetDoesntMatchAnymore() {
+        // given
+        index.putSet(1L, "French", null);
+        index.addCard(1L, "Fromage", "Cheese");
+        index.addCard(1L, "Pain", "Bread and cheese");
+
+        // when
+        index.removeCard(1L, "Pain", "Bread and cheese");
+
+        // then
+        assertThat(index.search("cheese", 0, 10).getSetIds(), contains(1L));
+        assertThat(index.search("bread", 0, 10).getSetIds(), is(empty()));
+    }
+
+    @Test
+    void givenPutSet_whenSetIsRenamed_thenKeepItsCards() {
+        // given
+        index.putSet(1L, "French", null);
+        index.addCard(1L, "Fromage", "Cheese");
+
+        // when
+        index.putSet(1L, "Food", null);
+
+        // then
+        assertThat(index.search("french", 0, 10).getSetIds(), is(empty()));
+        assertThat(index.search("food cheese", 0, 10).getSetIds(), contains(1L));
+    }
+
+    @Test
+    void givenAddCard_whenSetIsNotIndexed_thenIgnoreIt() {
+        // when
+        index.addCard(1L, "Fromage", "Cheese");
+
+        // then
+        assertThat(index.contains(1L), is(false));
+        assertThat(index.search("cheese", 0, 10).getTotal(), is(0L));
+    }
+
+    @Test
+    void givenRemoveSet_thenSetDoesntMatchAnymore() {
+        // given
+        index.putSet(1L, "French", null);
+        index.putSet(2L, "French food", null);
+
+        // when
+        index.removeSet(1L);
+
+        // then
+        assertThat(index.search("french", 0, 10).getSetIds(), contains(2L));
+        assertThat(index.size(), is(1));
+    }
+}
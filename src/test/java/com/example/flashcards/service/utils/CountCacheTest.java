@@ -0,0 +1,83 @@
+package com.example.flashcards.service.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class CountCacheTest {
+    CountCache cache;
+
+    @BeforeEach
+    void init() {
+        cache = new CountCache(Duration.ofMinutes(1), 3);
+    }
+
+    @Test
+    void givenGet_whenCountIsCached_thenDontRunCountQuery() {
+        // given
+        AtomicInteger queries = new AtomicInteger();
+
+        // when
+        long first = cache.get("sets", () -> queries.incrementAndGet() * 10L);
+        long second = cache.get("sets", () -> queries.incrementAndGet() * 10L);
+
+        // then
+        assertThat(queries.get(), is(1));
+        assertThat(first, is(10L));
+        assertThat(second, is(10L));
+    }
+
+    @Test
+    void givenPut_whenCacheIsFull_thenEvictLeastRecentlyUsedCount() {
+        // given
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.find("a");
+
+        // when
+        cache.put("d", 4);
+
+        // then
+        assertThat(cache.size(), is(3));
+        assertThat(cache.find("a"), is(OptionalLong.of(1)));
+        assertThat(cache.find("b"), is(OptionalLong.empty()));
+        assertThat(cache.find("c"), is(OptionalLong.of(3)));
+        assertThat(cache.find("d"), is(OptionalLong.of(4)));
+    }
+
+    @Test
+    void givenPut_whenCacheIsFullOfExpiredCounts_thenEvictThemFirst() {
+        // given
+        cache = new CountCache(Duration.ZERO, 3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        // when
+        cache.put("d", 4);
+
+        // then
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    void givenFind_whenCountHasExpired_thenReturnEmpty() {
+        // given
+        cache = new CountCache(Duration.ZERO, 3);
+        cache.put("a", 1);
+
+        // when
+        OptionalLong count = cache.find("a");
+
+        // then
+        assertThat(count, is(OptionalLong.empty()));
+        assertThat(cache.size(), is(0));
+    }
+}
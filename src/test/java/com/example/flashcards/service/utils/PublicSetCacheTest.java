@@ -0,0 +1,204 @@
+package com.example.flashcards.service.utils;
+
+import com.example.flashcards.dto.card.CardDto;
+import com.example.flashcards.dto.set.CardSetDto;
+import com.example.flashcards.model.SetType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class PublicSetCacheTest {
+    PublicSetCache cache;
+
+    @BeforeEach
+    void init() {
+        cache = new PublicSetCache(3, 10, Duration.ofMinutes(10), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void givenGet_whenSetIsCached_thenDontLoadIt() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        CardSetDto set = set(1L, SetType.PUBLIC, 2);
+
+        // when
+        CardSetDto first = cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return set;
+        });
+        CardSetDto second = cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return set;
+        });
+
+        // then
+        assertThat(loads.get(), is(1));
+        assertThat(second, is(first));
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(cache.weight(), is(3L));
+    }
+
+    @Test
+    void givenGet_whenReturnedSetIsModified_thenKeepCachedSetIntact() {
+        // given
+        CardSetDto first = cache.get(1L, () -> set(1L, SetType.PUBLIC, 2));
+
+        // when
+        first.setName("Renamed");
+        first.getCards().clear();
+
+        // then
+        CardSetDto second = cache.get(1L, () -> set(1L, SetType.PUBLIC, 0));
+        assertThat(second.getName(), is("Set 1"));
+        assertThat(second.getCards(), hasSize(2));
+    }
+
+    @Test
+    void givenGet_whenSetHasExpired_thenLoadItAgain() {
+        // given
+        cache = new PublicSetCache(3, 10, Duration.ZERO, Duration.ofSeconds(5));
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 2));
+
+        // when
+        boolean cached = isCached(1L);
+
+        // then
+        assertThat(cached, is(false));
+        assertThat(cache.weight(), is(0L));
+    }
+
+    @Test
+    void givenGet_whenSetIsPrivate_thenDontCacheIt() {
+        // when
+        cache.get(1L, () -> set(1L, SetType.PRIVATE, 0));
+
+        // then
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    void givenGet_whenCacheIsFull_thenEvictLeastRecentlyUsedSets() {
+        // given
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 0));
+        cache.get(2L, () -> set(2L, SetType.PUBLIC, 0));
+        cache.get(3L, () -> set(3L, SetType.PUBLIC, 0));
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 0));
+
+        // when
+        cache.get(4L, () -> set(4L, SetType.PUBLIC, 0));
+        cache.get(5L, () -> set(5L, SetType.PUBLIC, 8));
+
+        // then
+        assertThat(cache.size(), is(2));
+        assertThat(cache.weight(), is(10L));
+        assertThat(isCached(5L), is(true));
+        assertThat(isCached(1L), is(false));
+    }
+
+    @Test
+    void givenGet_whenSetIsHeavierThanCache_thenDontCacheIt() {
+        // when
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 10));
+
+        // then
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    void givenGet_whenSetIsInvalidatedWhileLoading_thenDontCacheLoadedSet() {
+        // when
+        cache.get(1L, () -> {
+            cache.invalidate(1L);
+            return set(1L, SetType.PUBLIC, 0);
+        });
+
+        // then
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    void givenGet_whenOtherSetIsInvalidatedWhileLoading_thenCacheLoadedSet() {
+        // when
+        cache.get(1L, () -> {
+            cache.invalidate(2L);
+            return set(1L, SetType.PUBLIC, 0);
+        });
+
+        // then
+        assertThat(isCached(1L), is(true));
+    }
+
+    @Test
+    void givenGet_whenSetIsLoadedAgainAfterInvalidation_thenCacheOnlyTheNewLoad() {
+        // when
+        cache.get(1L, () -> {
+            cache.invalidate(1L);
+            cache.get(1L, () -> set(1L, SetType.PUBLIC, 2));
+            return set(1L, SetType.PUBLIC, 0);
+        });
+
+        // then
+        assertThat(cache.weight(), is(3L));
+    }
+
+    @Test
+    void givenInvalidate_thenLoadSetAgain() {
+        // given
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 2));
+
+        // when
+        cache.invalidate(1L);
+
+        // then
+        assertThat(cache.weight(), is(0L));
+        assertThat(isCached(1L), is(false));
+    }
+
+    @Test
+    void givenBindTo_thenPublishHitsAndMisses() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        // when
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 0));
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 0));
+        cache.get(1L, () -> set(1L, SetType.PUBLIC, 0));
+
+        // then
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count(), is(2.0));
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count(), is(1.0));
+        assertThat(registry.get("cache.size").gauge().value(), is(1.0));
+    }
+
+    private boolean isCached(long setId) {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(setId, () -> {
+            loads.incrementAndGet();
+            return set(setId, SetType.PRIVATE, 0);
+        });
+
+        return loads.get() == 0;
+    }
+
+    private static CardSetDto set(long id, SetType type, int cards) {
+        Set<CardDto> cardDtos = IntStream.range(0, cards)
+                .mapToObj(i -> CardDto.builder().id(i).front("front " + i).build())
+                .collect(Collectors.toCollection(HashSet::new));
+
+        return CardSetDto.builder().id(id).name("Set " + id).type(type).cards(cardDtos).build();
+    }
+}
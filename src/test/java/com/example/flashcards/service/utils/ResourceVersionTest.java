@@ -0,0 +1,62 @@
+package com.example.flashcards.service.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ResourceVersionTest {
+    static final LocalDateTime UPDATED_AT = LocalDateTime.of(2022, 10, 1, 12, 0, 30, 500_000_000);
+
+    ResourceVersion version = ResourceVersion.ofSet(14, 3, UPDATED_AT);
+
+    @Test
+    void givenIsKnownBy_whenIfNoneMatchContainsTag_thenReturnTrue() {
+        // given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(List.of("\"s14-2\"", "W/\"s14-3\""));
+
+        // then
+        assertThat(version.isKnownBy(headers), is(true));
+    }
+
+    @Test
+    void givenIsKnownBy_whenIfNoneMatchContainsOnlyOtherTags_thenIgnoreIfModifiedSince() {
+        // given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("\"s14-2\"");
+        headers.setIfModifiedSince(version.getLastModifiedMillis());
+
+        // then
+        assertThat(version.isKnownBy(headers), is(false));
+    }
+
+    @Test
+    void givenIsKnownBy_whenIfNoneMatchIsWildcard_thenReturnTrue() {
+        // given
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("*");
+
+        // then
+        assertThat(version.isKnownBy(headers), is(true));
+    }
+
+    @Test
+    void givenIsKnownBy_whenIfModifiedSinceIsNotBeforeLastModifiedSecond_thenReturnTrue() {
+        // given
+        HttpHeaders known = new HttpHeaders();
+        known.setIfModifiedSince(version.getLastModifiedMillis());
+
+        HttpHeaders outdated = new HttpHeaders();
+        outdated.setIfModifiedSince(version.getLastModifiedMillis() - 1000);
+
+        // then
+        assertThat(version.isKnownBy(known), is(true));
+        assertThat(version.isKnownBy(outdated), is(false));
+        assertThat(version.isKnownBy(new HttpHeaders()), is(false));
+    }
+}
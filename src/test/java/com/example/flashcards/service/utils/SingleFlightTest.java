@@ -0,0 +1,145 @@
+package com.example.flashcards.service.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenExecute_whenKeyIsInFlight_thenShareItsResult() throws Exception {
+        // given
+        SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            return "set " + loads.incrementAndGet();
+        }));
+        started.await();
+
+        // when
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> flight.execute(1L, () -> "set " + loads.incrementAndGet())));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        assertThat(leader.get(5, TimeUnit.SECONDS), is("set 1"));
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS), is("set 1"));
+        }
+        assertThat(loads.get(), is(1));
+        assertThat(flight.inFlight(), is(0));
+    }
+
+    @Test
+    void givenExecute_whenLoadFails_thenThrowSameExceptionToWaitingCallers() throws Exception {
+        // given
+        SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalArgumentException("Set doesn't exist");
+        }));
+        started.await();
+
+        // when
+        Future<String> follower = executor.submit(() -> flight.execute(1L, () -> "loaded again"));
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertThat(leaderError.getCause(), instanceOf(IllegalArgumentException.class));
+        assertThat(followerError.getCause(), instanceOf(IllegalArgumentException.class));
+
+        // a failed load isn't remembered
+        assertThat(flight.execute(1L, () -> "loaded"), is("loaded"));
+    }
+
+    @Test
+    void givenExecute_whenLoadInFlightTimesOut_thenLoadAgain() throws Exception {
+        // given
+        SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            return "stuck";
+        }));
+        started.await();
+
+        // when
+        String result = flight.execute(1L, () -> "loaded");
+        release.countDown();
+
+        // then
+        assertThat(result, is("loaded"));
+    }
+
+    @Test
+    void givenForget_thenStartNewLoadForNextCaller() throws Exception {
+        // given
+        SingleFlight<Long, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            return "old";
+        }));
+        started.await();
+
+        // when
+        flight.forget(1L);
+        String result = flight.execute(1L, () -> "new");
+        release.countDown();
+
+        // then
+        assertThat(result, is("new"));
+        assertThat(leader.get(5, TimeUnit.SECONDS), is("old"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}